@@ -23,6 +23,7 @@
 import dev.ikm.komet.amplify.viewmodels.StampViewModel;
 import dev.ikm.komet.framework.Identicon;
 import dev.ikm.komet.framework.events.AxiomChangeEvent;
+import dev.ikm.komet.framework.events.Delivery;
 import dev.ikm.komet.framework.events.EvtBus;
 import dev.ikm.komet.framework.events.EvtBusFactory;
 import dev.ikm.komet.framework.events.Subscriber;
@@ -361,9 +362,9 @@ public void initialize() {
         eventBus.subscribe(conceptTopic, EditConceptEvent.class, editConceptEventSubscriber);
 
 
-        // listen to rules changes to update the axioms
+        // listen to rules changes to update the axioms, on the FX thread, once per burst of rule actions
         changeSetTypeEventSubscriber = evt -> updateAxioms();
-        eventBus.subscribe(RULES_TOPIC, AxiomChangeEvent.class, changeSetTypeEventSubscriber);
+        eventBus.subscribe(RULES_TOPIC, AxiomChangeEvent.class, changeSetTypeEventSubscriber, Delivery.fxThread().coalesce());
 
     }
 
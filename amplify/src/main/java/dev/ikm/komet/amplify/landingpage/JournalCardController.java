@@ -27,8 +27,10 @@
 import dev.ikm.komet.amplify.events.CreateJournalEvent;
 import dev.ikm.komet.amplify.events.DeleteJournalEvent;
 import dev.ikm.komet.amplify.events.JournalTileEvent;
+import dev.ikm.komet.framework.events.Delivery;
 import dev.ikm.komet.framework.events.EvtBus;
 import dev.ikm.komet.framework.events.EvtBusFactory;
+import dev.ikm.komet.framework.events.Replay;
 import dev.ikm.komet.framework.events.Subscriber;
 import dev.ikm.komet.framework.preferences.PrefX;
 import javafx.event.ActionEvent;
@@ -66,6 +68,7 @@ public class JournalCardController implements BasicController {
     Button menuOptionButton;
     ContextMenu contextMenu = buildMenuOptionContextMenu();
     Subscriber<JournalTileEvent> updateCard;
+    private boolean subscribed;
     @FXML
     public void initialize() {
         journalEventBus = EvtBusFactory.getDefaultEvtBus();
@@ -96,7 +99,6 @@ public void initialize() {
                 disableMenuItem("Delete", !canDelete); // not can delete means disable
             }
         };
-        journalEventBus.subscribe(JOURNAL_TOPIC, JournalTileEvent.class, updateCard);
     }
 
     @Override
@@ -111,7 +113,10 @@ public void clearView() {
 
     @Override
     public void cleanup() {
-        journalEventBus.unsubscribe(JOURNAL_TOPIC, JournalTileEvent.class, updateCard);
+        if (subscribed) {
+            journalEventBus.unsubscribe(JOURNAL_TOPIC, JournalTileEvent.class, updateCard);
+            subscribed = false;
+        }
     }
 
     private void setupContextMenuOptions(Button menuOptionButton) {
@@ -222,6 +227,12 @@ private ContextMenu buildMenuOptionContextMenu() {
 
     public void setJournalCardName(String journalCardName) {
         this.journalCardName.setText(journalCardName);
+        // Subscribe once the card knows its journal, replaying the updates of a journal that is already open, so a
+        // card rebuilt with the landing page does not offer to delete it.
+        if (!subscribed) {
+            journalEventBus.subscribe(JOURNAL_TOPIC, JournalTileEvent.class, updateCard, Delivery.caller(), Replay.ALL);
+            subscribed = true;
+        }
     }
 
     public void setJournalTimestampValue(String journalTimestampValue) {
@@ -29,6 +29,7 @@
 import dev.ikm.komet.amplify.landingpage.LandingPageController;
 import dev.ikm.komet.amplify.landingpage.LandingPageViewFactory;
 import dev.ikm.komet.details.DetailsNodeFactory;
+import dev.ikm.komet.executor.FxStallWatchdog;
 import dev.ikm.komet.framework.KometNode;
 import dev.ikm.komet.framework.KometNodeFactory;
 import dev.ikm.komet.framework.ScreenInfo;
@@ -275,6 +276,8 @@ public void init() throws Exception {
                             () -> launchJournalViewWindow(evt.getWindowSettingsObjectMap()) /* launch new Journal view window */
                     );
         };
+        // keep the latest journal tile updates for landing page cards created after them
+        amplifyEventBus.retain(JOURNAL_TOPIC, 64, 1024 * 1024);
         // subscribe to the topic
         amplifyEventBus.subscribe(JOURNAL_TOPIC, CreateJournalEvent.class, detailsSubscriber);
     }
@@ -295,6 +298,7 @@ public void start(Stage stage) {
 
         try {
             App.primaryStage = stage;
+            FxStallWatchdog.startIfEnabled();
             Thread.currentThread().setUncaughtExceptionHandler((t, e) -> AlertStreams.getRoot().dispatch(AlertObject.makeError(e)));
             // Get the toolkit
             MenuToolkit tk = MenuToolkit.toolkit();
@@ -654,6 +658,7 @@ private void handleRefreshUserCss(Parent root) {
     @Override
     public void stop() {
         LOG.info("Stopping application\n\n###############\n\n");
+        FxStallWatchdog.stopIfRunning();
 
         // close all journal windows
         journalControllersList.forEach(journalController -> journalController.close());
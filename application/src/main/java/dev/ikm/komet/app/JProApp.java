@@ -28,8 +28,11 @@
 import dev.ikm.komet.amplify.journal.JournalViewFactory;
 import dev.ikm.komet.amplify.landingpage.LandingPageController;
 import dev.ikm.komet.amplify.landingpage.LandingPageViewFactory;
+import dev.ikm.komet.executor.ExecutorSession;
+import dev.ikm.komet.executor.FxStallWatchdog;
 import dev.ikm.komet.framework.KometNodeFactory;
 import dev.ikm.komet.framework.ScreenInfo;
+import dev.ikm.komet.framework.SessionScope;
 import dev.ikm.komet.framework.events.EvtBus;
 import dev.ikm.komet.framework.events.EvtBusFactory;
 import dev.ikm.komet.framework.events.Subscriber;
@@ -50,6 +53,7 @@
 import javafx.application.Platform;
 import javafx.beans.value.ObservableValue;
 import javafx.event.ActionEvent;
+import javafx.event.EventDispatcher;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -81,6 +85,8 @@
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.prefs.BackingStoreException;
 
 import static dev.ikm.komet.amplify.events.AmplifyTopics.JOURNAL_TOPIC;
@@ -115,6 +121,9 @@ public class JProApp extends RouteApp {
     private final List<JournalController> journalControllersList = new ArrayList<>();
     private EvtBus amplifyEventBus;
     private static boolean firstRun = true;
+    private static final AtomicInteger SESSION_COUNT = new AtomicInteger();
+    private ExecutorSession executorSession;
+    private SessionScope sessionScope;
 
     @Override
     public void init() {
@@ -128,7 +137,13 @@ public void init() {
         amplifyModule = ModuleLayer.boot()
                 .findModule("dev.ikm.komet.amplify")
                 .orElseThrow(() -> new RuntimeException("Amplify module not found"));
+    }
 
+    /**
+     * Subscribes to the journal events of the current session, so that this session only opens the journals
+     * its own user asked for.
+     */
+    private void subscribeToJournalEvents() {
         // get the instance of the event bus
         amplifyEventBus = EvtBusFactory.getInstance(EvtBus.class);
         Subscriber<CreateJournalEvent> detailsSubscriber = evt -> {
@@ -144,6 +159,8 @@ public void init() {
                     );
         };
 
+        // keep the latest journal tile updates for landing page cards created after them
+        amplifyEventBus.retain(AmplifyTopics.JOURNAL_TOPIC, 64, 1024 * 1024);
         // subscribe to the topic
         amplifyEventBus.subscribe(AmplifyTopics.JOURNAL_TOPIC, CreateJournalEvent.class, detailsSubscriber);
     }
@@ -153,9 +170,28 @@ public Route createRoute() {
         Thread.currentThread().setUncaughtExceptionHandler((t, e) ->
                 AlertStreams.getRoot().dispatch(AlertObject.makeError(e)));
 
+        // One watchdog serves every session, since they all share the JavaFX application thread.
+        FxStallWatchdog.startIfEnabled();
         getStage().setTitle("KOMET Startup");
         getScene().getStylesheets().addAll(getKometCssLocation(), getAmplifyCssLocation());
 
+        // Each browser session gets a fair share of the executor pools, so one user's export or
+        // classification cannot take every worker thread from the other users of the server. It also
+        // gets its own activity streams and event buses, so one user's selections and journal events
+        // are not dispatched to the windows of every other user.
+        if (IS_BROWSER) {
+            String sessionName = "jpro-session-" + SESSION_COUNT.incrementAndGet();
+            sessionScope = SessionScope.open(sessionName);
+            executorSession = ExecutorSession.open(sessionName);
+            executorSession.setScope(sessionScope);
+            dispatchEventsInExecutorSession(getStage());
+        }
+        if (executorSession != null) {
+            executorSession.run(this::subscribeToJournalEvents);
+        } else {
+            subscribeToJournalEvents();
+        }
+
         getStage().addEventFilter(MouseEvent.MOUSE_PRESSED, event -> {
             ScreenInfo.mouseIsPressed(true);
             ScreenInfo.mouseWasDragged(false);
@@ -174,7 +210,9 @@ public Route createRoute() {
             if (newValue && firstRun) {
                 LOG.info("Primary stage is showing");
                 App.state.set(AppState.SELECT_DATA_SOURCE);
-                App.state.addListener(this::appStateChangeListener);
+                // The state is shared by every session and changed from any of them, or by the loading task.
+                App.state.addListener((observable, oldValue, newValue) ->
+                        runInExecutorSession(() -> appStateChangeListener(observable, oldValue, newValue)));
                 firstRun = false;
             }
         });
@@ -188,8 +226,8 @@ public Route createRoute() {
                     }
                 }))
                 .path("/page", Route.empty()
-                        .and(get("/selectDataSource", request -> Response.node(selectDataSourcePage())))
-                        .and(get("/landing", request -> Response.node(landingPage()))))
+                        .and(get("/selectDataSource", request -> Response.node(inExecutorSession(this::selectDataSourcePage))))
+                        .and(get("/landing", request -> Response.node(inExecutorSession(this::landingPage)))))
                 .filter(Filters.FullscreenFilter(true)); // uses the whole browser window
     }
 
@@ -197,10 +235,51 @@ public Route createRoute() {
     public void stop() {
         LOG.info("Stopping Komet");
 
+        if (executorSession != null) {
+            executorSession.close();
+        }
+
         // close all journal windows
         if (IS_DESKTOP) {
             App.state.set(AppState.SHUTDOWN);
             journalControllersList.forEach(JournalController::close);
+        } else if (sessionScope != null) {
+            // The windows of a browser session are gone with it; release the journals and the
+            // activity streams and event buses of the session, so they can be garbage collected.
+            journalControllersList.forEach(JournalController::shutdown);
+            journalControllersList.clear();
+            sessionScope.close();
+        }
+    }
+
+    /**
+     * The JavaFX application thread is shared by all sessions, so make this session's executor session and
+     * scope current while it dispatches an event to one of this session's windows, and restore the previous
+     * ones afterwards.
+     */
+    private void dispatchEventsInExecutorSession(Stage stage) {
+        if (executorSession != null) {
+            EventDispatcher dispatcher = stage.getEventDispatcher();
+            stage.setEventDispatcher((event, tail) -> executorSession.call(() -> dispatcher.dispatchEvent(event, tail)));
+        }
+    }
+
+    /**
+     * Builds part of this session's user interface with its executor session and scope current, if it has one.
+     */
+    private <T> T inExecutorSession(Supplier<T> builder) {
+        return executorSession != null ? executorSession.call(builder) : builder.get();
+    }
+
+    /**
+     * Runs a listener with this session's executor session and scope current, if it has one, since listeners may be
+     * called on the JavaFX application thread while it serves another session.
+     */
+    private void runInExecutorSession(Runnable listener) {
+        if (executorSession != null) {
+            executorSession.run(listener);
+        } else {
+            listener.run();
         }
     }
 
@@ -353,7 +432,7 @@ private void launchJournalViewWindow(PrefX journalWindowSettings) {
                 }
             }
 
-            journalStageWindow.showingProperty().addListener((observable, oldValue, newValue) -> {
+            journalStageWindow.showingProperty().addListener((observable, oldValue, newValue) -> runInExecutorSession(() -> {
                 if (!newValue) {
                     System.out.println("Stage is hidden.");
                     saveJournalWindowsToPreferences();
@@ -364,7 +443,7 @@ private void launchJournalViewWindow(PrefX journalWindowSettings) {
                     journalWindowSettings.setValue(CAN_DELETE, true);
                     amplifyEventBus.publish(JOURNAL_TOPIC, new JournalTileEvent(this, UPDATE_JOURNAL_TILE, journalWindowSettings));
                 }
-            });
+            }));
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -388,6 +467,7 @@ private void launchJournalViewWindow(PrefX journalWindowSettings) {
         journalControllersList.add(journalController);
 
         if (IS_BROWSER) {
+            dispatchEventsInExecutorSession(journalStageWindow);
             getWebAPI().openStageAsTab(journalStageWindow);
         }
         journalStageWindow.show();
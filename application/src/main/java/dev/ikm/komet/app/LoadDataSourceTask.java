@@ -17,10 +17,12 @@
 
 import javafx.application.Platform;
 import javafx.beans.property.SimpleObjectProperty;
+import dev.ikm.komet.framework.concurrent.PrioritizedTask;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.tinkar.common.service.PrimitiveData;
 import dev.ikm.tinkar.common.service.TrackingCallable;
 
-public class LoadDataSourceTask extends TrackingCallable<Void> {
+public class LoadDataSourceTask extends TrackingCallable<Void> implements PrioritizedTask {
     final SimpleObjectProperty<AppState> state;
 
     public LoadDataSourceTask(SimpleObjectProperty<AppState> state) {
@@ -31,6 +33,11 @@ public LoadDataSourceTask(SimpleObjectProperty<AppState> state) {
         updateProgress(-1, -1);
     }
 
+    @Override
+    public TaskPriority taskPriority() {
+        return TaskPriority.BULK;
+    }
+
     @Override
     protected Void compute() throws Exception {
         try {
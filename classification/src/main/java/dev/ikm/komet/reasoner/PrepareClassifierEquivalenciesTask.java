@@ -20,12 +20,14 @@
 import javafx.scene.control.TreeView;
 import org.eclipse.collections.api.list.primitive.ImmutableIntList;
 import org.eclipse.collections.api.set.ImmutableSet;
+import dev.ikm.komet.framework.concurrent.PrioritizedTask;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.komet.framework.view.ViewProperties;
 import dev.ikm.tinkar.common.service.TrackingCallable;
 import dev.ikm.tinkar.common.util.text.NaturalOrder;
 import dev.ikm.tinkar.terms.EntityProxy;
 
-public class PrepareClassifierEquivalenciesTask extends TrackingCallable<Void> {
+public class PrepareClassifierEquivalenciesTask extends TrackingCallable<Void> implements PrioritizedTask {
 
     final ImmutableSet<ImmutableIntList> equivalentSets;
     final TreeView<StringWithOptionalConceptFacade> equivalenciesTree;
@@ -40,6 +42,11 @@ public PrepareClassifierEquivalenciesTask(ImmutableSet<ImmutableIntList> equival
         this.viewProperties = viewProperties;
     }
 
+    @Override
+    public TaskPriority taskPriority() {
+        return TaskPriority.BULK;
+    }
+
     @Override
     protected Void compute() throws Exception {
         TreeItem<StringWithOptionalConceptFacade> root = new TreeItem<>(new StringWithOptionalConceptFacade("Equivalences Root"));
@@ -20,13 +20,15 @@
 import org.eclipse.collections.api.list.primitive.ImmutableIntList;
 import org.eclipse.collections.api.set.primitive.ImmutableIntSet;
 import org.eclipse.collections.impl.factory.primitive.IntLists;
+import dev.ikm.komet.framework.concurrent.PrioritizedTask;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.komet.framework.view.ViewProperties;
 import dev.ikm.tinkar.common.service.TrackingCallable;
 import dev.ikm.tinkar.common.util.text.NaturalOrder;
 
 import java.util.concurrent.ConcurrentSkipListSet;
 
-public class PrepareConceptSetTask extends TrackingCallable<Void> {
+public class PrepareConceptSetTask extends TrackingCallable<Void> implements PrioritizedTask {
 
 
     private final ImmutableIntList affectedConceptList;
@@ -51,6 +53,11 @@ public PrepareConceptSetTask(String title, ImmutableIntList affectedConcepts,
         });
     }
 
+    @Override
+    public TaskPriority taskPriority() {
+        return TaskPriority.BULK;
+    }
+
     @Override
     protected Void compute() throws Exception {
 
@@ -21,8 +21,7 @@
 import java.util.List;
 import java.util.ServiceLoader;
 import java.util.ServiceLoader.Provider;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.CancellationException;
 
 import org.eclipse.collections.api.list.ImmutableList;
 import org.slf4j.Logger;
@@ -31,6 +30,7 @@
 import dev.ikm.komet.framework.ExplorationNodeAbstract;
 import dev.ikm.komet.framework.TopPanelFactory;
 import dev.ikm.komet.framework.activity.ActivityStreams;
+import dev.ikm.komet.framework.concurrent.StagedTask;
 import dev.ikm.komet.framework.view.ViewProperties;
 import dev.ikm.komet.preferences.KometPreferences;
 import dev.ikm.tinkar.reasoner.service.ReasonerService;
@@ -148,35 +148,25 @@ private void fullReasoner() {
 			reasonerService.init(getViewProperties().calculator(), TinkarTerm.EL_PLUS_PLUS_STATED_AXIOMS_PATTERN,
 					TinkarTerm.EL_PLUS_PLUS_INFERRED_AXIOMS_PATTERN);
 			RunElkOwlReasonerTask task = new RunElkOwlReasonerTask(reasonerService, resultsController::setResults);
-			Future<ReasonerService> reasonerFuture = TinkExecutor.threadPool().submit(task);
-			int conceptCount = 0;
-			try {
-				reasonerFuture.get();
-				conceptCount = reasonerService.getConceptCount();
-			} catch (InterruptedException | ExecutionException e) {
-				AlertStreams.dispatchToRoot(e);
-			}
-
-			LOG.info("Concept count: " + conceptCount + " " + task.durationString());
+			task.start().whenComplete((service, throwable) -> logCompletion(task, throwable));
 		});
 	}
 
+	private void logCompletion(StagedTask<ReasonerService> task, Throwable throwable) {
+		int conceptCount = 0;
+		if (throwable == null) {
+			conceptCount = reasonerService.getConceptCount();
+		} else if (!(throwable instanceof CancellationException)) {
+			AlertStreams.dispatchToRoot(throwable);
+		}
+		LOG.info("Concept count: " + conceptCount + " " + task.durationString());
+	}
+
 	private void elkOwlReasonerIncremental(ActionEvent actionEvent) {
 		reinferAllHierarchy = false;
-		TinkExecutor.threadPool().execute(() -> {
-			RunElkOwlReasonerIncrementalTask task = new RunElkOwlReasonerIncrementalTask(reasonerService,
-					resultsController::setResults);
-			Future<ReasonerService> reasonerFuture = TinkExecutor.threadPool().submit(task);
-			int conceptCount = 0;
-			try {
-				reasonerFuture.get();
-				conceptCount = reasonerService.getConceptCount();
-			} catch (InterruptedException | ExecutionException e) {
-				AlertStreams.dispatchToRoot(e);
-			}
-
-			LOG.info("Concept count: " + conceptCount + " " + task.durationString());
-		});
+		RunElkOwlReasonerIncrementalTask task = new RunElkOwlReasonerIncrementalTask(reasonerService,
+				resultsController::setResults);
+		task.start().whenComplete((service, throwable) -> logCompletion(task, throwable));
 	}
 
 	@Override
@@ -18,10 +18,12 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import dev.ikm.komet.framework.concurrent.PrioritizedTask;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.tinkar.reasoner.service.ReasonerService;
 import dev.ikm.tinkar.common.service.TrackingCallable;
 
-public class ComputeElkOwlInferencesTask extends TrackingCallable<ReasonerService> {
+public class ComputeElkOwlInferencesTask extends TrackingCallable<ReasonerService> implements PrioritizedTask {
 
 	private static final Logger LOG = LoggerFactory.getLogger(ComputeElkOwlInferencesTask.class);
 
@@ -33,6 +35,11 @@ public ComputeElkOwlInferencesTask(ReasonerService reasonerService) {
 		updateTitle("Computing taxonomy");
 	}
 
+	@Override
+	public TaskPriority taskPriority() {
+		return TaskPriority.BULK;
+	}
+
 	@Override
 	protected ReasonerService compute() throws Exception {
 		reasonerService.computeInferences();
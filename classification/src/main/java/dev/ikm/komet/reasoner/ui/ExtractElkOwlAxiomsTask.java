@@ -18,10 +18,12 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import dev.ikm.komet.framework.concurrent.PrioritizedTask;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.tinkar.reasoner.service.ReasonerService;
 import dev.ikm.tinkar.common.service.TrackingCallable;
 
-public class ExtractElkOwlAxiomsTask extends TrackingCallable<ReasonerService> {
+public class ExtractElkOwlAxiomsTask extends TrackingCallable<ReasonerService> implements PrioritizedTask {
 
 	private static final Logger LOG = LoggerFactory.getLogger(ExtractElkOwlAxiomsTask.class);
 
@@ -34,6 +36,11 @@ public ExtractElkOwlAxiomsTask(ReasonerService reasonerService) {
 				.getPreferredDescriptionTextWithFallbackOrNid(reasonerService.getStatedAxiomPattern()));
 	}
 
+	@Override
+	public TaskPriority taskPriority() {
+		return TaskPriority.BULK;
+	}
+
 	@Override
 	protected ReasonerService compute() throws Exception {
 		reasonerService.extractData();
@@ -18,10 +18,12 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import dev.ikm.komet.framework.concurrent.PrioritizedTask;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.tinkar.reasoner.service.ReasonerService;
 import dev.ikm.tinkar.common.service.TrackingCallable;
 
-public class LoadElkOwlAxiomsTask extends TrackingCallable<ReasonerService> {
+public class LoadElkOwlAxiomsTask extends TrackingCallable<ReasonerService> implements PrioritizedTask {
 
 	private static final Logger LOG = LoggerFactory.getLogger(LoadElkOwlAxiomsTask.class);
 
@@ -33,6 +35,11 @@ public LoadElkOwlAxiomsTask(ReasonerService reasonerService) {
 		updateTitle("Loading data into reasoner");
 	}
 
+	@Override
+	public TaskPriority taskPriority() {
+		return TaskPriority.BULK;
+	}
+
 	@Override
 	protected ReasonerService compute() throws Exception {
 		reasonerService.loadData();
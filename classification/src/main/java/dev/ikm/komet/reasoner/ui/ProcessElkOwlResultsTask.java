@@ -35,6 +35,8 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import dev.ikm.komet.framework.concurrent.PrioritizedTask;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.komet.reasoner.ClassifierResults;
 import dev.ikm.komet.reasoner.ReasonerResultsNode;
 import dev.ikm.tinkar.reasoner.service.ReasonerService;
@@ -71,7 +73,7 @@
 import dev.ikm.tinkar.terms.State;
 import dev.ikm.tinkar.terms.TinkarTerm;
 
-public class ProcessElkOwlResultsTask extends TrackingCallable<ClassifierResults> {
+public class ProcessElkOwlResultsTask extends TrackingCallable<ClassifierResults> implements PrioritizedTask {
 
 	private static final Logger LOG = LoggerFactory.getLogger(ProcessElkOwlResultsTask.class);
 
@@ -102,6 +104,11 @@ public ProcessElkOwlResultsTask(ReasonerService reasonerService) {
 		updateTitle("Processing reasoner results");
 	}
 
+	@Override
+	public TaskPriority taskPriority() {
+		return TaskPriority.BULK;
+	}
+
 	@Override
 	protected ClassifierResults compute() throws Exception {
 		updateMessage("Getting classified results");
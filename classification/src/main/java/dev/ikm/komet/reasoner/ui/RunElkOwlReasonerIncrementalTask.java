@@ -15,22 +15,22 @@
  */
 package dev.ikm.komet.reasoner.ui;
 
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import dev.ikm.komet.framework.EditedConceptTracker;
+import dev.ikm.komet.framework.concurrent.StagedTask;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.komet.reasoner.ClassifierResults;
 import dev.ikm.tinkar.reasoner.service.ReasonerService;
 import dev.ikm.tinkar.common.service.PrimitiveData;
-import dev.ikm.tinkar.common.service.TinkExecutor;
-import dev.ikm.tinkar.common.service.TrackingCallable;
 import dev.ikm.tinkar.entity.SemanticVersionRecord;
 import dev.ikm.tinkar.entity.graph.DiTreeEntity;
 
-public class RunElkOwlReasonerIncrementalTask extends TrackingCallable<ReasonerService> {
+public class RunElkOwlReasonerIncrementalTask extends StagedTask<ReasonerService> {
 
 	private static final Logger LOG = LoggerFactory.getLogger(RunElkOwlReasonerIncrementalTask.class);
 
@@ -40,52 +40,47 @@ public class RunElkOwlReasonerIncrementalTask extends TrackingCallable<ReasonerS
 
 	public RunElkOwlReasonerIncrementalTask(ReasonerService reasonerService,
 			Consumer<ClassifierResults> classifierResultsConsumer) {
-		super(true, true);
+		super(3);
 		this.reasonerService = reasonerService;
 		this.classifierResultsConsumer = classifierResultsConsumer;
 		updateTitle("Running reasoner (" + reasonerService.getClass().getSimpleName() + "): "
 				+ reasonerService.getViewCalculator()
 						.getPreferredDescriptionTextWithFallbackOrNid(reasonerService.getStatedAxiomPattern()));
-		updateProgress(0, 4);
 	}
 
 	@Override
-	protected ReasonerService compute() throws Exception {
+	public TaskPriority taskPriority() {
+		return TaskPriority.BULK;
+	}
+
+	@Override
+	protected CompletableFuture<ReasonerService> pipeline() throws Exception {
 		if (!reasonerService.isIncrementalReady())
 			throw new Exception("Need to run full reasoner first");
-		final int maxWork = 4;
-		int workDone = 1;
-		String msg;
-		//
-		msg = "Step " + workDone + ": Build changes";
-		updateMessage(msg);
-		LOG.info(msg);
+		return stage("Build changes", this::buildChanges)
+				.thenCompose(service -> stage("Computing taxonomy", this::computeInferences))
+				.thenCompose(service -> stage("Processing results", new ProcessElkOwlResultsTask(service)))
+				.thenApply(classifierResults -> {
+					classifierResultsConsumer.accept(classifierResults);
+					updateMessage("Reasoner run complete in " + durationString());
+					return reasonerService;
+				});
+	}
+
+	private ReasonerService buildChanges() {
 		logParents();
 		for (SemanticVersionRecord edit : EditedConceptTracker.getEdits()) {
 			DiTreeEntity def = (DiTreeEntity) edit.fieldValues().get(0);
 			LOG.info("Edit: " + edit.referencedComponentNid() + " " + def);
 			reasonerService.processIncremental(def, edit.referencedComponentNid());
 		}
-		updateProgress(workDone++, maxWork);
-		//
-		msg = "Step " + workDone + ": Computing taxonomy";
-		updateMessage(msg);
-		LOG.info(msg);
+		return reasonerService;
+	}
+
+	private ReasonerService computeInferences() {
 		reasonerService.computeInferences();
 		logParents();
 		EditedConceptTracker.removeEdits();
-		updateProgress(workDone++, maxWork);
-		//
-		msg = "Step " + workDone + ": Processing results";
-		updateMessage(msg);
-		LOG.info(msg);
-		ProcessElkOwlResultsTask processResultsTask = new ProcessElkOwlResultsTask(reasonerService);
-		Future<ClassifierResults> processResultsFuture = TinkExecutor.threadPool().submit(processResultsTask);
-		ClassifierResults classifierResults = processResultsFuture.get();
-		updateProgress(workDone++, maxWork);
-		//
-		classifierResultsConsumer.accept(classifierResults);
-		updateMessage("Reasoner run complete in " + durationString());
 		return reasonerService;
 	}
 
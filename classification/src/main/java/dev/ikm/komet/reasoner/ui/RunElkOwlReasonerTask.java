@@ -15,16 +15,16 @@
  */
 package dev.ikm.komet.reasoner.ui;
 
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import dev.ikm.komet.framework.concurrent.StagedTask;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.komet.reasoner.ClassifierResults;
 import dev.ikm.tinkar.reasoner.service.ReasonerService;
-import dev.ikm.tinkar.common.service.TinkExecutor;
-import dev.ikm.tinkar.common.service.TrackingCallable;
 
 /**
  * Reasoning Tasks
@@ -48,8 +48,11 @@
  * Compute taxonomy (aka Classification): this is the task of determining the
  * subclass relationships between classes in order to complete the class
  * hierarchy. For example, .. (left for the reader :P)
+ * <p>
+ * The extract, load, compute and process stages run as a {@link StagedTask} pipeline, so no pool thread waits
+ * on another while the reasoner runs.
  */
-public class RunElkOwlReasonerTask extends TrackingCallable<ReasonerService> {
+public class RunElkOwlReasonerTask extends StagedTask<ReasonerService> {
 
 	private static final Logger LOG = LoggerFactory.getLogger(RunElkOwlReasonerTask.class);
 
@@ -59,59 +62,33 @@ public class RunElkOwlReasonerTask extends TrackingCallable<ReasonerService> {
 
 	public RunElkOwlReasonerTask(ReasonerService reasonerService,
 			Consumer<ClassifierResults> classifierResultsConsumer) {
-		super(true, true);
+		super(4);
 		this.reasonerService = reasonerService;
 		this.classifierResultsConsumer = classifierResultsConsumer;
 		updateTitle("Running reasoner (" + reasonerService.getClass().getSimpleName() + "): "
 				+ reasonerService.getViewCalculator()
 						.getPreferredDescriptionTextWithFallbackOrNid(reasonerService.getStatedAxiomPattern()));
-		updateProgress(0, 4);
 	}
 
 	@Override
-	protected ReasonerService compute() throws Exception {
+	public TaskPriority taskPriority() {
+		return TaskPriority.BULK;
+	}
+
+	@Override
+	protected CompletableFuture<ReasonerService> pipeline() {
 		reasonerService.setProgressUpdater(this);
-		final int maxWork = 4;
-		int workDone = 1;
-		String msg;
-		//
-		msg = "Step " + workDone + ": Extracting data";
-		updateMessage(msg);
-		LOG.info(msg);
-		ExtractElkOwlAxiomsTask extractTask = new ExtractElkOwlAxiomsTask(reasonerService);
-		Future<ReasonerService> extractFuture = TinkExecutor.threadPool().submit(extractTask);
-		extractFuture.get();
-		updateProgress(workDone++, maxWork);
-		//
-		msg = "Step " + workDone + ": Loading data into reasoner";
-		updateMessage(msg);
-		LOG.info(msg);
-		LoadElkOwlAxiomsTask loadTask = new LoadElkOwlAxiomsTask(reasonerService);
-		Future<ReasonerService> loadFuture = TinkExecutor.threadPool().submit(loadTask);
-		loadFuture.get();
-		updateProgress(workDone++, maxWork);
-		//
-		msg = "Step " + workDone + ": Computing taxonomy";
-		updateMessage(msg);
-		LOG.info(msg);
-		ComputeElkOwlInferencesTask classifyTask = new ComputeElkOwlInferencesTask(reasonerService);
-		Future<ReasonerService> classifyFuture = TinkExecutor.threadPool().submit(classifyTask);
-		classifyFuture.get();
-		updateProgress(workDone++, maxWork);
-		//
-		msg = "Step " + workDone + ": Processing results";
-		updateMessage(msg);
-		LOG.info(msg);
-		ProcessElkOwlResultsTask processResultsTask = new ProcessElkOwlResultsTask(reasonerService);
-		Future<ClassifierResults> processResultsFuture = TinkExecutor.threadPool().submit(processResultsTask);
-		ClassifierResults classifierResults = processResultsFuture.get();
-		updateProgress(workDone++, maxWork);
-		//
-		classifierResultsConsumer.accept(classifierResults);
-		msg = "Reasoner run complete in " + durationString();
-		updateMessage(msg);
-		LOG.info(msg);
-		return reasonerService;
+		return stage("Extracting data", new ExtractElkOwlAxiomsTask(reasonerService))
+				.thenCompose(service -> stage("Loading data into reasoner", new LoadElkOwlAxiomsTask(service)))
+				.thenCompose(service -> stage("Computing taxonomy", new ComputeElkOwlInferencesTask(service)))
+				.thenCompose(service -> stage("Processing results", new ProcessElkOwlResultsTask(service)))
+				.thenApply(classifierResults -> {
+					classifierResultsConsumer.accept(classifierResults);
+					String msg = "Reasoner run complete in " + durationString();
+					updateMessage(msg);
+					LOG.info(msg);
+					return reasonerService;
+				});
 	}
 
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+/**
+ * Selects which kind of threads back the IO and blocking pools of the {@link KometExecutorProvider}.
+ * <p>
+ * The mode is read once, at startup, from the {@value #MODE_PROPERTY} system property, e.g.
+ * {@code -Dkomet.executor.mode=virtual}. When the property is absent or not recognized, {@link #PLATFORM}
+ * is used.
+ */
+public enum ExecutorMode {
+    /**
+     * Fixed size IO pool and a {@link java.util.concurrent.SynchronousQueue} blocking pool, both backed by
+     * platform threads.
+     */
+    PLATFORM,
+    /**
+     * IO and blocking pools backed by virtual threads, so tasks that block on IO or on {@code Future.get()}
+     * release their carrier thread instead of occupying a pool thread.
+     */
+    VIRTUAL;
+
+    public static final String MODE_PROPERTY = "komet.executor.mode";
+
+    public static ExecutorMode fromSystemProperties() {
+        String mode = System.getProperty(MODE_PROPERTY);
+        if (mode != null) {
+            for (ExecutorMode executorMode : values()) {
+                if (executorMode.name().equalsIgnoreCase(mode.strip())) {
+                    return executorMode;
+                }
+            }
+        }
+        return PLATFORM;
+    }
+}
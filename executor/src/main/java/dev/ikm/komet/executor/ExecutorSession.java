@@ -0,0 +1,334 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+import dev.ikm.komet.executor.metrics.ExecutorMetricsRegistry;
+import dev.ikm.komet.executor.metrics.SessionMetrics;
+import dev.ikm.komet.framework.SessionScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Accounts the work of one user session, such as a browser session of a JPro deployment, on the
+ * {@link KometThreadPoolExecutor} pools, so that one session cannot take every worker from the others.
+ * <p>
+ * A task belongs to the session that is {@linkplain #current() current} on the thread that submits it. The
+ * application makes its session current with {@link #enter()} on the threads of that session, or with
+ * {@link #call(Supplier)} while a shared thread, such as the JavaFX application thread, handles one of its
+ * events. Tasks of a session make it current while they run, so the work they submit is charged to the same
+ * session.
+ * <p>
+ * Sessions share the pools in proportion to their weight. Each task is tagged with a virtual start time
+ * (start-time fair queuing): tasks of a session that has recently used more than its share, in task count
+ * and in CPU time, sort behind the tasks of other sessions within the same {@link
+ * dev.ikm.komet.framework.concurrent.TaskPriority}. In addition, at most {@code maxRunning} tasks of a session
+ * run at once across the pools. A task picked up beyond that limit is parked, and is queued again when
+ * another task of the session finishes. Tasks submitted by a running task of the session are charged to it but
+ * not limited, since the submitting task may be waiting for them while it holds a running slot.
+ * <p>
+ * Queue depth, running and parked tasks, and CPU time of each open session are published through the
+ * {@link ExecutorMetricsRegistry} of the executor provider, next to the pool metrics. Tasks without a
+ * session, and tasks on the fork join and scheduled pools, are not limited.
+ */
+public final class ExecutorSession implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ExecutorSession.class);
+    public static final String MAX_RUNNING_PROPERTY = "komet.executor.session.max.running";
+    /**
+     * The virtual time charged to a session for each task when it is queued. The CPU time a task uses beyond
+     * this is charged when it finishes.
+     */
+    static final long TASK_COST_NANOS = 1_000_000;
+
+    private static final ThreadLocal<ExecutorSession> CURRENT = new ThreadLocal<>();
+    /**
+     * The session of the task running on the current thread, if it is a session task.
+     */
+    private static final ThreadLocal<ExecutorSession> RUNNING_TASK = new ThreadLocal<>();
+    /**
+     * Virtual start time of the most recently started task.
+     */
+    private static final AtomicLong VIRTUAL_TIME = new AtomicLong();
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final String name;
+    private final int weight;
+    private final int maxRunning;
+    private final SessionMetrics metrics;
+    private final ExecutorMetricsRegistry metricsRegistry;
+    private final ArrayDeque<QueuedTask> parked = new ArrayDeque<>();
+    private volatile SessionScope scope;
+    private long finishTag;
+    private int running;
+    private volatile boolean closed;
+
+    private ExecutorSession(String name, int weight, int maxRunning, ExecutorMetricsRegistry metricsRegistry) {
+        if (weight < 1 || maxRunning < 1) {
+            throw new IllegalArgumentException("Weight and maxRunning must be positive: " + weight + ", " + maxRunning);
+        }
+        this.name = name;
+        this.weight = weight;
+        this.maxRunning = maxRunning;
+        this.metricsRegistry = metricsRegistry;
+        this.metrics = new SessionMetrics(name, weight, maxRunning, this::runningCount, this::parkedCount);
+        if (metricsRegistry != null) {
+            metricsRegistry.register(metrics);
+        }
+    }
+
+    /**
+     * Opens a session with a weight of 1 and the running task limit from the {@value #MAX_RUNNING_PROPERTY}
+     * system property, which defaults to half the available processors (at least 2).
+     */
+    public static ExecutorSession open(String name) {
+        int defaultMaxRunning = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        return open(name, 1, Integer.getInteger(MAX_RUNNING_PROPERTY, defaultMaxRunning));
+    }
+
+    public static ExecutorSession open(String name, int weight, int maxRunning) {
+        ExecutorMetricsRegistry metricsRegistry = KometExecutorController.current()
+                .map(KometExecutorProvider::metricsRegistry).orElse(null);
+        ExecutorSession session = new ExecutorSession(name, weight, maxRunning, metricsRegistry);
+        LOG.info("Opened executor session {} with weight {} and at most {} running tasks", name, weight, maxRunning);
+        return session;
+    }
+
+    /**
+     * @return the session of the current thread, or null if there is none or it is closed.
+     */
+    public static ExecutorSession current() {
+        ExecutorSession session = CURRENT.get();
+        return session != null && !session.closed ? session : null;
+    }
+
+    /**
+     * Makes this the current session of the calling thread, so tasks it submits are charged to this session, and
+     * enters its {@link SessionScope}, if it has one.
+     */
+    public void enter() {
+        CURRENT.set(this);
+        SessionScope scope = this.scope;
+        if (scope != null) {
+            scope.enter();
+        }
+    }
+
+    /**
+     * Calls the action with this session and its {@link SessionScope} current on the calling thread, then restores
+     * the session and scope that were current before, so that calls can be nested.
+     */
+    public <T> T call(Supplier<T> action) {
+        ExecutorSession previous = CURRENT.get();
+        SessionScope previousScope = SessionScope.current();
+        enter();
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+            previousScope.enter();
+        }
+    }
+
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Clears the current session and session scope of the calling thread.
+     */
+    public static void leave() {
+        CURRENT.remove();
+        SessionScope.leave();
+    }
+
+    /**
+     * Sets the scope entered with this session, on the threads that handle its input and while its tasks run,
+     * so that they publish to the activity streams and event buses of the session.
+     */
+    public void setScope(SessionScope scope) {
+        this.scope = scope;
+    }
+
+    public SessionScope scope() {
+        return scope;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public SessionMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Closes the session and removes its metrics. Parked tasks are queued again without a limit, and tasks
+     * already queued still run.
+     */
+    @Override
+    public void close() {
+        List<QueuedTask> released;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            released = new ArrayList<>(parked);
+            parked.clear();
+        }
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        if (metricsRegistry != null) {
+            metricsRegistry.unregister(metrics);
+        }
+        released.forEach(QueuedTask::requeue);
+        LOG.info("Closed executor session {}", name);
+    }
+
+    static long virtualTime() {
+        return VIRTUAL_TIME.get();
+    }
+
+    static void advanceVirtualTime(long startTag) {
+        VIRTUAL_TIME.accumulateAndGet(startTag, Math::max);
+    }
+
+    /**
+     * Charges a newly queued task to this session.
+     *
+     * @return the virtual start time of the task
+     */
+    synchronized long taskQueued() {
+        long startTag = Math.max(VIRTUAL_TIME.get(), finishTag);
+        finishTag = startTag + TASK_COST_NANOS / weight;
+        metrics.taskSubmitted();
+        return startTag;
+    }
+
+    /**
+     * @return true if a task submitted now from the calling thread counts against the running task limit, false
+     * if it is submitted by a running task of this session
+     */
+    boolean limitsTaskSubmittedNow() {
+        return RUNNING_TASK.get() != this;
+    }
+
+    /**
+     * Starts the task if it is not limited or this session is below its running task limit, otherwise parks it.
+     *
+     * @return true if the task may run now, false if it was parked
+     */
+    synchronized boolean tryStart(QueuedTask task) {
+        if (!task.limited) {
+            // Charged to the session, but does not take a running slot
+        } else if (task.slotReserved) {
+            // The slot was handed over by the finished task that released this one
+            task.slotReserved = false;
+        } else if (!closed && running >= maxRunning) {
+            parked.add(task);
+            return false;
+        } else {
+            running++;
+        }
+        metrics.taskStarted();
+        enter();
+        RUNNING_TASK.set(this);
+        return true;
+    }
+
+    /**
+     * Records a finished task of this session. If a task of the session is parked, the running slot of the
+     * finished task is handed over to it, so that another task cannot take the slot before it is queued again.
+     *
+     * @return a parked task that should be queued again, or null if there is none
+     */
+    QueuedTask taskFinished(QueuedTask task, long cpuNanos) {
+        leave();
+        RUNNING_TASK.remove();
+        metrics.taskFinished(cpuNanos);
+        synchronized (this) {
+            long extraCost = cpuNanos - TASK_COST_NANOS;
+            if (extraCost > 0) {
+                finishTag += extraCost / weight;
+            }
+            return task.limited ? handOverSlot() : null;
+        }
+    }
+
+    /**
+     * Records a task of this session that expired before it started.
+     *
+     * @return a parked task that should be queued again, or null if there is none
+     */
+    QueuedTask taskDropped(QueuedTask task) {
+        metrics.taskDropped();
+        synchronized (this) {
+            if (!task.slotReserved) {
+                return null;
+            }
+            task.slotReserved = false;
+            return handOverSlot();
+        }
+    }
+
+    private QueuedTask handOverSlot() {
+        QueuedTask next = parked.poll();
+        if (next == null) {
+            running--;
+        } else {
+            next.slotReserved = true;
+        }
+        return next;
+    }
+
+    /**
+     * @return CPU time of the current thread, or -1 if it is not measurable, such as on a virtual thread.
+     */
+    static long currentThreadCpuTime() {
+        if (Thread.currentThread().isVirtual() || !THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()) {
+            return -1;
+        }
+        return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+    }
+
+    private synchronized int runningCount() {
+        return running;
+    }
+
+    private synchronized int parkedCount() {
+        return parked.size();
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutorSession{" + name + '}';
+    }
+}
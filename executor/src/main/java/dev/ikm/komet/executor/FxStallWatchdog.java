@@ -0,0 +1,290 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+import dev.ikm.komet.executor.metrics.LatencyHistogram;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reports stalls of the JavaFX application thread, which blocks every window of the application, and in JPro every
+ * browser session of the server.
+ * <p>
+ * A daemon thread posts a probe with {@link Platform#runLater(Runnable)} every {@value #PROBE_PROPERTY}
+ * milliseconds (default 100) and records how long each probe waited before it ran. While a probe has been waiting
+ * longer than {@value #THRESHOLD_PROPERTY} milliseconds (default 200), the stack of the JavaFX application thread is
+ * sampled every {@value #SAMPLE_PROPERTY} milliseconds (default 20). Once the probe runs, the samples are written as
+ * a stall report, with the distinct stacks ordered by how often they were seen, to a file in the
+ * {@value #DIRECTORY_PROPERTY} directory (default {@code ~/Solor/komet/fx-stalls}). Only the
+ * {@value #MAX_REPORTS_PROPERTY} most recent reports (default 50) are kept. A stall that is still going on after
+ * {@value #MAX_SAMPLES} samples is reported early, so a hung thread is reported too.
+ * <p>
+ * The time each scene spends in the CSS and layout phase of a pulse is recorded as well, through the layout pulse
+ * listeners of every showing window.
+ * <p>
+ * The watchdog only runs when the {@value #ENABLED_PROPERTY} system property is true. Otherwise
+ * {@link #startIfEnabled()} does nothing, and no thread, probe or listener is created.
+ */
+public class FxStallWatchdog {
+    private static final Logger LOG = LoggerFactory.getLogger(FxStallWatchdog.class);
+    public static final String ENABLED_PROPERTY = "komet.fx.watchdog";
+    public static final String THRESHOLD_PROPERTY = "komet.fx.watchdog.threshold.ms";
+    public static final String PROBE_PROPERTY = "komet.fx.watchdog.probe.ms";
+    public static final String SAMPLE_PROPERTY = "komet.fx.watchdog.sample.ms";
+    public static final String DIRECTORY_PROPERTY = "komet.fx.watchdog.dir";
+    public static final String MAX_REPORTS_PROPERTY = "komet.fx.watchdog.max.reports";
+    static final int MAX_SAMPLES = 250;
+    private static final int MAX_STACKS_REPORTED = 8;
+    private static final int MAX_FRAMES = 60;
+    private static final String REPORT_PREFIX = "fx-stall-";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private static FxStallWatchdog instance;
+
+    private final long thresholdNanos;
+    private final long probeNanos;
+    private final long sampleMillis;
+    private final Path directory;
+    private final int maxReports;
+    private final LatencyHistogram runLaterDelay = new LatencyHistogram();
+    private final LatencyHistogram layoutPulseTime = new LatencyHistogram();
+    private final Runnable probe = this::probe;
+    private final ListChangeListener<Window> windowListener = this::windowsChanged;
+    private final ChangeListener<Scene> sceneListener = (observable, oldScene, newScene) -> watch(newScene);
+    private volatile boolean running;
+    private volatile Thread fxThread;
+    /**
+     * When the outstanding probe was posted, or 0 if it has run.
+     */
+    private volatile long probePostedAt;
+    private volatile long lastProbeDelay;
+    private Thread watchdog;
+
+    FxStallWatchdog() {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong(THRESHOLD_PROPERTY, 200));
+        this.probeNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong(PROBE_PROPERTY, 100));
+        this.sampleMillis = Math.max(1, Long.getLong(SAMPLE_PROPERTY, 20));
+        String directoryName = System.getProperty(DIRECTORY_PROPERTY);
+        this.directory = directoryName != null ? Path.of(directoryName) :
+                Path.of(System.getProperty("user.home"), "Solor", "komet", "fx-stalls");
+        this.maxReports = Math.max(1, Integer.getInteger(MAX_REPORTS_PROPERTY, 50));
+    }
+
+    /**
+     * Starts the watchdog if the {@value #ENABLED_PROPERTY} system property is true. There is at most one watchdog,
+     * shared by all JPro sessions, so later calls do nothing. Must be called on the JavaFX application thread.
+     *
+     * @return the running watchdog, or null if it is disabled
+     */
+    public static synchronized FxStallWatchdog startIfEnabled() {
+        if (instance == null && Boolean.getBoolean(ENABLED_PROPERTY)) {
+            instance = new FxStallWatchdog();
+            instance.start();
+        }
+        return instance;
+    }
+
+    public static synchronized void stopIfRunning() {
+        if (instance != null) {
+            instance.stop();
+            instance = null;
+        }
+    }
+
+    synchronized void start() {
+        if (watchdog == null) {
+            running = true;
+            Window.getWindows().addListener(windowListener);
+            Window.getWindows().forEach(this::watch);
+            watchdog = Thread.ofPlatform().name("Tinkar-FX-Watchdog").daemon(true).start(this::sample);
+            LOG.info("Reporting JavaFX application thread stalls longer than {} ms to {}",
+                    TimeUnit.NANOSECONDS.toMillis(thresholdNanos), directory);
+        }
+    }
+
+    synchronized void stop() {
+        if (watchdog != null) {
+            running = false;
+            watchdog.interrupt();
+            watchdog = null;
+            Platform.runLater(() -> Window.getWindows().removeListener(windowListener));
+        }
+    }
+
+    /**
+     * @return how long probes posted with {@link Platform#runLater(Runnable)} waited before they ran
+     */
+    public LatencyHistogram runLaterDelay() {
+        return runLaterDelay;
+    }
+
+    /**
+     * @return how long scenes spent in the CSS and layout phase of a pulse
+     */
+    public LatencyHistogram layoutPulseTime() {
+        return layoutPulseTime;
+    }
+
+    private void windowsChanged(ListChangeListener.Change<? extends Window> change) {
+        while (change.next()) {
+            for (Window window : change.getAddedSubList()) {
+                watch(window);
+            }
+        }
+    }
+
+    private void watch(Window window) {
+        window.sceneProperty().addListener(sceneListener);
+        watch(window.getScene());
+    }
+
+    private void watch(Scene scene) {
+        if (scene != null && scene.getProperties().putIfAbsent(FxStallWatchdog.class, Boolean.TRUE) == null) {
+            long[] layoutStartedAt = new long[1];
+            scene.addPreLayoutPulseListener(() -> layoutStartedAt[0] = System.nanoTime());
+            scene.addPostLayoutPulseListener(() -> {
+                if (running && layoutStartedAt[0] != 0) {
+                    layoutPulseTime.record(System.nanoTime() - layoutStartedAt[0]);
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs on the JavaFX application thread.
+     */
+    private void probe() {
+        fxThread = Thread.currentThread();
+        long postedAt = probePostedAt;
+        long delay = System.nanoTime() - postedAt;
+        runLaterDelay.record(delay);
+        lastProbeDelay = delay;
+        probePostedAt = 0;
+    }
+
+    /**
+     * Runs on the watchdog thread: posts the probes, and samples the JavaFX application thread while a probe is late.
+     */
+    private void sample() {
+        List<StackTraceElement[]> samples = new ArrayList<>();
+        boolean reportedEarly = false;
+        long lastPostedAt = 0;
+        while (running) {
+            try {
+                Thread.sleep(sampleMillis);
+            } catch (InterruptedException e) {
+                break;
+            }
+            long now = System.nanoTime();
+            long postedAt = probePostedAt;
+            if (postedAt == 0) {
+                if (!samples.isEmpty()) {
+                    writeReport(samples, lastProbeDelay, reportedEarly, false);
+                    samples.clear();
+                    reportedEarly = false;
+                }
+                if (now - lastPostedAt >= probeNanos) {
+                    lastPostedAt = now;
+                    probePostedAt = now;
+                    Platform.runLater(probe);
+                }
+            } else if (now - postedAt > thresholdNanos && fxThread != null) {
+                if (samples.size() < MAX_SAMPLES) {
+                    samples.add(fxThread.getStackTrace());
+                } else if (!reportedEarly) {
+                    writeReport(samples, now - postedAt, false, true);
+                    reportedEarly = true;
+                }
+            }
+        }
+    }
+
+    private void writeReport(List<StackTraceElement[]> samples, long stallNanos, boolean reportedEarly, boolean ongoing) {
+        long stallMillis = TimeUnit.NANOSECONDS.toMillis(stallNanos);
+        StringBuilder sb = new StringBuilder();
+        sb.append("JavaFX application thread ").append(ongoing ? "has been stalled for " : "stalled for ")
+                .append(stallMillis).append(" ms at ").append(LocalDateTime.now()).append('\n');
+        if (reportedEarly) {
+            sb.append("This stall was reported before it ended; only its first ").append(MAX_SAMPLES)
+                    .append(" samples are included.\n");
+        }
+        LatencyHistogram.Snapshot delays = runLaterDelay.snapshot();
+        LatencyHistogram.Snapshot layouts = layoutPulseTime.snapshot();
+        sb.append("runLater delay: p99 ").append(TimeUnit.NANOSECONDS.toMillis(delays.p99Nanos()))
+                .append(" ms, max ").append(TimeUnit.NANOSECONDS.toMillis(delays.maxNanos())).append(" ms\n");
+        sb.append("layout pulse: p99 ").append(TimeUnit.NANOSECONDS.toMillis(layouts.p99Nanos()))
+                .append(" ms, max ").append(TimeUnit.NANOSECONDS.toMillis(layouts.maxNanos())).append(" ms\n");
+        sb.append(samples.size()).append(" samples, every ").append(sampleMillis).append(" ms\n");
+
+        Map<List<StackTraceElement>, Integer> stackCounts = new LinkedHashMap<>();
+        for (StackTraceElement[] sample : samples) {
+            stackCounts.merge(Arrays.asList(sample), 1, Integer::sum);
+        }
+        stackCounts.entrySet().stream()
+                .sorted(Map.Entry.<List<StackTraceElement>, Integer>comparingByValue().reversed())
+                .limit(MAX_STACKS_REPORTED)
+                .forEach(entry -> {
+                    sb.append('\n').append(entry.getValue()).append(" of ").append(samples.size()).append(" samples:\n");
+                    List<StackTraceElement> stack = entry.getKey();
+                    stack.stream().limit(MAX_FRAMES).forEach(frame -> sb.append("\tat ").append(frame).append('\n'));
+                    if (stack.size() > MAX_FRAMES) {
+                        sb.append("\t... ").append(stack.size() - MAX_FRAMES).append(" more\n");
+                    }
+                });
+
+        try {
+            Files.createDirectories(directory);
+            Path reportFile = directory.resolve(REPORT_PREFIX + LocalDateTime.now().format(FILE_TIME) + ".txt");
+            Files.writeString(reportFile, sb);
+            LOG.warn("JavaFX application thread {} {} ms; report written to {}",
+                    ongoing ? "has been stalled for" : "stalled for", stallMillis, reportFile);
+            removeOldReports();
+        } catch (IOException e) {
+            LOG.warn("Unable to write JavaFX stall report to " + directory, e);
+        }
+    }
+
+    private void removeOldReports() throws IOException {
+        List<Path> reports;
+        try (Stream<Path> files = Files.list(directory)) {
+            reports = files.filter(file -> file.getFileName().toString().startsWith(REPORT_PREFIX))
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .toList();
+        }
+        for (int i = maxReports; i < reports.size(); i++) {
+            Files.deleteIfExists(reports.get(i));
+        }
+    }
+}
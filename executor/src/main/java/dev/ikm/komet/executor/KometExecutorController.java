@@ -15,6 +15,7 @@
  */
 package dev.ikm.komet.executor;
 
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
@@ -36,6 +37,13 @@ private KometExecutorController() {
 		super();
 	}
 
+	/**
+	 * @return the running executor provider, if it has been created.
+	 */
+	public static Optional<KometExecutorProvider> current() {
+		return Optional.ofNullable(providerReference.get());
+	}
+
 	@Override
 	public KometExecutorProvider create() {
 		if (providerReference.get() == null) {
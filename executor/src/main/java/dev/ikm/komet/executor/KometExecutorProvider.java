@@ -15,6 +15,8 @@
  */
 package dev.ikm.komet.executor;
 
+import dev.ikm.komet.executor.metrics.ExecutorMetrics;
+import dev.ikm.komet.executor.metrics.ExecutorMetricsRegistry;
 import dev.ikm.tinkar.common.service.ExecutorService;
 import dev.ikm.tinkar.common.util.thread.NamedThreadFactory;
 import org.slf4j.Logger;
@@ -38,10 +40,25 @@
  * <p>
  * The {@link #threadPool()} that this provides is a standard thread pool with (up to) the same number of threads
  * as there are cores present on the computer - with a minimum of 6 threads.  This executor has an unbounded queue
- * depth, and FIFO behavior.
+ * depth, ordered by {@link dev.ikm.komet.framework.concurrent.TaskPriority}, and FIFO behavior within a priority.
  * <p>
  * The {@link #ioThreadPool()} that this provides is a standard thread pool with 6 threads.  This executor has an unbounded queue
  * depth, and FIFO behavior.  This executor is good for jobs that tend to block on disk IO, where you don't want many running in parallel.
+ * <p>
+ * When started in {@link ExecutorMode#VIRTUAL} mode, the {@link #blockingThreadPool()} and the {@link #ioThreadPool()}
+ * instead start a virtual thread per task; virtual threads are not pooled. The blocking pool then has no upper bound
+ * on the number of concurrently running tasks, so submission never blocks and tasks that wait on other futures do
+ * not starve it. The io pool still runs at most 6 tasks at once; the others wait on their virtual threads. Carrier
+ * thread pinning is reported by a {@link VirtualThreadPinningMonitor}.
+ * <p>
+ * The {@link #timer()} that this provides is a {@link TimingWheelScheduler} for debounce delays and timeouts. Unlike
+ * the {@link #scheduled()} executor it does not keep a {@link java.util.concurrent.DelayQueue}, so scheduling and
+ * cancelling many short timers stays cheap. It is also available as the
+ * {@link dev.ikm.komet.framework.concurrent.TimerService}.
+ * <p>
+ * Each pool reports queue depth, active count, rejections, and queue wait and run time histograms to an
+ * {@link ExecutorMetrics}, available through {@link #metricsRegistry()}, as JMX MXBeans, and as a periodic
+ * snapshot file (see {@link ExecutorMetricsRegistry}).
  *
  * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
  */
@@ -69,7 +86,30 @@ public class KometExecutorProvider implements ExecutorService {
      * The scheduled executor.
      */
     private KometScheduledExecutor scheduledExecutor;
+    /**
+     * The timer wheel for debounce delays and timeouts.
+     */
+    private TimingWheelScheduler timerWheel;
+    /**
+     * The kind of threads backing the blocking and io pools.
+     */
+    private final ExecutorMode mode;
+    /**
+     * Reports carrier pinning when running in {@link ExecutorMode#VIRTUAL} mode.
+     */
+    private VirtualThreadPinningMonitor pinningMonitor;
+    /**
+     * The metrics of all pools.
+     */
+    private final ExecutorMetricsRegistry metricsRegistry = new ExecutorMetricsRegistry();
 
+    public KometExecutorProvider() {
+        this(ExecutorMode.fromSystemProperties());
+    }
+
+    public KometExecutorProvider(ExecutorMode mode) {
+        this.mode = mode;
+    }
 
     /**
      * Start me.
@@ -91,43 +131,55 @@ protected void start() {
             final int keepAliveTime = 60;
             final TimeUnit timeUnit = TimeUnit.SECONDS;
 
-            // The blocking executor
-            this.blockingThreadPoolExecutor = new KometThreadPoolExecutor(corePoolSize,
-                    maximumPoolSize,
-                    keepAliveTime,
-                    timeUnit,
-                    new SynchronousQueue<>(),
-                    new NamedThreadFactory("Tinkar-B-work-thread", true));
-            
-            this.blockingThreadPoolExecutor.setRejectedExecutionHandler((runnable, executor) -> {
-                try {
-                    executor.getQueue()
-                            .offer(runnable, Long.MAX_VALUE, TimeUnit.HOURS);
-                } catch (final Exception e) {
-                    throw new RejectedExecutionException("Interrupted while waiting to enqueue");
-                }
-            });
+            if (mode == ExecutorMode.VIRTUAL) {
+                LOG.info("Blocking and IO thread pools will use virtual threads");
+                this.blockingThreadPoolExecutor = newVirtualThreadPoolExecutor("Tinkar-B-virtual-thread-");
+                this.pinningMonitor = new VirtualThreadPinningMonitor();
+                this.pinningMonitor.start();
+            } else {
+                // The blocking executor
+                this.blockingThreadPoolExecutor = new KometThreadPoolExecutor(corePoolSize,
+                        maximumPoolSize,
+                        keepAliveTime,
+                        timeUnit,
+                        new SynchronousQueue<>(),
+                        new NamedThreadFactory("Tinkar-B-work-thread", true));
+
+                this.blockingThreadPoolExecutor.setRejectedExecutionHandler((runnable, executor) -> {
+                    try {
+                        executor.getQueue()
+                                .offer(runnable, Long.MAX_VALUE, TimeUnit.HOURS);
+                    } catch (final Exception e) {
+                        throw new RejectedExecutionException("Interrupted while waiting to enqueue");
+                    }
+                });
+            }
 
             // The non-blocking executor - set core threads equal to max - otherwise, it will never increase the thread count
             // with an unbounded queue.
+            // Queued tasks are ordered by TaskPriority, so interactive work runs ahead of queued bulk work.
             this.threadPoolExecutor = new KometThreadPoolExecutor(maximumPoolSize,
                     maximumPoolSize,
                     keepAliveTime,
                     timeUnit,
-                    new LinkedBlockingQueue<>(),
+                    KometThreadPoolExecutor.priorityQueue(),
                     new NamedThreadFactory("Tinkar-Q-work-thread", true));
             this.threadPoolExecutor.allowCoreThreadTimeOut(true);
 
-
-            // The IO non-blocking executor - set core threads equal to max - otherwise, it will never increase the thread count
-            // with an unbounded queue.
-            this.ioThreadPoolExecutor = new KometThreadPoolExecutor(6,
-                    6,
-                    keepAliveTime,
-                    timeUnit,
-                    new LinkedBlockingQueue<>(),
-                    new NamedThreadFactory("Tinkar-IO-work-thread", true));
-            this.ioThreadPoolExecutor.allowCoreThreadTimeOut(true);
+            if (mode == ExecutorMode.VIRTUAL) {
+                this.ioThreadPoolExecutor = newVirtualThreadPoolExecutor("Tinkar-IO-virtual-thread-");
+                this.ioThreadPoolExecutor.limitRunningTasks(6);
+            } else {
+                // The IO non-blocking executor - set core threads equal to max - otherwise, it will never increase the thread count
+                // with an unbounded queue.
+                this.ioThreadPoolExecutor = new KometThreadPoolExecutor(6,
+                        6,
+                        keepAliveTime,
+                        timeUnit,
+                        new LinkedBlockingQueue<>(),
+                        new NamedThreadFactory("Tinkar-IO-work-thread", true));
+                this.ioThreadPoolExecutor.allowCoreThreadTimeOut(true);
+            }
 
             // Execute this once, early on, in a background thread - as randomUUID uses secure random - and the initial
             // init of secure random can block on many systems that don't have enough entropy occuring.  The DB load process
@@ -136,15 +188,63 @@ protected void start() {
 
             this.scheduledExecutor = new KometScheduledExecutor(1,
                     new NamedThreadFactory("Tinkar-Scheduled-Thread", true));
+
+            this.timerWheel = new TimingWheelScheduler(this.threadPoolExecutor);
+            this.timerWheel.start();
+
+            registerMetrics();
             LOG.info("WorkExecutors thread pools ready");
         }
     }
 
+    private void registerMetrics() {
+        KometForkJoinPool forkJoinPool = this.forkJoinExecutor;
+        ExecutorMetrics forkJoinMetrics = new ExecutorMetrics("FJ", forkJoinPool::queueDepth, forkJoinPool::getActiveThreadCount);
+        forkJoinPool.setMetrics(forkJoinMetrics);
+        metricsRegistry.register(forkJoinMetrics);
+
+        registerMetrics("B", this.blockingThreadPoolExecutor);
+        registerMetrics("Q", this.threadPoolExecutor);
+        registerMetrics("IO", this.ioThreadPoolExecutor);
+
+        KometScheduledExecutor scheduled = this.scheduledExecutor;
+        ExecutorMetrics scheduledMetrics = new ExecutorMetrics("Scheduled", () -> scheduled.getQueue().size(), scheduled::getActiveCount);
+        scheduled.setMetrics(scheduledMetrics);
+        metricsRegistry.register(scheduledMetrics);
+
+        TimingWheelScheduler timer = this.timerWheel;
+        ExecutorMetrics timerMetrics = new ExecutorMetrics("Timer", timer::pendingCount, timer::runningCount);
+        timer.setMetrics(timerMetrics);
+        metricsRegistry.register(timerMetrics);
+
+        metricsRegistry.startSnapshots(scheduled);
+    }
+
+    private void registerMetrics(String name, KometThreadPoolExecutor executor) {
+        ExecutorMetrics metrics = new ExecutorMetrics(name, () -> executor.getQueue().size(), executor::getActiveCount);
+        executor.setMetrics(metrics);
+        metricsRegistry.register(metrics);
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task. The thread ends with its task, since
+     * there is no keep alive, but the task still runs through the {@link KometThreadPoolExecutor} tracking hooks.
+     */
+    private static KometThreadPoolExecutor newVirtualThreadPoolExecutor(String namePrefix) {
+        return new KometThreadPoolExecutor(0,
+                Integer.MAX_VALUE,
+                0,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                Thread.ofVirtual().name(namePrefix, 0).factory());
+    }
+
     /**
      * Stop me.
      */
     protected void stop() {
         LOG.info("Stopping WorkExecutors thread pools. ");
+        this.metricsRegistry.stop();
 
         if (this.forkJoinExecutor != null) {
             this.forkJoinExecutor.shutdownNow();
@@ -170,11 +270,39 @@ protected void stop() {
             this.scheduledExecutor.shutdownNow();
             this.scheduledExecutor = null;
         }
+
+        if (this.timerWheel != null) {
+            this.timerWheel.stop();
+            this.timerWheel = null;
+        }
+
+        if (this.pinningMonitor != null) {
+            this.pinningMonitor.stop();
+            this.pinningMonitor = null;
+        }
         LOG.info("Stopped WorkExecutors thread pools");
     }
 
     //~--- get methods ---------------------------------------------------------
 
+    /**
+     * Gets the mode the blocking and io pools were started with.
+     *
+     * @return the {@link ExecutorMode} of this provider
+     */
+    public ExecutorMode mode() {
+        return this.mode;
+    }
+
+    /**
+     * Gets the metrics of the pools.
+     *
+     * @return the {@link ExecutorMetricsRegistry} holding the metrics of every pool of this provider
+     */
+    public ExecutorMetricsRegistry metricsRegistry() {
+        return this.metricsRegistry;
+    }
+
     /**
      * Gets the fork join pool executor.
      *
@@ -234,5 +362,16 @@ public ScheduledExecutorService scheduled() {
         return this.scheduledExecutor;
     }
 
+    /**
+     * Gets the timer wheel.
+     *
+     * @return the {@link TimingWheelScheduler} for short timers that are usually cancelled before they fire, such as
+     * debounce delays and timeouts. Scheduling and cancelling take constant time, and fired actions run on the
+     * {@link #threadPool()} unless another executor is given.
+     */
+    public TimingWheelScheduler timer() {
+        return this.timerWheel;
+    }
+
 }
 
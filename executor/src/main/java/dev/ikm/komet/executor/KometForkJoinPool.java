@@ -15,12 +15,25 @@
  */
 package dev.ikm.komet.executor;
 
+import dev.ikm.komet.executor.metrics.ExecutorMetrics;
+
+import java.util.concurrent.Callable;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
+/**
+ * {@link ForkJoinPool} that reports queue wait and run times of externally submitted {@link Runnable} and
+ * {@link Callable} tasks to its {@link ExecutorMetrics}. A ForkJoinPool cannot reorder its queues, so
+ * {@link dev.ikm.komet.framework.concurrent.TaskPriority} is only reported here, not enforced. Tasks forked from within the pool are not measured
+ * individually, but are included in the queue depth and active count.
+ */
 public class KometForkJoinPool extends ForkJoinPool {
 
+    private volatile ExecutorMetrics metrics;
+
     public KometForkJoinPool() {
     }
 
@@ -36,4 +49,105 @@ public KometForkJoinPool(int parallelism, ForkJoinWorkerThreadFactory factory, T
         super(parallelism, factory, handler, asyncMode, corePoolSize, maximumPoolSize, minimumRunnable, saturate, keepAliveTime, unit);
     }
 
+    public void setMetrics(ExecutorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public ExecutorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the number of tasks queued in this pool, both external submissions and forked tasks.
+     */
+    public int queueDepth() {
+        return (int) Math.min(Integer.MAX_VALUE, getQueuedSubmissionCount() + getQueuedTaskCount());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        try {
+            super.execute(meter(task));
+        } catch (RejectedExecutionException e) {
+            countRejection();
+            throw e;
+        }
+    }
+
+    @Override
+    public ForkJoinTask<?> submit(Runnable task) {
+        try {
+            return super.submit(meter(task));
+        } catch (RejectedExecutionException e) {
+            countRejection();
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> ForkJoinTask<T> submit(Runnable task, T result) {
+        try {
+            return super.submit(meter(task), result);
+        } catch (RejectedExecutionException e) {
+            countRejection();
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> ForkJoinTask<T> submit(Callable<T> task) {
+        try {
+            return super.submit(meter(task));
+        } catch (RejectedExecutionException e) {
+            countRejection();
+            throw e;
+        }
+    }
+
+    private Runnable meter(Runnable task) {
+        ExecutorMetrics metrics = this.metrics;
+        if (metrics == null || task == null) {
+            return task;
+        }
+        QueuedTask queuedTask = new QueuedTask(task, metrics);
+        return () -> {
+            queuedTask.started();
+            Throwable thrown = null;
+            try {
+                task.run();
+            } catch (Throwable t) {
+                thrown = t;
+                throw t;
+            } finally {
+                queuedTask.finished(thrown);
+            }
+        };
+    }
+
+    private <T> Callable<T> meter(Callable<T> task) {
+        ExecutorMetrics metrics = this.metrics;
+        if (metrics == null || task == null) {
+            return task;
+        }
+        QueuedTask queuedTask = new QueuedTask(task, metrics);
+        return () -> {
+            queuedTask.started();
+            Throwable thrown = null;
+            try {
+                return task.call();
+            } catch (Throwable t) {
+                thrown = t;
+                throw t;
+            } finally {
+                queuedTask.finished(thrown);
+            }
+        };
+    }
+
+    private void countRejection() {
+        ExecutorMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.taskRejected();
+        }
+    }
 }
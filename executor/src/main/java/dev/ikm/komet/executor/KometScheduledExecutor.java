@@ -15,6 +15,8 @@
  */
 package dev.ikm.komet.executor;
 
+import dev.ikm.komet.executor.metrics.ExecutorMetrics;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.tinkar.common.alert.AlertObject;
 import dev.ikm.tinkar.common.alert.AlertStreams;
 import dev.ikm.tinkar.common.service.TrackingCallable;
@@ -25,25 +27,49 @@
 
 public class KometScheduledExecutor extends ScheduledThreadPoolExecutor {
     private static final Logger LOG = LoggerFactory.getLogger(KometScheduledExecutor.class);
+    private static final ThreadLocal<long[]> START_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+    private volatile ExecutorMetrics metrics;
 
     public KometScheduledExecutor(int corePoolSize) {
         super(corePoolSize);
+        setRejectedExecutionHandler(getRejectedExecutionHandler());
     }
 
     public KometScheduledExecutor(int corePoolSize, ThreadFactory threadFactory) {
         super(corePoolSize, threadFactory);
+        setRejectedExecutionHandler(getRejectedExecutionHandler());
     }
 
     public KometScheduledExecutor(int corePoolSize, RejectedExecutionHandler handler) {
         super(corePoolSize, handler);
+        setRejectedExecutionHandler(getRejectedExecutionHandler());
     }
 
     public KometScheduledExecutor(int corePoolSize, ThreadFactory threadFactory, RejectedExecutionHandler handler) {
         super(corePoolSize, threadFactory, handler);
+        setRejectedExecutionHandler(getRejectedExecutionHandler());
+    }
+
+    public void setMetrics(ExecutorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public ExecutorMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
+        if (handler instanceof CountingRejectedExecutionHandler) {
+            super.setRejectedExecutionHandler(handler);
+        } else {
+            super.setRejectedExecutionHandler(new CountingRejectedExecutionHandler(handler));
+        }
     }
 
     @Override
     protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable, RunnableScheduledFuture<V> task) {
+        countSubmission();
         if (runnable instanceof TrackingCallable) {
 
         }
@@ -52,17 +78,63 @@ protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable, Runnabl
 
     @Override
     protected <V> RunnableScheduledFuture<V> decorateTask(Callable<V> callable, RunnableScheduledFuture<V> task) {
+        countSubmission();
         if (callable instanceof TrackingCallable) {
 
         }
         return super.decorateTask(callable, task);
     }
 
+    private void countSubmission() {
+        ExecutorMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.taskSubmitted(TaskPriority.NORMAL);
+        }
+    }
+
+    /**
+     * For scheduled tasks the wait time is the lateness: how long after its scheduled time the task started.
+     */
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+        ExecutorMetrics metrics = this.metrics;
+        if (metrics != null) {
+            START_NANOS.get()[0] = System.nanoTime();
+            if (r instanceof RunnableScheduledFuture<?> scheduledFuture) {
+                metrics.taskStarted(-scheduledFuture.getDelay(TimeUnit.NANOSECONDS), TaskPriority.NORMAL);
+            }
+        }
+    }
+
     @Override
     protected void afterExecute(Runnable r, Throwable t) {
         super.afterExecute(r, t);
+        ExecutorMetrics metrics = this.metrics;
+        if (metrics != null) {
+            boolean failed = t != null ||
+                    (r instanceof Future<?> future && future.isDone() && future.state() == Future.State.FAILED);
+            metrics.taskFinished(System.nanoTime() - START_NANOS.get()[0], failed);
+        }
         if (t != null) {
             AlertStreams.getRoot().dispatch(AlertObject.makeError(t));
         }
     }
+
+    private class CountingRejectedExecutionHandler implements RejectedExecutionHandler {
+        private final RejectedExecutionHandler handler;
+
+        private CountingRejectedExecutionHandler(RejectedExecutionHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            ExecutorMetrics metrics = KometScheduledExecutor.this.metrics;
+            if (metrics != null) {
+                metrics.taskRejected();
+            }
+            handler.rejectedExecution(r, executor);
+        }
+    }
 }
@@ -15,7 +15,11 @@
  */
 package dev.ikm.komet.executor;
 
-import javafx.application.Platform;
+import dev.ikm.komet.executor.metrics.ExecutorMetrics;
+import dev.ikm.komet.framework.concurrent.ExpiringTask;
+import dev.ikm.komet.framework.concurrent.Expiry;
+import dev.ikm.komet.framework.concurrent.PrioritizedTask;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.komet.framework.concurrent.TaskWrapper;
 import dev.ikm.tinkar.common.alert.AlertObject;
 import dev.ikm.tinkar.common.alert.AlertStreams;
@@ -24,25 +28,129 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.concurrent.*;
 
+/**
+ * Thread pool that feeds Komet task lists and metrics. Every submitted task is queued wrapped with its
+ * {@link TaskPriority} and submission order, so a pool constructed with a {@link PriorityBlockingQueue}
+ * using {@link #priorityQueue()} runs interactive work ahead of queued bulk work. Tasks are charged to the
+ * current {@link ExecutorSession}, if any, which shares the pool fairly between sessions. Tasks that declare an
+ * {@link Expiry} are cancelled, rather than run, if it has expired by the time a worker picks them up.
+ * <p>
+ * The elements of {@link #getQueue()} are therefore {@link QueuedTask} wrappers. The other methods that hand out or
+ * take tasks, {@link #shutdownNow()}, {@link #remove(Runnable)}, {@link #purge()} and the before and after execute
+ * hooks, deal in the tasks as they were submitted.
+ */
 public class KometThreadPoolExecutor extends PausableThreadPoolExecutor {
     private static final Logger LOG = LoggerFactory.getLogger(KometThreadPoolExecutor.class);
+    private volatile ExecutorMetrics metrics;
+    /**
+     * Set while a parked task is queued again, so that a pool without room rejects it at once rather than
+     * blocking the calling worker in a rejection handler that waits for room.
+     */
+    private final ThreadLocal<Boolean> requeueing = new ThreadLocal<>();
+    /**
+     * Bounds the number of tasks running at once, for a pool without an upper bound on its threads; null if the
+     * pool size is the bound.
+     */
+    private volatile Semaphore runningLimit;
+    /**
+     * Set while the worker holds a permit of the {@link #runningLimit}.
+     */
+    private final ThreadLocal<Semaphore> heldRunningPermit = new ThreadLocal<>();
 
     public KometThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue);
+        setRejectedExecutionHandler(getRejectedExecutionHandler());
     }
 
     public KometThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, RejectedExecutionHandler handler) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, handler);
+        setRejectedExecutionHandler(getRejectedExecutionHandler());
     }
 
     public KometThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory);
+        setRejectedExecutionHandler(getRejectedExecutionHandler());
     }
 
     public KometThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory, RejectedExecutionHandler handler) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
+        setRejectedExecutionHandler(getRejectedExecutionHandler());
+    }
+
+    /**
+     * @return an unbounded work queue that orders tasks by {@link TaskPriority}, then by submission order.
+     */
+    public static BlockingQueue<Runnable> priorityQueue() {
+        return new PriorityBlockingQueue<>(64, QueuedTask.PRIORITY_ORDER);
+    }
+
+    /**
+     * Sets the metrics that this executor reports queue wait, run time and rejections to. Tasks submitted
+     * before the metrics are set are not measured.
+     */
+    public void setMetrics(ExecutorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public ExecutorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Limits the number of tasks that run at once, independently of the number of threads. A worker waits for a
+     * free slot before it runs its task. Meant for a pool that starts a virtual thread per task.
+     */
+    public void limitRunningTasks(int maximumRunningTasks) {
+        this.runningLimit = new Semaphore(maximumRunningTasks, true);
+    }
+
+    @Override
+    public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
+        if (handler instanceof CountingRejectedExecutionHandler) {
+            super.setRejectedExecutionHandler(handler);
+        } else {
+            super.setRejectedExecutionHandler(new CountingRejectedExecutionHandler(handler));
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        if (command instanceof TaskWrapper<?> taskWrapper) {
+            TaskListsProvider.pump.pending(taskWrapper);
+        }
+        super.execute(new QueuedTask(command, this.metrics, this));
+    }
+
+    /**
+     * Queues a task that was parked by its {@link ExecutorSession} again, keeping its place in the order.
+     */
+    void requeue(QueuedTask queuedTask) {
+        requeueing.set(Boolean.TRUE);
+        try {
+            super.execute(queuedTask);
+        } catch (PoolFullException e) {
+            // Typically a worker of a pool with a SynchronousQueue that is busy. Wait for room on a virtual
+            // thread, so this worker can return to the pool and take the task.
+            Thread.ofVirtual().name("Komet-requeue").start(() -> requeueWhenRoom(queuedTask));
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Dropped parked task after shutdown: {}", queuedTask);
+        } finally {
+            requeueing.remove();
+        }
+    }
+
+    private void requeueWhenRoom(QueuedTask queuedTask) {
+        try {
+            super.execute(queuedTask);
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Dropped parked task after shutdown: {}", queuedTask);
+        }
     }
 
     @Override
@@ -50,22 +158,85 @@ protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
         if (runnable instanceof TrackingCallable trackingCallable) {
             return TaskWrapper.make(trackingCallable);
         }
+        if (runnable instanceof PrioritizedTask || runnable instanceof ExpiringTask) {
+            return new DeclaredFutureTask<>(runnable, value, TaskPriority.declaredBy(runnable), Expiry.declaredBy(runnable));
+        }
         return super.newTaskFor(runnable, value);
     }
 
     @Override
     protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
         if (callable instanceof TrackingCallable trackingCallable) {
-            TaskWrapper<T> taskWrapper = TaskWrapper.make(trackingCallable);
-            Platform.runLater(() -> TaskListsProvider.pendingTasks.add(taskWrapper));
-            return taskWrapper;
+            return TaskWrapper.make(trackingCallable);
+        }
+        if (callable instanceof PrioritizedTask || callable instanceof ExpiringTask) {
+            return new DeclaredFutureTask<>(callable, TaskPriority.declaredBy(callable), Expiry.declaredBy(callable));
         }
         return super.newTaskFor(callable);
     }
 
+    /**
+     * @return the task as it was submitted, if it is queued wrapped
+     */
+    private static Runnable unwrap(Runnable queued) {
+        return queued instanceof QueuedTask queuedTask && queuedTask.task() instanceof Runnable task ? task : queued;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> notRun = super.shutdownNow();
+        notRun.replaceAll(KometThreadPoolExecutor::unwrap);
+        return notRun;
+    }
+
+    @Override
+    public boolean remove(Runnable task) {
+        for (Runnable queued : getQueue()) {
+            if (queued instanceof QueuedTask queuedTask && queuedTask.task() == task && super.remove(queuedTask)) {
+                queuedTask.removed();
+                return true;
+            }
+        }
+        return super.remove(task);
+    }
+
+    /**
+     * Removes the queued tasks that are futures cancelled before they started.
+     */
+    @Override
+    public void purge() {
+        for (Runnable queued : getQueue()) {
+            if (queued instanceof QueuedTask queuedTask && queuedTask.task() instanceof Future<?> future
+                    && future.isCancelled() && super.remove(queuedTask)) {
+                queuedTask.removed();
+            }
+        }
+        super.purge();
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, unwrap(r));
+        Semaphore limit = this.runningLimit;
+        if (limit != null) {
+            try {
+                limit.acquire();
+                heldRunningPermit.set(limit);
+            } catch (InterruptedException e) {
+                // Interrupted by shutdownNow: run the task without a slot, with the interrupt still set.
+                t.interrupt();
+            }
+        }
+    }
+
     @Override
     protected void afterExecute(Runnable r, Throwable t) {
-        super.afterExecute(r, t);
+        Semaphore heldLimit = heldRunningPermit.get();
+        if (heldLimit != null) {
+            heldRunningPermit.remove();
+            heldLimit.release();
+        }
+        super.afterExecute(unwrap(r), t);
         if (t != null) {
             try {
                 AlertStreams.getRoot().dispatch(AlertObject.makeError(t));
@@ -74,4 +245,64 @@ protected void afterExecute(Runnable r, Throwable t) {
             }
         }
     }
+
+    /**
+     * Future for a submitted task that declares a priority or an expiry, keeping them visible to the queue.
+     * The priority is null when the task declares none, so that the task inherits one.
+     */
+    private static class DeclaredFutureTask<T> extends FutureTask<T> implements PrioritizedTask, ExpiringTask {
+        private final TaskPriority taskPriority;
+        private final Expiry expiry;
+
+        private DeclaredFutureTask(Callable<T> callable, TaskPriority taskPriority, Expiry expiry) {
+            super(callable);
+            this.taskPriority = taskPriority;
+            this.expiry = expiry;
+        }
+
+        private DeclaredFutureTask(Runnable runnable, T result, TaskPriority taskPriority, Expiry expiry) {
+            super(runnable, result);
+            this.taskPriority = taskPriority;
+            this.expiry = expiry;
+        }
+
+        @Override
+        public TaskPriority taskPriority() {
+            return taskPriority;
+        }
+
+        @Override
+        public Expiry expiry() {
+            return expiry;
+        }
+    }
+
+    /**
+     * Rejects a parked task that is queued again while the pool has no room, without blocking.
+     */
+    private static class PoolFullException extends RejectedExecutionException {
+        private PoolFullException() {
+            super("No room to queue a parked task without blocking");
+        }
+    }
+
+    private class CountingRejectedExecutionHandler implements RejectedExecutionHandler {
+        private final RejectedExecutionHandler handler;
+
+        private CountingRejectedExecutionHandler(RejectedExecutionHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (requeueing.get() != null && !executor.isShutdown()) {
+                throw new PoolFullException();
+            }
+            ExecutorMetrics metrics = KometThreadPoolExecutor.this.metrics;
+            if (metrics != null) {
+                metrics.taskRejected();
+            }
+            handler.rejectedExecution(r, executor);
+        }
+    }
 }
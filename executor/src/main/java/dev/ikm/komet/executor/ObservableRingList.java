@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.Collection;
+
+/**
+ * Observable list of fixed capacity, newest element first, backed by a ring buffer. Adding an element
+ * to a full list evicts the oldest in constant time, rather than shifting and trimming the list.
+ * <p>
+ * Elements can only be added at index 0. Like other JavaFX observable lists, it must only be used on the
+ * JavaFX application thread.
+ */
+public class ObservableRingList<E> extends ObservableListBase<E> {
+    private final Object[] elements;
+    /**
+     * Index in {@link #elements} where the next element will be written.
+     */
+    private int head;
+    private int size;
+
+    public ObservableRingList(int capacity) {
+        this.elements = new Object[capacity];
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+
+    private int slot(int index) {
+        return Math.floorMod(head - 1 - index, elements.length);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return (E) elements[slot(index)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the element at index 0, evicting the oldest element if the list is full.
+     */
+    public void push(E element) {
+        beginChange();
+        try {
+            if (size == elements.length) {
+                int oldest = size - 1;
+                nextRemove(oldest, get(oldest));
+                size--;
+            }
+            elements[head] = element;
+            head = (head + 1) % elements.length;
+            size++;
+            nextAdd(0, 1);
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Adds the elements in order, as a single change. The last element of the collection ends up at index 0.
+     */
+    public void pushAll(Collection<? extends E> newElements) {
+        if (newElements.isEmpty()) {
+            return;
+        }
+        beginChange();
+        try {
+            for (E element : newElements) {
+                push(element);
+            }
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    public void add(int index, E element) {
+        if (index != 0) {
+            throw new UnsupportedOperationException("Elements can only be added at index 0");
+        }
+        push(element);
+    }
+
+    @Override
+    public E remove(int index) {
+        E removed = get(index);
+        beginChange();
+        try {
+            // Shift the newer elements one slot towards the oldest, then release the head slot.
+            for (int i = index; i > 0; i--) {
+                elements[slot(i)] = elements[slot(i - 1)];
+            }
+            head = Math.floorMod(head - 1, elements.length);
+            elements[head] = null;
+            size--;
+            nextRemove(index, removed);
+        } finally {
+            endChange();
+        }
+        return removed;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        for (int i = toIndex - 1; i >= fromIndex; i--) {
+            remove(i);
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        beginChange();
+        try {
+            for (int i = size - 1; i >= 0; i--) {
+                remove(i);
+            }
+        } finally {
+            endChange();
+        }
+    }
+}
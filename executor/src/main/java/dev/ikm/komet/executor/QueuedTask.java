@@ -0,0 +1,219 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+import dev.ikm.komet.executor.metrics.ExecutorMetrics;
+import dev.ikm.komet.framework.concurrent.Expiry;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
+
+import java.util.Comparator;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps a task queued on a Komet executor. Remembers the {@link TaskPriority} and submission order of the
+ * task, so priority queues can order it, and when it was queued and started, so the executor can report
+ * wait and run times to its {@link ExecutorMetrics}.
+ * <p>
+ * Tasks queued on a {@link KometThreadPoolExecutor} are also charged to the {@link ExecutorSession} current
+ * at submission, if any, which may park the task when it is picked up if the session is at its limit. A task
+ * whose {@link Expiry} has expired by the time it is picked up is cancelled instead of run.
+ * <p>
+ * A {@link KometForkJoinPool} runs the task itself and only uses this class for its timing, so the task may
+ * also be a {@link java.util.concurrent.Callable} there.
+ */
+class QueuedTask implements Runnable {
+    /**
+     * Orders queued tasks by priority class, then by fair share virtual start time, then by submission order.
+     */
+    static final Comparator<Runnable> PRIORITY_ORDER = (r1, r2) -> {
+        QueuedTask t1 = (QueuedTask) r1;
+        QueuedTask t2 = (QueuedTask) r2;
+        int compare = t1.priority.compareTo(t2.priority);
+        if (compare != 0) {
+            return compare;
+        }
+        compare = Long.compare(t1.startTag, t2.startTag);
+        if (compare != 0) {
+            return compare;
+        }
+        return Long.compare(t1.sequence, t2.sequence);
+    };
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    /**
+     * Priority of the task running on the current thread, inherited by tasks it submits without declaring one.
+     */
+    private static final ThreadLocal<TaskPriority> RUNNING_PRIORITY = new ThreadLocal<>();
+
+    private final Object task;
+    private final ExecutorMetrics metrics;
+    private final TaskPriority priority;
+    private final KometThreadPoolExecutor pool;
+    private final ExecutorSession session;
+    private final long startTag;
+    private final long sequence;
+    private final long enqueueNanos;
+    private long startNanos;
+    private long startCpuNanos;
+    /**
+     * Set while this task holds a running slot of its session handed over on release, guarded by the session.
+     */
+    boolean slotReserved;
+    /**
+     * False if the task was submitted by a running task of its session, so it does not count against the
+     * running task limit of the session.
+     */
+    final boolean limited;
+
+    QueuedTask(Object task, ExecutorMetrics metrics) {
+        this(task, priorityOf(task), metrics, null);
+    }
+
+    QueuedTask(Runnable task, ExecutorMetrics metrics, KometThreadPoolExecutor pool) {
+        this(task, priorityOf(task), metrics, pool);
+    }
+
+    private QueuedTask(Object task, TaskPriority priority, ExecutorMetrics metrics, KometThreadPoolExecutor pool) {
+        this.task = task;
+        this.metrics = metrics;
+        this.priority = priority;
+        this.pool = pool;
+        this.session = pool != null ? ExecutorSession.current() : null;
+        this.startTag = session != null ? session.taskQueued() : ExecutorSession.virtualTime();
+        this.limited = session != null && session.limitsTaskSubmittedNow();
+        this.sequence = SEQUENCE.getAndIncrement();
+        this.enqueueNanos = System.nanoTime();
+        if (metrics != null) {
+            metrics.taskSubmitted(priority);
+        }
+    }
+
+    static TaskPriority priorityOf(Object task) {
+        TaskPriority declared = TaskPriority.declaredBy(task);
+        if (declared != null) {
+            return declared;
+        }
+        TaskPriority inherited = RUNNING_PRIORITY.get();
+        return inherited != null ? inherited : TaskPriority.NORMAL;
+    }
+
+    TaskPriority priority() {
+        return priority;
+    }
+
+    /**
+     * @return the task as it was submitted
+     */
+    Object task() {
+        return task;
+    }
+
+    void started() {
+        RUNNING_PRIORITY.set(priority);
+        ExecutorSession.advanceVirtualTime(startTag);
+        this.startNanos = System.nanoTime();
+        if (metrics != null) {
+            metrics.taskStarted(startNanos - enqueueNanos, priority);
+        }
+    }
+
+    void finished(Throwable thrown) {
+        RUNNING_PRIORITY.remove();
+        if (metrics != null) {
+            boolean failed = thrown != null ||
+                    (task instanceof Future<?> future && future.isDone() && future.state() == Future.State.FAILED);
+            metrics.taskFinished(System.nanoTime() - startNanos, failed);
+        }
+    }
+
+    /**
+     * Cancels a task that expired while it was queued, without running it.
+     */
+    void dropped() {
+        if (task instanceof Future<?> future) {
+            future.cancel(false);
+        }
+        if (metrics != null) {
+            metrics.taskDropped();
+        }
+        if (session != null) {
+            QueuedTask next = session.taskDropped(this);
+            if (next != null) {
+                next.requeue();
+            }
+        }
+    }
+
+    /**
+     * Releases what this task holds of its session after it was removed from the queue of its pool unrun.
+     */
+    void removed() {
+        if (session != null) {
+            QueuedTask next = session.taskDropped(this);
+            if (next != null) {
+                next.requeue();
+            }
+        }
+    }
+
+    /**
+     * Queues this task again on its pool after it was parked by its session.
+     */
+    void requeue() {
+        pool.requeue(this);
+    }
+
+    /**
+     * Runs the task on a {@link KometThreadPoolExecutor} worker, unless it has expired or its session parks it.
+     */
+    @Override
+    public void run() {
+        if (Expiry.isExpired(task)) {
+            dropped();
+            return;
+        }
+        if (session != null) {
+            if (!session.tryStart(this)) {
+                return;
+            }
+            startCpuNanos = ExecutorSession.currentThreadCpuTime();
+        }
+        started();
+        Throwable thrown = null;
+        try {
+            ((Runnable) task).run();
+        } catch (Throwable t) {
+            thrown = t;
+            throw t;
+        } finally {
+            finished(thrown);
+            if (session != null) {
+                long cpuNanos = startCpuNanos >= 0 ? ExecutorSession.currentThreadCpuTime() - startCpuNanos :
+                        System.nanoTime() - startNanos;
+                QueuedTask next = session.taskFinished(this, cpuNanos);
+                if (next != null) {
+                    next.requeue();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return task.toString();
+    }
+}
@@ -20,11 +20,18 @@
 import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
 
+import java.util.function.Supplier;
+
+/**
+ * Task lists shared by all windows. State changes are applied through a {@link TaskListsPump}, at most once per
+ * JavaFX pulse, and the completed tasks are kept in a ring buffer of {@link #MAX_COMPLETED_TASKS} entries.
+ */
 public class TaskListsProvider implements TaskListsService {
 
 	public static final ObservableList<Task<?>> pendingTasks = FXCollections.observableArrayList();
 	public static final ObservableList<Task<?>> executingTasks = FXCollections.observableArrayList();
-	public static final ObservableList<Task<?>> completedTasks = FXCollections.observableArrayList();
+	public static final ObservableRingList<Task<?>> completedTasks = new ObservableRingList<>(MAX_COMPLETED_TASKS);
+	static final TaskListsPump pump = new TaskListsPump(pendingTasks, executingTasks, completedTasks);
 
 	public static TaskListsProvider provider() {
 		return new TaskListsProvider();
@@ -45,4 +52,19 @@ public ObservableList<Task<?>> executingTasks() {
 	public ObservableList<Task<?>> completedTasks() {
 		return completedTasks;
 	}
+
+	@Override
+	public void taskPending(Task<?> task) {
+		pump.pending(task);
+	}
+
+	@Override
+	public void taskExecuting(Task<?> task) {
+		pump.executing(task);
+	}
+
+	@Override
+	public void taskFinished(Task<?> task, Supplier<? extends Task<?>> completedTask) {
+		pump.finished(task, completedTask);
+	}
 }
@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Batches task state changes from any thread and applies them to the task lists at most once per JavaFX pulse.
+ * <p>
+ * Changes are queued without touching the JavaFX application thread. When the first change arrives, an
+ * {@link AnimationTimer} is started; on each pulse it drains the queue, collapses all changes to each task into
+ * its final state, and applies them with one removal and one addition per list. The timer stops when the queue
+ * is empty, so an idle pump does not request pulses. A task that is queued, runs and completes between two pulses
+ * never enters the pending or executing lists at all.
+ * <p>
+ * Changes are reported from the worker threads as tasks are submitted, start and complete, not from the
+ * state callbacks of {@link Task}, which JavaFX posts to the application thread one by one.
+ */
+public class TaskListsPump {
+    private enum State {PENDING, EXECUTING, FINISHED}
+
+    private record Change(Task<?> task, State state, Supplier<? extends Task<?>> completedTask) {
+    }
+
+    private final ObservableList<Task<?>> pendingTasks;
+    private final ObservableList<Task<?>> executingTasks;
+    private final ObservableRingList<Task<?>> completedTasks;
+    private final ConcurrentLinkedQueue<Change> changes = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean active = new AtomicBoolean();
+    private final Runnable startPulses;
+    // Shadow membership of the pending and executing lists, only used on the JavaFX application thread.
+    private final Set<Task<?>> pendingMembers = new HashSet<>();
+    private final Set<Task<?>> executingMembers = new HashSet<>();
+    // Created on the JavaFX application thread when the pump is first started.
+    private AnimationTimer timer;
+
+    public TaskListsPump(ObservableList<Task<?>> pendingTasks,
+                         ObservableList<Task<?>> executingTasks,
+                         ObservableRingList<Task<?>> completedTasks) {
+        this(pendingTasks, executingTasks, completedTasks, null);
+    }
+
+    /**
+     * @param startPulses called instead of starting an {@link AnimationTimer} when the first change is queued
+     *                    on an idle pump; {@link #pulse()} must then be called until it returns false
+     */
+    TaskListsPump(ObservableList<Task<?>> pendingTasks,
+                  ObservableList<Task<?>> executingTasks,
+                  ObservableRingList<Task<?>> completedTasks,
+                  Runnable startPulses) {
+        this.pendingTasks = pendingTasks;
+        this.executingTasks = executingTasks;
+        this.completedTasks = completedTasks;
+        this.startPulses = startPulses != null ? startPulses : this::startTimer;
+    }
+
+    public void pending(Task<?> task) {
+        offer(new Change(task, State.PENDING, null));
+    }
+
+    public void executing(Task<?> task) {
+        offer(new Change(task, State.EXECUTING, null));
+    }
+
+    /**
+     * @param completedTask creates the record to add to the completed tasks, or null if the task is not retained
+     */
+    public void finished(Task<?> task, Supplier<? extends Task<?>> completedTask) {
+        offer(new Change(task, State.FINISHED, completedTask));
+    }
+
+    private void offer(Change change) {
+        changes.add(change);
+        if (active.compareAndSet(false, true)) {
+            startPulses.run();
+        }
+    }
+
+    private void startTimer() {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(this::startTimer);
+            return;
+        }
+        if (timer == null) {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    if (!pulse()) {
+                        stop();
+                    }
+                }
+            };
+        }
+        timer.start();
+    }
+
+    /**
+     * Applies the queued changes to the lists. Must be called on the JavaFX application thread.
+     *
+     * @return true if changes remain to be applied on the next pulse, false if the pump went idle
+     */
+    boolean pulse() {
+        drain();
+        if (!changes.isEmpty()) {
+            return true;
+        }
+        active.set(false);
+        // A change may have been queued after the drain, while active was still set.
+        return !changes.isEmpty() && active.compareAndSet(false, true);
+    }
+
+    private void drain() {
+        Map<Task<?>, State> finalStates = new LinkedHashMap<>();
+        List<Task<?>> completed = new ArrayList<>();
+        Change change;
+        while ((change = changes.poll()) != null) {
+            State previous = finalStates.get(change.task());
+            // A late duplicate pending report must not move a task back from executing or finished.
+            if (previous == null || change.state().compareTo(previous) >= 0) {
+                finalStates.put(change.task(), change.state());
+            }
+            if (change.completedTask() != null) {
+                completed.add(change.completedTask().get());
+            }
+        }
+
+        Set<Task<?>> removeFromPending = new HashSet<>();
+        Set<Task<?>> removeFromExecuting = new HashSet<>();
+        List<Task<?>> addToPending = new ArrayList<>();
+        List<Task<?>> addToExecuting = new ArrayList<>();
+        finalStates.forEach((task, state) -> {
+            switch (state) {
+                case PENDING -> {
+                    if (!executingMembers.contains(task) && pendingMembers.add(task)) {
+                        addToPending.add(task);
+                    }
+                }
+                case EXECUTING -> {
+                    if (pendingMembers.remove(task)) {
+                        removeFromPending.add(task);
+                    }
+                    if (executingMembers.add(task)) {
+                        addToExecuting.add(task);
+                    }
+                }
+                case FINISHED -> {
+                    if (pendingMembers.remove(task)) {
+                        removeFromPending.add(task);
+                    }
+                    if (executingMembers.remove(task)) {
+                        removeFromExecuting.add(task);
+                    }
+                }
+            }
+        });
+
+        if (!removeFromPending.isEmpty()) {
+            pendingTasks.removeAll(removeFromPending);
+        }
+        if (!addToPending.isEmpty()) {
+            pendingTasks.addAll(addToPending);
+        }
+        if (!removeFromExecuting.isEmpty()) {
+            executingTasks.removeAll(removeFromExecuting);
+        }
+        if (!addToExecuting.isEmpty()) {
+            executingTasks.addAll(addToExecuting);
+        }
+        completedTasks.pushAll(completed);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+import dev.ikm.komet.framework.concurrent.TimerHandle;
+import dev.ikm.komet.framework.concurrent.TimerService;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link TimerService} found by the ServiceLoader; delegates to the {@link TimingWheelScheduler} of the running
+ * {@link KometExecutorProvider}, starting the executors if needed.
+ */
+public class TimerProvider implements TimerService {
+
+	public static TimerProvider provider() {
+		return new TimerProvider();
+	}
+
+	private TimerProvider() {
+		super();
+	}
+
+	@Override
+	public TimerHandle schedule(Runnable action, long delay, TimeUnit unit) {
+		return timer().schedule(action, delay, unit);
+	}
+
+	@Override
+	public TimerHandle schedule(Runnable action, long delay, TimeUnit unit, Executor executor) {
+		return timer().schedule(action, delay, unit, executor);
+	}
+
+	private static TimingWheelScheduler timer() {
+		return KometExecutorController.provider().create().timer();
+	}
+}
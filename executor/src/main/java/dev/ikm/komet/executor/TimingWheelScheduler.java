@@ -0,0 +1,387 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+import dev.ikm.komet.executor.metrics.ExecutorMetrics;
+import dev.ikm.komet.framework.SessionScope;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
+import dev.ikm.komet.framework.concurrent.TimerHandle;
+import dev.ikm.komet.framework.concurrent.TimerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link TimerService} backed by a hierarchical timing wheel, for debounce delays and timeouts that are scheduled
+ * and cancelled far more often than they fire.
+ * <p>
+ * Time is divided into ticks of {@value #TICK_PROPERTY} milliseconds (default 10). The wheel has {@value #LEVELS}
+ * levels of {@value #SLOTS} slots; level 0 holds timers due within {@value #SLOTS} ticks, and each higher level
+ * covers {@value #SLOTS} times the span of the level below. When level 0 wraps around, the current slot of the level
+ * above is cascaded down, as in the classic kernel timer wheel. Timers further out than the wheel spans are parked
+ * in its last slot until they come within its span.
+ * <p>
+ * {@link #schedule} and {@link TimerHandle#cancel()} only enqueue the timer and flip its state, so both take constant
+ * time and never lock. A single daemon thread drains the queues, links and unlinks timers in their slots, advances
+ * the wheel, and hands expired actions to their executor. The thread parks while no timer is pending.
+ * <p>
+ * Scheduled timers are reported to an {@link ExecutorMetrics} as submitted, cancelled timers as dropped, and fired
+ * timers as started (with their lateness as wait time) and finished (with the run time of the action).
+ */
+public class TimingWheelScheduler implements TimerService {
+    private static final Logger LOG = LoggerFactory.getLogger(TimingWheelScheduler.class);
+    public static final String TICK_PROPERTY = "komet.executor.timer.tick.ms";
+    static final int SLOT_BITS = 9;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int SLOT_MASK = SLOTS - 1;
+    static final int LEVELS = 4;
+    static final long MAX_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+    static final long MAX_DELAY_NANOS = Long.MAX_VALUE / 4;
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int FIRED = 2;
+
+    private final long tickNanos;
+    private final LongSupplier nanoTime;
+    private final Executor defaultExecutor;
+    private final Timer[][] wheel = new Timer[LEVELS][SLOTS];
+    private final ConcurrentLinkedQueue<Timer> scheduled = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timer> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicInteger runningCount = new AtomicInteger();
+    private volatile ExecutorMetrics metrics;
+    private volatile boolean running;
+    private volatile boolean idle;
+    private volatile Thread ticker;
+    private long startNanos;
+    /**
+     * The next tick to process; only read and written by the ticker thread.
+     */
+    private long currentTick;
+    /**
+     * Timers linked into the wheel; only read and written by the ticker thread.
+     */
+    private int linkedCount;
+
+    public TimingWheelScheduler(Executor defaultExecutor) {
+        this(defaultExecutor, TimeUnit.MILLISECONDS.toNanos(Math.max(1, Long.getLong(TICK_PROPERTY, 10))));
+    }
+
+    public TimingWheelScheduler(Executor defaultExecutor, long tickNanos) {
+        this(defaultExecutor, tickNanos, System::nanoTime);
+    }
+
+    /**
+     * @param nanoTime the clock that deadlines and ticks are measured with, normally {@link System#nanoTime()}
+     */
+    TimingWheelScheduler(Executor defaultExecutor, long tickNanos, LongSupplier nanoTime) {
+        this.defaultExecutor = defaultExecutor;
+        this.tickNanos = tickNanos;
+        this.nanoTime = nanoTime;
+    }
+
+    public synchronized void start() {
+        if (ticker == null) {
+            startNanos = nanoTime.getAsLong();
+            currentTick = 0;
+            running = true;
+            ticker = Thread.ofPlatform().name("Tinkar-Timer-Wheel").daemon(true).start(this::tick);
+            LOG.info("Timer wheel started with {} ms ticks", TimeUnit.NANOSECONDS.toMillis(tickNanos));
+        }
+    }
+
+    /**
+     * Stops the ticker thread. Timers that have not fired yet are discarded.
+     */
+    public synchronized void stop() {
+        Thread thread = ticker;
+        if (thread != null) {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.NANOSECONDS.toMillis(tickNanos) * 10 + 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ticker = null;
+            scheduled.clear();
+            cancelled.clear();
+            pendingCount.set(0);
+        }
+    }
+
+    public void setMetrics(ExecutorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return timers scheduled that have neither fired nor been cancelled
+     */
+    public int pendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * @return fired actions that are still running
+     */
+    public int runningCount() {
+        return runningCount.get();
+    }
+
+    @Override
+    public TimerHandle schedule(Runnable action, long delay, TimeUnit unit) {
+        return schedule(action, delay, unit, defaultExecutor);
+    }
+
+    @Override
+    public TimerHandle schedule(Runnable action, long delay, TimeUnit unit, Executor executor) {
+        Objects.requireNonNull(action);
+        Objects.requireNonNull(executor);
+        if (!running) {
+            throw new RejectedExecutionException("Timer wheel is not running");
+        }
+        // Bound the delay, so deadline arithmetic cannot overflow; timers past the span of the wheel are clamped anyway.
+        long delayNanos = Math.min(Math.max(0, unit.toNanos(delay)), MAX_DELAY_NANOS);
+        Timer timer = new Timer(SessionScope.capture(action), executor, nanoTime.getAsLong() + delayNanos);
+        pendingCount.incrementAndGet();
+        ExecutorMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.taskSubmitted(TaskPriority.NORMAL);
+        }
+        scheduled.add(timer);
+        if (idle) {
+            LockSupport.unpark(ticker);
+        }
+        return timer;
+    }
+
+    private void tick() {
+        while (running) {
+            drainQueues();
+            long targetTick = (nanoTime.getAsLong() - startNanos) / tickNanos;
+            if (linkedCount == 0) {
+                // Nothing to expire on the way, so jump straight to the current tick.
+                currentTick = Math.max(currentTick, targetTick);
+            }
+            while (currentTick <= targetTick && running) {
+                advance();
+            }
+            if (linkedCount == 0) {
+                idle = true;
+                if (scheduled.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+            } else {
+                LockSupport.parkNanos(this, startNanos + currentTick * tickNanos - nanoTime.getAsLong());
+            }
+        }
+    }
+
+    private void drainQueues() {
+        Timer timer;
+        while ((timer = scheduled.poll()) != null) {
+            if (timer.state.get() == PENDING) {
+                long deadlineTick = (timer.deadlineNanos - startNanos + tickNanos - 1) / tickNanos;
+                link(timer, deadlineTick);
+            }
+        }
+        while ((timer = cancelled.poll()) != null) {
+            unlink(timer);
+        }
+    }
+
+    /**
+     * Processes {@link #currentTick}: cascades the higher levels when level 0 wraps around, then fires the timers
+     * in the level 0 slot.
+     */
+    private void advance() {
+        int index = (int) (currentTick & SLOT_MASK);
+        if (index == 0) {
+            for (int level = 1; level < LEVELS; level++) {
+                int levelIndex = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                cascade(level, levelIndex);
+                if (levelIndex != 0) {
+                    break;
+                }
+            }
+        }
+        currentTick++;
+        Timer timer = wheel[0][index];
+        wheel[0][index] = null;
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.next = timer.previous = null;
+            timer.level = -1;
+            linkedCount--;
+            fire(timer);
+            timer = next;
+        }
+    }
+
+    private void cascade(int level, int index) {
+        Timer timer = wheel[level][index];
+        wheel[level][index] = null;
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.next = timer.previous = null;
+            timer.level = -1;
+            linkedCount--;
+            link(timer, timer.deadlineTick);
+            timer = next;
+        }
+    }
+
+    /**
+     * Links the timer into the slot for its deadline. A deadline further out than the wheel spans is linked into the
+     * last slot, and linked again with its actual deadline when that slot is cascaded.
+     */
+    private void link(Timer timer, long deadlineTick) {
+        long ticks = deadlineTick - currentTick;
+        long slotTick = deadlineTick;
+        int level;
+        if (ticks < 0) {
+            deadlineTick = currentTick;
+            slotTick = currentTick;
+            level = 0;
+        } else {
+            if (ticks > MAX_TICKS) {
+                slotTick = currentTick + MAX_TICKS;
+                ticks = MAX_TICKS;
+            }
+            level = (63 - Long.numberOfLeadingZeros(ticks | 1)) / SLOT_BITS;
+        }
+        int index = (int) ((slotTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        timer.deadlineTick = deadlineTick;
+        timer.level = level;
+        timer.index = index;
+        timer.previous = null;
+        timer.next = wheel[level][index];
+        if (timer.next != null) {
+            timer.next.previous = timer;
+        }
+        wheel[level][index] = timer;
+        linkedCount++;
+    }
+
+    private void unlink(Timer timer) {
+        if (timer.level < 0) {
+            return;
+        }
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        } else {
+            wheel[timer.level][timer.index] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        timer.next = timer.previous = null;
+        timer.level = -1;
+        linkedCount--;
+    }
+
+    private void fire(Timer timer) {
+        if (!timer.state.compareAndSet(PENDING, FIRED)) {
+            return;
+        }
+        pendingCount.decrementAndGet();
+        try {
+            timer.executor.execute(timer::run);
+        } catch (RejectedExecutionException e) {
+            ExecutorMetrics metrics = this.metrics;
+            if (metrics != null) {
+                metrics.taskRejected();
+            }
+            LOG.warn("Timer action rejected by its executor", e);
+        }
+    }
+
+    private final class Timer implements TimerHandle {
+        private final Runnable action;
+        private final Executor executor;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // Slot links, owned by the ticker thread.
+        private long deadlineTick;
+        private int level = -1;
+        private int index;
+        private Timer previous;
+        private Timer next;
+
+        private Timer(Runnable action, Executor executor, long deadlineNanos) {
+            this.action = action;
+            this.executor = executor;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        private void run() {
+            ExecutorMetrics metrics = TimingWheelScheduler.this.metrics;
+            long started = System.nanoTime();
+            if (metrics != null) {
+                metrics.taskStarted(Math.max(0, nanoTime.getAsLong() - deadlineNanos), TaskPriority.NORMAL);
+            }
+            runningCount.incrementAndGet();
+            boolean failed = false;
+            try {
+                action.run();
+            } catch (RuntimeException | Error e) {
+                failed = true;
+                throw e;
+            } finally {
+                runningCount.decrementAndGet();
+                if (metrics != null) {
+                    metrics.taskFinished(System.nanoTime() - started, failed);
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            pendingCount.decrementAndGet();
+            ExecutorMetrics metrics = TimingWheelScheduler.this.metrics;
+            if (metrics != null) {
+                metrics.taskDropped();
+            }
+            if (running) {
+                cancelled.add(this);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        @Override
+        public boolean isPending() {
+            return state.get() == PENDING;
+        }
+    }
+}
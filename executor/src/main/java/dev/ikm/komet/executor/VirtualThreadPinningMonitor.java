@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Reports virtual threads that pin their carrier thread, so that code which still blocks
+ * carriers (e.g. blocking inside a {@code synchronized} block) can be found and fixed.
+ * <p>
+ * Listens to the JFR {@code jdk.VirtualThreadPinned} event and logs each event at warn level with the
+ * top frames of the pinned thread. Only pinning longer than {@value #THRESHOLD_PROPERTY} milliseconds
+ * (default 20) is reported.
+ */
+public class VirtualThreadPinningMonitor {
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    public static final String THRESHOLD_PROPERTY = "komet.executor.pinning.threshold.ms";
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_FRAMES = 12;
+
+    private RecordingStream recordingStream;
+
+    public synchronized void start() {
+        if (recordingStream == null) {
+            Duration threshold = Duration.ofMillis(Long.getLong(THRESHOLD_PROPERTY, 20));
+            recordingStream = new RecordingStream();
+            recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+            recordingStream.onEvent(PINNED_EVENT, this::report);
+            recordingStream.startAsync();
+            LOG.info("Reporting virtual thread pinning longer than {} ms", threshold.toMillis());
+        }
+    }
+
+    public synchronized void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+            recordingStream = null;
+        }
+    }
+
+    private void report(RecordedEvent event) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Virtual thread pinned carrier for ").append(event.getDuration().toMillis()).append(" ms");
+        if (event.getThread() != null) {
+            sb.append(" on ").append(event.getThread().getJavaName());
+        }
+        if (event.getStackTrace() != null) {
+            int count = 0;
+            for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                if (count++ == MAX_FRAMES) {
+                    sb.append("\n\t...");
+                    break;
+                }
+                sb.append("\n\tat ").append(frame.getMethod().getType().getName())
+                        .append('.').append(frame.getMethod().getName())
+                        .append(':').append(frame.getLineNumber());
+            }
+        }
+        LOG.warn(sb.toString());
+    }
+}
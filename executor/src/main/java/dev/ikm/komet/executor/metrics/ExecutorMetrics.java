@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor.metrics;
+
+import dev.ikm.komet.framework.concurrent.TaskPriority;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters and latency histograms for a single executor pool.
+ * <p>
+ * The executor reports each task as submitted, started (with the time it spent queued), and finished
+ * (with the time it spent running). Queue depth and active count are read from the pool itself when
+ * a snapshot is taken, so they cost nothing on the task path. Tasks that expired before they started, and
+ * cancelled timers of a timer wheel, are counted as dropped. Submissions and wait times are also kept per
+ * {@link TaskPriority}, to show whether interactive work is being held up.
+ */
+public class ExecutorMetrics implements ExecutorMetricsMXBean {
+    private final String name;
+    private final IntSupplier queueDepth;
+    private final IntSupplier activeCount;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram runTime = new LatencyHistogram();
+    private final LongAdder[] submittedByPriority = new LongAdder[TaskPriority.values().length];
+    private final LatencyHistogram[] waitTimeByPriority = new LatencyHistogram[TaskPriority.values().length];
+
+    public ExecutorMetrics(String name, IntSupplier queueDepth, IntSupplier activeCount) {
+        this.name = name;
+        this.queueDepth = queueDepth;
+        this.activeCount = activeCount;
+        for (int i = 0; i < submittedByPriority.length; i++) {
+            submittedByPriority[i] = new LongAdder();
+            waitTimeByPriority[i] = new LatencyHistogram();
+        }
+    }
+
+    public void taskSubmitted(TaskPriority priority) {
+        submitted.increment();
+        submittedByPriority[priority.ordinal()].increment();
+    }
+
+    public void taskRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * Records a task that expired while queued, and was cancelled without running.
+     */
+    public void taskDropped() {
+        dropped.increment();
+    }
+
+    public void taskStarted(long waitNanos, TaskPriority priority) {
+        waitTime.record(waitNanos);
+        waitTimeByPriority[priority.ordinal()].record(waitNanos);
+    }
+
+    public void taskFinished(long runNanos, boolean failedWithException) {
+        runTime.record(runNanos);
+        completed.increment();
+        if (failedWithException) {
+            failed.increment();
+        }
+    }
+
+    public LatencyHistogram waitTime() {
+        return waitTime;
+    }
+
+    public LatencyHistogram runTime() {
+        return runTime;
+    }
+
+    public LatencyHistogram waitTime(TaskPriority priority) {
+        return waitTimeByPriority[priority.ordinal()];
+    }
+
+    public ExecutorMetricsSnapshot snapshot() {
+        Map<TaskPriority, Long> submittedCounts = new EnumMap<>(TaskPriority.class);
+        Map<TaskPriority, LatencyHistogram.Snapshot> waitTimes = new EnumMap<>(TaskPriority.class);
+        for (TaskPriority priority : TaskPriority.values()) {
+            submittedCounts.put(priority, submittedByPriority[priority.ordinal()].sum());
+            waitTimes.put(priority, waitTimeByPriority[priority.ordinal()].snapshot());
+        }
+        return new ExecutorMetricsSnapshot(name, getQueueDepth(), getActiveCount(),
+                submitted.sum(), completed.sum(), failed.sum(), rejected.sum(), dropped.sum(),
+                waitTime.snapshot(), runTime.snapshot(), submittedCounts, waitTimes);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return activeCount.getAsInt();
+    }
+
+    @Override
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public double getWaitTimeMeanMillis() {
+        return toMillis(waitTime.snapshot().meanNanos());
+    }
+
+    @Override
+    public double getWaitTimeP99Millis() {
+        return toMillis(waitTime.snapshot().p99Nanos());
+    }
+
+    @Override
+    public double getWaitTimeMaxMillis() {
+        return toMillis(waitTime.snapshot().maxNanos());
+    }
+
+    @Override
+    public double getRunTimeMeanMillis() {
+        return toMillis(runTime.snapshot().meanNanos());
+    }
+
+    @Override
+    public double getRunTimeP99Millis() {
+        return toMillis(runTime.snapshot().p99Nanos());
+    }
+
+    @Override
+    public double getRunTimeMaxMillis() {
+        return toMillis(runTime.snapshot().maxNanos());
+    }
+
+    @Override
+    public Map<String, Long> getSubmittedCountByPriority() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (TaskPriority priority : TaskPriority.values()) {
+            counts.put(priority.name(), submittedByPriority[priority.ordinal()].sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getWaitTimeP99MillisByPriority() {
+        Map<String, Double> waitTimes = new LinkedHashMap<>();
+        for (TaskPriority priority : TaskPriority.values()) {
+            waitTimes.put(priority.name(), toMillis(waitTimeByPriority[priority.ordinal()].snapshot().p99Nanos()));
+        }
+        return waitTimes;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
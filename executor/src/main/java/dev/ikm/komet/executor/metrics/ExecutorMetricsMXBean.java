@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the {@link ExecutorMetrics} of one executor pool. Times are reported in milliseconds.
+ */
+public interface ExecutorMetricsMXBean {
+
+    String getName();
+
+    int getQueueDepth();
+
+    int getActiveCount();
+
+    long getSubmittedCount();
+
+    long getCompletedCount();
+
+    long getFailedCount();
+
+    long getRejectedCount();
+
+    long getDroppedCount();
+
+    double getWaitTimeMeanMillis();
+
+    double getWaitTimeP99Millis();
+
+    double getWaitTimeMaxMillis();
+
+    double getRunTimeMeanMillis();
+
+    double getRunTimeP99Millis();
+
+    double getRunTimeMaxMillis();
+
+    Map<String, Long> getSubmittedCountByPriority();
+
+    Map<String, Double> getWaitTimeP99MillisByPriority();
+}
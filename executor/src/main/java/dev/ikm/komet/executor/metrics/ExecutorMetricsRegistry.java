@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the {@link ExecutorMetrics} of the executor pools, publishes them as JMX MXBeans under the
+ * {@value #JMX_DOMAIN} domain, and periodically writes a snapshot of all of them to a text file.
+ * <p>
+ * The snapshot file defaults to {@code ~/Solor/komet/executor-metrics.txt} and can be changed with the
+ * {@value #SNAPSHOT_FILE_PROPERTY} system property. The interval, in seconds, is set by
+ * {@value #SNAPSHOT_INTERVAL_PROPERTY}; an interval of 0 disables the snapshot file.
+ * <p>
+ * The {@link SessionMetrics} of open executor sessions are published and written alongside the pools, and
+ * removed when their session closes.
+ */
+public class ExecutorMetricsRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(ExecutorMetricsRegistry.class);
+    public static final String JMX_DOMAIN = "dev.ikm.komet.executor";
+    public static final String SNAPSHOT_FILE_PROPERTY = "komet.executor.metrics.file";
+    public static final String SNAPSHOT_INTERVAL_PROPERTY = "komet.executor.metrics.interval.s";
+
+    private final List<ExecutorMetrics> metricsList = new CopyOnWriteArrayList<>();
+    private final List<SessionMetrics> sessionMetricsList = new CopyOnWriteArrayList<>();
+    private final List<ObjectName> registeredNames = new CopyOnWriteArrayList<>();
+    private ScheduledFuture<?> snapshotFuture;
+
+    public void register(ExecutorMetrics metrics) {
+        metricsList.add(metrics);
+        registerMBean(metrics, "ExecutorMetrics", metrics.getName());
+    }
+
+    public void register(SessionMetrics metrics) {
+        sessionMetricsList.add(metrics);
+        registerMBean(metrics, "SessionMetrics", metrics.getName());
+    }
+
+    public void unregister(SessionMetrics metrics) {
+        sessionMetricsList.remove(metrics);
+        try {
+            ObjectName objectName = objectName("SessionMetrics", metrics.getName());
+            if (registeredNames.remove(objectName)) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            LOG.warn("Unable to unregister JMX metrics for " + metrics.getName(), e);
+        }
+    }
+
+    private void registerMBean(Object mbean, String type, String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(type, name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(mbean, objectName);
+                registeredNames.add(objectName);
+            }
+        } catch (Exception e) {
+            LOG.warn("Unable to register JMX metrics for " + name, e);
+        }
+    }
+
+    private static ObjectName objectName(String type, String name) throws MalformedObjectNameException {
+        return new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+    }
+
+    public List<ExecutorMetricsSnapshot> snapshots() {
+        return metricsList.stream().map(ExecutorMetrics::snapshot).toList();
+    }
+
+    public List<SessionMetricsSnapshot> sessionSnapshots() {
+        return sessionMetricsList.stream().map(SessionMetrics::snapshot).toList();
+    }
+
+    public void startSnapshots(ScheduledExecutorService scheduledExecutor) {
+        long intervalSeconds = Long.getLong(SNAPSHOT_INTERVAL_PROPERTY, 60);
+        if (intervalSeconds <= 0) {
+            return;
+        }
+        String fileName = System.getProperty(SNAPSHOT_FILE_PROPERTY);
+        Path snapshotFile = fileName != null ? Path.of(fileName) :
+                Path.of(System.getProperty("user.home"), "Solor", "komet", "executor-metrics.txt");
+        snapshotFuture = scheduledExecutor.scheduleWithFixedDelay(() -> writeSnapshot(snapshotFile),
+                intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        LOG.info("Writing executor metrics to {} every {} s", snapshotFile, intervalSeconds);
+    }
+
+    public void writeSnapshot(Path snapshotFile) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Executor metrics at ").append(ZonedDateTime.now()).append('\n');
+        for (ExecutorMetricsSnapshot snapshot : snapshots()) {
+            sb.append(snapshot).append('\n');
+        }
+        for (SessionMetricsSnapshot snapshot : sessionSnapshots()) {
+            sb.append(snapshot).append('\n');
+        }
+        try {
+            Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+            Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            Files.writeString(tempFile, sb);
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Unable to write executor metrics snapshot to " + snapshotFile, e);
+        }
+    }
+
+    public void stop() {
+        if (snapshotFuture != null) {
+            snapshotFuture.cancel(false);
+            snapshotFuture = null;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : registeredNames) {
+            try {
+                server.unregisterMBean(objectName);
+            } catch (Exception e) {
+                LOG.warn("Unable to unregister " + objectName, e);
+            }
+        }
+        registeredNames.clear();
+        metricsList.clear();
+        sessionMetricsList.clear();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor.metrics;
+
+import dev.ikm.komet.framework.concurrent.TaskPriority;
+
+import java.util.Map;
+
+/**
+ * Immutable view of an {@link ExecutorMetrics} at the time {@link ExecutorMetrics#snapshot()} was called.
+ */
+public record ExecutorMetricsSnapshot(String name,
+                                      int queueDepth,
+                                      int activeCount,
+                                      long submittedCount,
+                                      long completedCount,
+                                      long failedCount,
+                                      long rejectedCount,
+                                      long droppedCount,
+                                      LatencyHistogram.Snapshot waitTime,
+                                      LatencyHistogram.Snapshot runTime,
+                                      Map<TaskPriority, Long> submittedByPriority,
+                                      Map<TaskPriority, LatencyHistogram.Snapshot> waitTimeByPriority) {
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(name)
+                .append(": queued=").append(queueDepth)
+                .append(" active=").append(activeCount)
+                .append(" submitted=").append(submittedCount)
+                .append(" completed=").append(completedCount)
+                .append(" failed=").append(failedCount)
+                .append(" rejected=").append(rejectedCount)
+                .append(" dropped=").append(droppedCount)
+                .append("\n    wait: ").append(waitTime)
+                .append("\n    run:  ").append(runTime);
+        waitTimeByPriority.forEach((priority, priorityWaitTime) -> {
+            long submitted = submittedByPriority.getOrDefault(priority, 0L);
+            if (submitted > 0) {
+                sb.append("\n    ").append(priority).append(" submitted=").append(submitted)
+                        .append(" wait: ").append(priorityWaitTime);
+            }
+        });
+        return sb.toString();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters for the tasks of a single executor session, such as one browser session of a JPro deployment.
+ * <p>
+ * The session reports each of its tasks as submitted, started and finished (with the CPU time it used).
+ * Running and parked counts are read from the session when a snapshot is taken.
+ */
+public class SessionMetrics implements SessionMetricsMXBean {
+    private final String name;
+    private final int weight;
+    private final int maxRunning;
+    private final IntSupplier runningCount;
+    private final IntSupplier parkedCount;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder cpuTimeNanos = new LongAdder();
+
+    public SessionMetrics(String name, int weight, int maxRunning, IntSupplier runningCount, IntSupplier parkedCount) {
+        this.name = name;
+        this.weight = weight;
+        this.maxRunning = maxRunning;
+        this.runningCount = runningCount;
+        this.parkedCount = parkedCount;
+    }
+
+    public void taskSubmitted() {
+        submitted.increment();
+        queueDepth.incrementAndGet();
+    }
+
+    public void taskStarted() {
+        queueDepth.decrementAndGet();
+    }
+
+    public void taskDropped() {
+        queueDepth.decrementAndGet();
+    }
+
+    public void taskFinished(long cpuNanos) {
+        completed.increment();
+        cpuTimeNanos.add(cpuNanos);
+    }
+
+    public SessionMetricsSnapshot snapshot() {
+        return new SessionMetricsSnapshot(name, weight, maxRunning, getQueueDepth(), getRunningCount(),
+                getParkedCount(), submitted.sum(), completed.sum(), cpuTimeNanos.sum());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public int getMaxRunning() {
+        return maxRunning;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    @Override
+    public int getRunningCount() {
+        return runningCount.getAsInt();
+    }
+
+    @Override
+    public int getParkedCount() {
+        return parkedCount.getAsInt();
+    }
+
+    @Override
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    @Override
+    public double getCpuTimeMillis() {
+        return cpuTimeNanos.sum() / 1_000_000.0;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor.metrics;
+
+/**
+ * Immutable view of a {@link SessionMetrics} at the time {@link SessionMetrics#snapshot()} was called.
+ */
+public record SessionMetricsSnapshot(String name,
+                                     int weight,
+                                     int maxRunning,
+                                     int queueDepth,
+                                     int runningCount,
+                                     int parkedCount,
+                                     long submittedCount,
+                                     long completedCount,
+                                     long cpuTimeNanos) {
+
+    @Override
+    public String toString() {
+        return "session " + name +
+                ": weight=" + weight +
+                " maxRunning=" + maxRunning +
+                " queued=" + queueDepth +
+                " running=" + runningCount +
+                " parked=" + parkedCount +
+                " submitted=" + submittedCount +
+                " completed=" + completedCount +
+                " cpu=" + String.format("%.1f ms", cpuTimeNanos / 1_000_000.0);
+    }
+}
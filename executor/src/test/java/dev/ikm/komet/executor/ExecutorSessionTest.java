@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExecutorSessionTest {
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Timed out waiting for condition");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testCallRestoresPreviousSession() {
+        try (ExecutorSession outer = ExecutorSession.open("outer", 1, 2);
+             ExecutorSession inner = ExecutorSession.open("inner", 1, 2)) {
+            assertNull(ExecutorSession.current());
+            outer.run(() -> {
+                assertSame(outer, ExecutorSession.current());
+                inner.run(() -> assertSame(inner, ExecutorSession.current()));
+                assertSame(outer, ExecutorSession.current());
+            });
+            assertNull(ExecutorSession.current());
+        }
+    }
+
+    @Test
+    public void testRunningLimitParksAndReleasesTasks() throws Exception {
+        KometThreadPoolExecutor pool = new KometThreadPoolExecutor(4, 4, 1, TimeUnit.SECONDS,
+                KometThreadPoolExecutor.priorityQueue());
+        try (ExecutorSession session = ExecutorSession.open("limited", 1, 2)) {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            session.run(() -> {
+                for (int i = 0; i < 8; i++) {
+                    futures.add(pool.submit(() -> {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        try {
+                            Thread.sleep(20);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        running.decrementAndGet();
+                    }));
+                }
+            });
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(2, maxRunning.get());
+            // A future completes just before its task is recorded as finished.
+            awaitCondition(() -> session.metrics().getCompletedCount() == 8);
+            assertEquals(0, session.metrics().getParkedCount());
+            assertEquals(0, session.metrics().getRunningCount());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTaskWaitingForItsSubtasksDoesNotDeadlock() throws Exception {
+        KometThreadPoolExecutor pool = new KometThreadPoolExecutor(4, 4, 1, TimeUnit.SECONDS,
+                KometThreadPoolExecutor.priorityQueue());
+        try (ExecutorSession session = ExecutorSession.open("parent", 1, 1)) {
+            Future<Integer> parent = session.call(() -> pool.submit(() -> {
+                assertSame(session, ExecutorSession.current());
+                List<Future<Integer>> children = new ArrayList<>();
+                for (int i = 1; i <= 3; i++) {
+                    int value = i;
+                    children.add(pool.submit(() -> value));
+                }
+                int sum = 0;
+                for (Future<Integer> child : children) {
+                    sum += child.get(5, TimeUnit.SECONDS);
+                }
+                return sum;
+            }));
+            assertEquals(6, (int) parent.get(5, TimeUnit.SECONDS));
+            awaitCondition(() -> session.metrics().getCompletedCount() == 4);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReleasedTaskDoesNotBlockWorkerOfFullPool() throws Exception {
+        // Configured like the blocking pool: no queue, and callers wait for a free worker.
+        KometThreadPoolExecutor pool = new KometThreadPoolExecutor(0, 2, 1, TimeUnit.SECONDS,
+                new SynchronousQueue<>());
+        pool.setRejectedExecutionHandler((runnable, executor) -> {
+            try {
+                executor.getQueue().offer(runnable, Long.MAX_VALUE, TimeUnit.HOURS);
+            } catch (InterruptedException e) {
+                throw new RejectedExecutionException("Interrupted while waiting to enqueue");
+            }
+        });
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch releaseOther = new CountDownLatch(1);
+        CountDownLatch secondRan = new CountDownLatch(1);
+        try (ExecutorSession session = ExecutorSession.open("blocking", 1, 1)) {
+            session.run(() -> {
+                pool.execute(() -> awaitQuietly(releaseFirst));
+                pool.execute(secondRan::countDown);
+            });
+            awaitCondition(() -> session.metrics().getParkedCount() == 1);
+            // Occupy the other worker, so the pool has no room when the first task releases the second.
+            pool.execute(() -> awaitQuietly(releaseOther));
+            awaitCondition(() -> pool.getActiveCount() == 2);
+
+            releaseFirst.countDown();
+            assertTrue(secondRan.await(5, TimeUnit.SECONDS));
+        } finally {
+            releaseOther.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
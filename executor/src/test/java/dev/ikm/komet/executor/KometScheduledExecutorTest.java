@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+import dev.ikm.komet.executor.metrics.ExecutorMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class KometScheduledExecutorTest {
+
+    @Test
+    public void testResettingTheHandlerCountsEachRejectionOnce() {
+        KometScheduledExecutor executor = new KometScheduledExecutor(1);
+        ExecutorMetrics metrics = new ExecutorMetrics("test", () -> 0, () -> 0);
+        executor.setMetrics(metrics);
+        executor.setRejectedExecutionHandler(executor.getRejectedExecutionHandler());
+        executor.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+        assertEquals(1, metrics.getRejectedCount());
+    }
+}
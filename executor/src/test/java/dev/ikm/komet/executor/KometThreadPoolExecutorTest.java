@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KometThreadPoolExecutorTest {
+
+    @Test
+    public void testRunningLimitBoundsVirtualThreadPerTaskPool() throws Exception {
+        KometThreadPoolExecutor pool = new KometThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), Thread.ofVirtual().factory());
+        pool.limitRunningTasks(2);
+        try {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(pool.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(2, maxRunning.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testQueuedTasksAreRemovedAndReturnedAsSubmitted() throws Exception {
+        KometThreadPoolExecutor pool = new KometThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>());
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            pool.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Future<?> cancelled = pool.submit(() -> {});
+            Future<?> removed = pool.submit(() -> {});
+            Runnable notRun = () -> {};
+            pool.execute(notRun);
+            assertEquals(3, pool.getQueue().size());
+
+            cancelled.cancel(false);
+            pool.purge();
+            assertEquals(2, pool.getQueue().size());
+
+            assertTrue(pool.remove((Runnable) removed));
+            assertEquals(1, pool.getQueue().size());
+
+            List<Runnable> drained = pool.shutdownNow();
+            assertEquals(1, drained.size());
+            assertSame(notRun, drained.get(0));
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ObservableRingListTest {
+    @Test
+    public void testNewestElementFirst() {
+        ObservableRingList<String> list = new ObservableRingList<>(4);
+        list.push("a");
+        list.push("b");
+        list.add(0, "c");
+        assertEquals(List.of("c", "b", "a"), List.copyOf(list));
+        assertThrows(UnsupportedOperationException.class, () -> list.add(1, "d"));
+    }
+
+    @Test
+    public void testFullListEvictsOldest() {
+        ObservableRingList<Integer> list = new ObservableRingList<>(3);
+        for (int i = 1; i <= 7; i++) {
+            list.push(i);
+        }
+        assertEquals(3, list.size());
+        assertEquals(List.of(7, 6, 5), List.copyOf(list));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(3));
+    }
+
+    @Test
+    public void testPushAllIsOneChange() {
+        ObservableRingList<Integer> list = new ObservableRingList<>(3);
+        AtomicInteger changes = new AtomicInteger();
+        list.addListener((ListChangeListener<Integer>) change -> changes.incrementAndGet());
+        list.pushAll(List.of(1, 2, 3, 4, 5));
+        assertEquals(1, changes.get());
+        assertEquals(List.of(5, 4, 3), List.copyOf(list));
+        list.pushAll(List.of());
+        assertEquals(1, changes.get());
+    }
+
+    @Test
+    public void testRemoveKeepsOrderAcrossWrap() {
+        ObservableRingList<Integer> list = new ObservableRingList<>(4);
+        for (int i = 1; i <= 6; i++) {
+            list.push(i);
+        }
+        assertEquals(List.of(6, 5, 4, 3), List.copyOf(list));
+        assertEquals(5, (int) list.remove(1));
+        assertEquals(List.of(6, 4, 3), List.copyOf(list));
+        list.push(7);
+        list.push(8);
+        assertEquals(List.of(8, 7, 6, 4), List.copyOf(list));
+        list.remove(0, 2);
+        assertEquals(List.of(6, 4), List.copyOf(list));
+        list.clear();
+        assertEquals(0, list.size());
+        list.push(9);
+        assertEquals(List.of(9), List.copyOf(list));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class TaskListsPumpTest {
+    private final ObservableList<Task<?>> pendingTasks = FXCollections.observableArrayList();
+    private final ObservableList<Task<?>> executingTasks = FXCollections.observableArrayList();
+    private final ObservableRingList<Task<?>> completedTasks = new ObservableRingList<>(2);
+    private final AtomicInteger pulseRequests = new AtomicInteger();
+    private final TaskListsPump pump = new TaskListsPump(pendingTasks, executingTasks, completedTasks,
+            pulseRequests::incrementAndGet);
+
+    private static Task<Void> task() {
+        return new Task<>() {
+            @Override
+            protected Void call() {
+                return null;
+            }
+        };
+    }
+
+    @Test
+    public void testStatesMoveTaskBetweenLists() {
+        Task<Void> task = task();
+        Task<Void> record = task();
+        pump.pending(task);
+        assertFalse(pump.pulse());
+        assertEquals(List.of(task), List.copyOf(pendingTasks));
+
+        pump.executing(task);
+        assertFalse(pump.pulse());
+        assertEquals(0, pendingTasks.size());
+        assertEquals(List.of(task), List.copyOf(executingTasks));
+
+        pump.finished(task, () -> record);
+        assertFalse(pump.pulse());
+        assertEquals(0, executingTasks.size());
+        assertEquals(List.of(record), List.copyOf(completedTasks));
+        assertEquals(3, pulseRequests.get());
+    }
+
+    @Test
+    public void testTaskCompletedBetweenPulsesSkipsPendingAndExecuting() {
+        Task<Void> task = task();
+        AtomicInteger recordsCreated = new AtomicInteger();
+        pump.pending(task);
+        pump.executing(task);
+        pump.finished(task, () -> {
+            recordsCreated.incrementAndGet();
+            return task();
+        });
+        assertEquals(1, pulseRequests.get());
+        assertEquals(0, recordsCreated.get());
+
+        assertFalse(pump.pulse());
+        assertEquals(0, pendingTasks.size());
+        assertEquals(0, executingTasks.size());
+        assertEquals(1, completedTasks.size());
+        assertEquals(1, recordsCreated.get());
+    }
+
+    @Test
+    public void testLatePendingReportDoesNotMoveTaskBack() {
+        Task<Void> task = task();
+        pump.executing(task);
+        pump.pending(task);
+        pump.pulse();
+        assertEquals(0, pendingTasks.size());
+        assertEquals(List.of(task), List.copyOf(executingTasks));
+
+        pump.pending(task);
+        pump.pulse();
+        assertEquals(0, pendingTasks.size());
+    }
+
+    @Test
+    public void testUnretainedTaskLeavesNoRecordAndRingKeepsNewest() {
+        Task<Void> unretained = task();
+        pump.executing(unretained);
+        pump.finished(unretained, null);
+        pump.pulse();
+        assertEquals(0, executingTasks.size());
+        assertEquals(0, completedTasks.size());
+
+        Task<Void> first = task();
+        Task<Void> second = task();
+        Task<Void> third = task();
+        for (Task<Void> record : List.of(first, second, third)) {
+            pump.finished(task(), () -> record);
+        }
+        pump.pulse();
+        assertEquals(2, completedTasks.size());
+        assertSame(third, completedTasks.get(0));
+        assertSame(second, completedTasks.get(1));
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor;
+
+import dev.ikm.komet.framework.SessionScope;
+import dev.ikm.komet.framework.concurrent.TimerHandle;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelSchedulerTest {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Timed out waiting for condition");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * A timer, and a probe timer one tick earlier. Once the probe has fired, the wheel has processed every tick
+     * before the deadline of the timer.
+     */
+    private record Boundary(long ticks, CountDownLatch probe, CountDownLatch timer) {
+    }
+
+    @Test
+    public void testTimersFireExactlyAtLevelBoundaries() throws Exception {
+        TimingWheelScheduler wheel = new TimingWheelScheduler(Runnable::run, TICK_NANOS, clock::get);
+        wheel.start();
+        try {
+            long level1 = TimingWheelScheduler.SLOTS;
+            long level2 = (long) TimingWheelScheduler.SLOTS * TimingWheelScheduler.SLOTS;
+            List<Boundary> boundaries = new ArrayList<>();
+            for (long ticks : new long[]{level1 - 1, level1, level1 + 1, 2 * level1, level2 - 1, level2, level2 + 1,
+                    level2 + level1}) {
+                Boundary boundary = new Boundary(ticks, new CountDownLatch(1), new CountDownLatch(1));
+                wheel.schedule(boundary.probe()::countDown, (ticks - 1) * TICK_NANOS, TimeUnit.NANOSECONDS);
+                wheel.schedule(boundary.timer()::countDown, ticks * TICK_NANOS, TimeUnit.NANOSECONDS);
+                boundaries.add(boundary);
+            }
+            for (Boundary boundary : boundaries) {
+                clock.set((boundary.ticks() - 1) * TICK_NANOS);
+                assertTrue(boundary.probe().await(5, TimeUnit.SECONDS));
+                assertEquals(1, boundary.timer().getCount());
+                clock.set(boundary.ticks() * TICK_NANOS);
+                assertTrue(boundary.timer().await(5, TimeUnit.SECONDS));
+            }
+            assertEquals(0, wheel.pendingCount());
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void testTimerCancelledBeforeDrainNeverFires() throws Exception {
+        TimingWheelScheduler wheel = new TimingWheelScheduler(Runnable::run, TICK_NANOS, clock::get);
+        wheel.start();
+        try {
+            AtomicInteger fired = new AtomicInteger();
+            for (int i = 0; i < 1000; i++) {
+                TimerHandle handle = wheel.schedule(fired::incrementAndGet, 5 + i % 600, TimeUnit.MILLISECONDS);
+                assertTrue(handle.cancel());
+                assertFalse(handle.cancel());
+                assertTrue(handle.isCancelled());
+                assertFalse(handle.isPending());
+            }
+            assertEquals(0, wheel.pendingCount());
+            CountDownLatch probe = new CountDownLatch(1);
+            wheel.schedule(probe::countDown, 700, TimeUnit.MILLISECONDS);
+            clock.set(TimeUnit.MILLISECONDS.toNanos(700));
+            assertTrue(probe.await(5, TimeUnit.SECONDS));
+            assertEquals(0, fired.get());
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void testScheduleWhileTickerParksIsNotLost() throws Exception {
+        TimingWheelScheduler wheel = new TimingWheelScheduler(Runnable::run, TICK_NANOS);
+        wheel.start();
+        try {
+            // Each timer is scheduled as the ticker goes idle after firing the previous one.
+            for (int i = 0; i < 2000; i++) {
+                CountDownLatch fired = new CountDownLatch(1);
+                wheel.schedule(fired::countDown, 0, TimeUnit.NANOSECONDS);
+                assertTrue(fired.await(5, TimeUnit.SECONDS));
+            }
+            CountDownLatch all = new CountDownLatch(4 * 500);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        wheel.schedule(all::countDown, i % 3, TimeUnit.MILLISECONDS);
+                        Thread.onSpinWait();
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(all.await(5, TimeUnit.SECONDS));
+            awaitCondition(() -> wheel.pendingCount() == 0);
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void testDelayPastWheelSpanIsClampedNotFired() throws Exception {
+        TimingWheelScheduler wheel = new TimingWheelScheduler(Runnable::run, TICK_NANOS, clock::get);
+        wheel.start();
+        try {
+            AtomicInteger fired = new AtomicInteger();
+            TimerHandle beyondSpan = wheel.schedule(fired::incrementAndGet,
+                    (TimingWheelScheduler.MAX_TICKS + 10) * TICK_NANOS, TimeUnit.NANOSECONDS);
+            TimerHandle forever = wheel.schedule(fired::incrementAndGet, Long.MAX_VALUE, TimeUnit.DAYS);
+            CountDownLatch probe = new CountDownLatch(1);
+            wheel.schedule(probe::countDown, 2 * TimingWheelScheduler.SLOTS * TICK_NANOS, TimeUnit.NANOSECONDS);
+            clock.set(2 * TimingWheelScheduler.SLOTS * TICK_NANOS);
+            assertTrue(probe.await(5, TimeUnit.SECONDS));
+
+            assertEquals(0, fired.get());
+            assertTrue(beyondSpan.isPending());
+            assertTrue(forever.isPending());
+            assertEquals(2, wheel.pendingCount());
+            assertTrue(beyondSpan.cancel());
+            assertTrue(forever.cancel());
+            assertEquals(0, wheel.pendingCount());
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void testTimerRunsInTheSessionThatScheduledIt() throws Exception {
+        TimingWheelScheduler wheel = new TimingWheelScheduler(Runnable::run, TICK_NANOS, clock::get);
+        wheel.start();
+        SessionScope session = SessionScope.open("timer-test");
+        try {
+            AtomicReference<SessionScope> ranIn = new AtomicReference<>();
+            CountDownLatch fired = new CountDownLatch(1);
+            session.run(() -> wheel.schedule(() -> {
+                ranIn.set(SessionScope.current());
+                fired.countDown();
+            }, TICK_NANOS, TimeUnit.NANOSECONDS));
+            assertSame(SessionScope.GLOBAL, SessionScope.current());
+
+            clock.set(2 * TICK_NANOS);
+            assertTrue(fired.await(5, TimeUnit.SECONDS));
+            assertSame(session, ranIn.get());
+        } finally {
+            session.close();
+            wheel.stop();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.executor.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testPercentilesWithinBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1_000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.count());
+        assertEquals(100_000L, snapshot.maxNanos());
+        assertEquals(50_500L, snapshot.meanNanos());
+        assertTrue(snapshot.p50Nanos() >= 50_000L && snapshot.p50Nanos() < 2 * 50_000L);
+        assertTrue(snapshot.p99Nanos() >= 99_000L && snapshot.p99Nanos() <= 100_000L);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(LatencyHistogram.Snapshot.EMPTY, new LatencyHistogram().snapshot());
+    }
+}
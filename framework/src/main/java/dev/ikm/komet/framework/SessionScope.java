@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Holds the state that is shared by the windows of one user session, such as the activity stream and event bus
+ * registries, so that a JPro server can keep the sessions of its browser users apart.
+ * <p>
+ * The desktop application has a single session, {@link #GLOBAL}, which is current on every thread that has not
+ * entered another session. A JPro session opens its own scope and enters it on the threads that do its work. The
+ * JavaFX application thread is shared by all sessions, so no session stays current on it: the session of a window
+ * is entered only while it handles input, and work that runs later on that thread, such as timers, queued event
+ * deliveries and task completions, must {@link #capture(Runnable) capture} the session when it is created and
+ * re-enter it when it runs. Closing a scope runs its close actions and drops its state, so that the subscribers and
+ * history held by the session can be garbage collected.
+ */
+public final class SessionScope implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(SessionScope.class);
+
+    /**
+     * The scope of the desktop application, and of threads that have not entered a session. It is never closed.
+     */
+    public static final SessionScope GLOBAL = new SessionScope("global");
+
+    private static final ThreadLocal<SessionScope> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final ConcurrentMap<Object, Object> attributes = new ConcurrentHashMap<>();
+    private final List<Runnable> closeActions = new ArrayList<>();
+    private volatile boolean closed;
+
+    private SessionScope(String name) {
+        this.name = name;
+    }
+
+    public static SessionScope open(String name) {
+        LOG.info("Opened session scope {}", name);
+        return new SessionScope(name);
+    }
+
+    /**
+     * @return the session of the current thread, or {@link #GLOBAL} if there is none or it is closed.
+     */
+    public static SessionScope current() {
+        SessionScope scope = CURRENT.get();
+        return scope != null && !scope.closed ? scope : GLOBAL;
+    }
+
+    /**
+     * Makes this the current session of the calling thread.
+     */
+    public void enter() {
+        if (this == GLOBAL) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(this);
+        }
+    }
+
+    /**
+     * Clears the current session of the calling thread, so that {@link #GLOBAL} is current again.
+     */
+    public static void leave() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Calls the action with this session current on the calling thread, then restores the session that was current
+     * before, so that calls can be nested.
+     */
+    public <T> T call(Supplier<T> action) {
+        SessionScope previous = CURRENT.get();
+        enter();
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Returns an action that runs the given one with the session that is current now, on whichever thread it runs
+     * later.
+     */
+    public static Runnable capture(Runnable action) {
+        SessionScope scope = current();
+        return () -> scope.run(action);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Returns the state of this session for the key, creating it on first use.
+     *
+     * @param key a key private to the owner of the state, usually its class
+     * @param factory creates the state, given this scope
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T computeIfAbsent(Object key, Function<SessionScope, T> factory) {
+        return (T) attributes.computeIfAbsent(key, k -> factory.apply(this));
+    }
+
+    /**
+     * Registers an action to run when this session is closed. Actions run in the order they were registered. The
+     * {@link #GLOBAL} scope is never closed, so actions registered on it never run.
+     */
+    public void onClose(Runnable action) {
+        synchronized (closeActions) {
+            if (!closed) {
+                closeActions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    /**
+     * Closes the session: runs its close actions and drops its state. Closing {@link #GLOBAL} is ignored.
+     */
+    @Override
+    public void close() {
+        if (this == GLOBAL) {
+            return;
+        }
+        List<Runnable> actions;
+        synchronized (closeActions) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            actions = new ArrayList<>(closeActions);
+            closeActions.clear();
+        }
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOG.error("Error closing session scope " + name, e);
+            }
+        }
+        attributes.clear();
+        LOG.info("Closed session scope {}", name);
+    }
+
+    @Override
+    public String toString() {
+        return "SessionScope[" + name + "]";
+    }
+}
@@ -21,6 +21,8 @@
 import javafx.scene.Node;
 import org.eclipse.collections.api.factory.Lists;
 import org.eclipse.collections.api.list.ImmutableList;
+import dev.ikm.komet.framework.SessionScope;
+import dev.ikm.komet.framework.concurrent.TimerService;
 import dev.ikm.komet.framework.graphics.Icon;
 import dev.ikm.komet.preferences.KometPreferences;
 import dev.ikm.komet.preferences.Preferences;
@@ -34,17 +36,33 @@
 import dev.ikm.tinkar.common.util.broadcast.Subscriber;
 import dev.ikm.tinkar.terms.EntityFacade;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.prefs.BackingStoreException;
 
+/**
+ * A stream of entity selections, broadcast to its subscribers, with a short persistent history.
+ * <p>
+ * A stream may conflate its broadcasts (see {@link #setConflationWindow(Duration)}): a dispatch made while no window
+ * is open is broadcast immediately and opens a window. Dispatches made while it is open are gathered, and when it
+ * closes only the latest of them is broadcast, on the JavaFX application thread if the opening dispatch was made
+ * there, and a new window opens behind it. A single selection is therefore never delayed, and a burst of them is
+ * broadcast at most once per window. The last dispatch and the history are still updated on every dispatch.
+ * <p>
+ * A stream belongs to the {@link SessionScope} it was created for, and broadcasts with that session current, so
+ * that subscribers see the activity streams and event buses of their own session whichever thread dispatched.
+ */
 public class ActivityStream implements Broadcaster<ImmutableList<EntityFacade>>, SaveState {
     public static final int MAX_HISTORY_SIZE = 15;
     final String streamIconCssId;
 
     final Broadcaster<ImmutableList<EntityFacade>> processor;
     final PublicIdStringKey<ActivityStream> activityStreamKey;
+    final SessionScope scope;
     /**
      * Note that last dispatch is different from history. Last dispatch may contain a multi-select, while history is
      * a list of single elements. If a dispatch is multiselect, each of the multi-select items are added individually to
@@ -53,10 +71,24 @@ public class ActivityStream implements Broadcaster<ImmutableList<EntityFacade>>,
     final AtomicReference<ImmutableList<EntityFacade>> lastDispatch = new AtomicReference<>(Lists.immutable.empty());
     final KometPreferences preferences;
     final ObservableList<EntityFacade> history = FXCollections.observableArrayList();
+    /**
+     * Guards the conflation window: whether one is open, on which thread it broadcasts, and the latest dispatch
+     * made while it is open, not yet broadcast.
+     */
+    private final Object conflationLock = new Object();
+    private boolean windowOpen;
+    private boolean broadcastOnFxThread;
+    private ImmutableList<EntityFacade> pendingBroadcast;
+    private volatile Duration conflationWindow = Duration.ZERO;
 
     public ActivityStream(String streamIconCssId, PublicIdStringKey<ActivityStream> activityStreamKey) {
+        this(streamIconCssId, activityStreamKey, SessionScope.current());
+    }
+
+    public ActivityStream(String streamIconCssId, PublicIdStringKey<ActivityStream> activityStreamKey, SessionScope scope) {
         this.streamIconCssId = streamIconCssId;
         this.activityStreamKey = activityStreamKey;
+        this.scope = scope;
 
         this.processor = new SimpleBroadcaster<>();
         this.preferences = Preferences.get().getConfigurationPreferences().node("/activity-streams/" + activityStreamKey.getString());
@@ -81,6 +113,18 @@ public String getStreamName() {
         return activityStreamKey.getString();
     }
 
+    public Duration getConflationWindow() {
+        return conflationWindow;
+    }
+
+    /**
+     * @param conflationWindow how long dispatches following a broadcast are gathered before only the latest is
+     *                         broadcast, or {@link Duration#ZERO} to broadcast every dispatch immediately
+     */
+    public void setConflationWindow(Duration conflationWindow) {
+        this.conflationWindow = conflationWindow;
+    }
+
 
     @Override
     public void save() {
@@ -109,7 +153,9 @@ public void dispatch(EntityFacade... entities) {
 
     public void dispatch(ImmutableList<EntityFacade> entities) {
         lastDispatch.set(entities);
-        processor.dispatch(entities);
+        if (conflationWindow.isZero() || openWindowOrGather(entities)) {
+            broadcast(entities);
+        }
         if (Platform.isFxApplicationThread()) {
             updateHistory(entities);
         } else {
@@ -117,6 +163,59 @@ public void dispatch(ImmutableList<EntityFacade> entities) {
         }
     }
 
+    /**
+     * @return true if no conflation window was open, so the dispatch opened one and is to be broadcast now, or false
+     * if it was gathered into the open window
+     */
+    private boolean openWindowOrGather(ImmutableList<EntityFacade> entities) {
+        synchronized (conflationLock) {
+            if (windowOpen) {
+                pendingBroadcast = entities;
+                return false;
+            }
+            broadcastOnFxThread = Platform.isFxApplicationThread();
+            // Without a timer to close it, the window stays shut and every dispatch is broadcast immediately.
+            windowOpen = scheduleWindowClose();
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the window close was scheduled, or false if the timer rejected it, as it does once stopped
+     */
+    private boolean scheduleWindowClose() {
+        long windowNanos = conflationWindow.toNanos();
+        try {
+            if (broadcastOnFxThread) {
+                TimerService.get().schedule(this::closeWindow, windowNanos, TimeUnit.NANOSECONDS, Platform::runLater);
+            } else {
+                TimerService.get().schedule(this::closeWindow, windowNanos, TimeUnit.NANOSECONDS);
+            }
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void closeWindow() {
+        ImmutableList<EntityFacade> entities;
+        synchronized (conflationLock) {
+            entities = pendingBroadcast;
+            pendingBroadcast = null;
+            if (entities == null) {
+                windowOpen = false;
+                return;
+            }
+            // Keep conflating while the dispatches keep coming.
+            windowOpen = scheduleWindowClose();
+        }
+        broadcast(entities);
+    }
+
+    private void broadcast(ImmutableList<EntityFacade> entities) {
+        scope.run(() -> processor.dispatch(entities));
+    }
+
     private void updateHistory(ImmutableList<EntityFacade> entities) {
         for (EntityFacade entity : entities) {
             if (!history.isEmpty()) {
@@ -15,8 +15,10 @@
  */
 package dev.ikm.komet.framework.activity;
 
+import dev.ikm.komet.framework.SessionScope;
 import dev.ikm.tinkar.common.id.PublicIdStringKey;
 import dev.ikm.tinkar.common.id.PublicIds;
+import dev.ikm.tinkar.common.service.PrimitiveData;
 import javafx.scene.Node;
 import org.eclipse.collections.api.factory.Lists;
 import org.eclipse.collections.api.factory.Maps;
@@ -24,6 +26,8 @@
 import org.eclipse.collections.api.map.ImmutableMap;
 import org.eclipse.collections.api.map.MutableMap;
 
+import java.time.Duration;
+
 import static dev.ikm.komet.framework.graphics.Icon.*;
 
 public class ActivityStreams {
@@ -41,32 +45,31 @@ public class ActivityStreams {
     public static final PublicIdStringKey<ActivityStream> FLWOR = new PublicIdStringKey(PublicIds.of("736ae53f-fbac-4fe8-97ea-44d77bda59d7"), "flwor");
     public static final PublicIdStringKey<ActivityStream> PREFERENCES = new PublicIdStringKey(PublicIds.of("6c4753f5-3abd-49f1-ada5-69aa021306da"), "preferences");
 
+    /**
+     * Conflation window of the selection streams, so that a click is broadcast at once while arrowing through search
+     * results or navigator rows broadcasts at most one selection per window, ending with the one the user stops at.
+     */
+    public static final Duration SELECTION_CONFLATION_WINDOW = Duration.ofMillis(50);
+
     public static final ImmutableList<PublicIdStringKey<ActivityStream>> KEYS =
             Lists.immutable.of(ANY, UNLINKED, SEARCH, NAVIGATION, REASONER, CORRELATION, LIST, FLWOR, BUILDER, PREFERENCES);
 
 
-    private static ImmutableMap<PublicIdStringKey<ActivityStream>, ActivityStream> activityStreamMap;
-    static {
-        MutableMap<PublicIdStringKey<ActivityStream>, ActivityStream> tempMap = Maps.mutable.ofInitialCapacity(KEYS.size());
-        tempMap.put(ANY, new ActivityStream(ANY_ACTIVITY_STREAM.styleId(), ANY));
-        tempMap.put(UNLINKED, new ActivityStream(UNLINKED_ACTIVITY_STREAM.styleId(), UNLINKED));
-        tempMap.put(SEARCH, new ActivityStream(SEARCH_ACTIVITY_STREAM.styleId(), SEARCH));
-        tempMap.put(NAVIGATION, new ActivityStream(NAVIGATION_ACTIVITY_STREAM.styleId(), NAVIGATION));
-        tempMap.put(AMPLIFY_NAVIGATION, new ActivityStream(NAVIGATION_ACTIVITY_STREAM.styleId(), AMPLIFY_NAVIGATION));
-        tempMap.put(REASONER, new ActivityStream(CLASSIFICATION_ACTIVITY_STREAM.styleId(), REASONER));
-        tempMap.put(CORRELATION, new ActivityStream(CORRELATION_ACTIVITY_STREAM.styleId(), CORRELATION));
-        tempMap.put(LIST, new ActivityStream(LIST_ACTIVITY_STREAM.styleId(), LIST));
-        tempMap.put(BUILDER, new ActivityStream(BUILDER_ACTIVITY_STREAM.styleId(), BUILDER));
-        tempMap.put(FLWOR, new ActivityStream(FLWOR_ACTIVITY_STREAM.styleId(), FLWOR));
-        tempMap.put(PREFERENCES, new ActivityStream(PREFERENCES_ACTIVITY_STREAM.styleId(), PREFERENCES));
-
-        ActivityStreams.activityStreamMap = tempMap.toImmutable();
+    /**
+     * Returns the activity streams of the current {@link SessionScope}, creating them on first use. Each JPro
+     * session has its own streams, so a selection in one user's search is not broadcast to the other users.
+     */
+    private static Registry registry() {
+        return SessionScope.current().computeIfAbsent(Registry.class, Registry::new);
     }
-    private static MutableMap<PublicIdStringKey<ActivityStream>, ActivityStream> dynamicActivityStreamMap = Maps.mutable.empty();
 
     public static final ImmutableList<ActivityStream> ACTIVITY_STREAMS() {
+        Registry registry = registry();
         MutableMap<PublicIdStringKey<ActivityStream>, ActivityStream> allActivityStreamMap = Maps.mutable.empty();
-        return allActivityStreamMap.withMap(activityStreamMap.toMap()).withMap(dynamicActivityStreamMap).toList().toImmutable();
+        synchronized (registry) {
+            return allActivityStreamMap.withMap(registry.activityStreamMap.toMap())
+                    .withMap(registry.dynamicActivityStreamMap).toList().toImmutable();
+        }
     }
 
     public static Node getActivityIcon(PublicIdStringKey<ActivityStream> key) {
@@ -74,13 +77,15 @@ public static Node getActivityIcon(PublicIdStringKey<ActivityStream> key) {
     }
 
     public static ActivityStream get(PublicIdStringKey<ActivityStream> activityStreamKey) {
-        ActivityStream standardActivityStream = ActivityStreams.activityStreamMap.get(activityStreamKey);
+        Registry registry = registry();
+        ActivityStream standardActivityStream = registry.activityStreamMap.get(activityStreamKey);
         if (standardActivityStream != null) {
             return standardActivityStream;
         }
         // go through any dynamically generated activity streams.
-        ActivityStream dynActivityStream = dynamicActivityStreamMap.get(activityStreamKey);
-        return dynActivityStream;
+        synchronized (registry) {
+            return registry.dynamicActivityStreamMap.get(activityStreamKey);
+        }
     }
 
     /**
@@ -91,17 +96,62 @@ public static ActivityStream get(PublicIdStringKey<ActivityStream> activityStrea
      * @return An ActivityStream instance.
      */
     public static ActivityStream create(PublicIdStringKey<ActivityStream> key) {
-        if (dynamicActivityStreamMap.get(key) == null) {
-            ActivityStream activityStream = new ActivityStream(ANY_ACTIVITY_STREAM.styleId(), key);
-            dynamicActivityStreamMap.put(key, activityStream);
+        Registry registry = registry();
+        synchronized (registry) {
+            return registry.dynamicActivityStreamMap.getIfAbsentPut(key,
+                    () -> new ActivityStream(ANY_ACTIVITY_STREAM.styleId(), key, registry.scope));
         }
-        return dynamicActivityStreamMap.get(key);
     }
     public static void delete(PublicIdStringKey<ActivityStream> key) {
-        ActivityStream activityStream = dynamicActivityStreamMap.get(key);
-        if (activityStream != null) {
-            ActivityStream publisher = dynamicActivityStreamMap.remove(key);
+        Registry registry = registry();
+        ActivityStream publisher;
+        synchronized (registry) {
+            publisher = registry.dynamicActivityStreamMap.remove(key);
+        }
+        if (publisher != null) {
+            PrimitiveData.getStatesToSave().remove(publisher);
             // TODO Not sure how to unsubscribe subscribers?
         }
     }
+
+    /**
+     * The standard and dynamically created activity streams of one session.
+     */
+    private static final class Registry {
+        private final ImmutableMap<PublicIdStringKey<ActivityStream>, ActivityStream> activityStreamMap;
+        private final MutableMap<PublicIdStringKey<ActivityStream>, ActivityStream> dynamicActivityStreamMap = Maps.mutable.empty();
+        private final SessionScope scope;
+
+        private Registry(SessionScope scope) {
+            this.scope = scope;
+            MutableMap<PublicIdStringKey<ActivityStream>, ActivityStream> tempMap = Maps.mutable.ofInitialCapacity(KEYS.size());
+            tempMap.put(ANY, new ActivityStream(ANY_ACTIVITY_STREAM.styleId(), ANY, scope));
+            tempMap.put(UNLINKED, new ActivityStream(UNLINKED_ACTIVITY_STREAM.styleId(), UNLINKED, scope));
+            tempMap.put(SEARCH, new ActivityStream(SEARCH_ACTIVITY_STREAM.styleId(), SEARCH, scope));
+            tempMap.put(NAVIGATION, new ActivityStream(NAVIGATION_ACTIVITY_STREAM.styleId(), NAVIGATION, scope));
+            tempMap.put(AMPLIFY_NAVIGATION, new ActivityStream(NAVIGATION_ACTIVITY_STREAM.styleId(), AMPLIFY_NAVIGATION, scope));
+            tempMap.put(REASONER, new ActivityStream(CLASSIFICATION_ACTIVITY_STREAM.styleId(), REASONER, scope));
+            tempMap.put(CORRELATION, new ActivityStream(CORRELATION_ACTIVITY_STREAM.styleId(), CORRELATION, scope));
+            tempMap.put(LIST, new ActivityStream(LIST_ACTIVITY_STREAM.styleId(), LIST, scope));
+            tempMap.put(BUILDER, new ActivityStream(BUILDER_ACTIVITY_STREAM.styleId(), BUILDER, scope));
+            tempMap.put(FLWOR, new ActivityStream(FLWOR_ACTIVITY_STREAM.styleId(), FLWOR, scope));
+            tempMap.put(PREFERENCES, new ActivityStream(PREFERENCES_ACTIVITY_STREAM.styleId(), PREFERENCES, scope));
+
+            for (PublicIdStringKey<ActivityStream> selectionStream : Lists.immutable.of(SEARCH, NAVIGATION, AMPLIFY_NAVIGATION)) {
+                tempMap.get(selectionStream).setConflationWindow(SELECTION_CONFLATION_WINDOW);
+            }
+
+            this.activityStreamMap = tempMap.toImmutable();
+            // The streams register themselves to be saved; a closed session must not be kept reachable by that.
+            scope.onClose(this::release);
+        }
+
+        private void release() {
+            activityStreamMap.forEachValue(PrimitiveData.getStatesToSave()::remove);
+            synchronized (this) {
+                dynamicActivityStreamMap.forEachValue(PrimitiveData.getStatesToSave()::remove);
+                dynamicActivityStreamMap.clear();
+            }
+        }
+    }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs an action once a burst of triggers has been quiet for a delay. Each {@link #trigger()} cancels the pending
+ * timer, if any, and schedules a new one on the {@link TimerService}, so only the last trigger of a burst runs the
+ * action.
+ */
+public final class Debouncer {
+    private final long delayNanos;
+    private final Executor executor;
+    private final Runnable action;
+    private final AtomicReference<TimerHandle> pending = new AtomicReference<>();
+
+    /**
+     * @param delay the quiet period after the last trigger
+     * @param executor where the action runs, for example {@code Platform::runLater} for actions that touch the scene
+     * @param action the action to run
+     */
+    public Debouncer(Duration delay, Executor executor, Runnable action) {
+        this.delayNanos = delay.toNanos();
+        this.executor = executor;
+        this.action = action;
+    }
+
+    public void trigger() {
+        TimerHandle next = TimerService.get().schedule(action, delayNanos, TimeUnit.NANOSECONDS, executor);
+        TimerHandle previous = pending.getAndSet(next);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Cancels the pending run of the action, if any.
+     */
+    public void cancel() {
+        TimerHandle previous = pending.getAndSet(null);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.concurrent;
+
+import java.time.Duration;
+
+/**
+ * Decides whether queued work is still wanted. Executors that support expiry check the {@link ExpiringTask#expiry()}
+ * of a task when a worker picks it up, and cancel the task instead of running it once it has expired.
+ * <p>
+ * Use {@link #after(Duration)} for work that is useless after a deadline, or a {@link TaskGeneration.Token} for work
+ * that is superseded by newer work of the same kind, such as the previous query of a type-ahead search.
+ */
+@FunctionalInterface
+public interface Expiry {
+    /**
+     * Never expires.
+     */
+    Expiry NEVER = () -> false;
+
+    boolean isExpired();
+
+    /**
+     * @param timeout how long from now the work is still wanted
+     * @return an expiry that expires once the timeout has elapsed
+     */
+    static Expiry after(Duration timeout) {
+        long deadlineNanos = System.nanoTime() + timeout.toNanos();
+        return () -> System.nanoTime() - deadlineNanos > 0;
+    }
+
+    /**
+     * @return this expiry, or the other one, whichever expires first
+     */
+    default Expiry or(Expiry other) {
+        return () -> isExpired() || other.isExpired();
+    }
+
+    /**
+     * @param task a task submitted to an executor
+     * @return true if the task declares an expiry that has expired
+     */
+    static boolean isExpired(Object task) {
+        return task instanceof ExpiringTask expiringTask && expiringTask.expiry().isExpired();
+    }
+
+    /**
+     * @param task a task submitted to an executor
+     * @return the expiry declared by the task, or {@link #NEVER} if the task does not declare one
+     */
+    static Expiry declaredBy(Object task) {
+        if (task instanceof ExpiringTask expiringTask) {
+            return expiringTask.expiry();
+        }
+        return NEVER;
+    }
+}
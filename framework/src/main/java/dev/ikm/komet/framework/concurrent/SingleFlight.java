@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.concurrent;
+
+import dev.ikm.tinkar.common.service.TinkExecutor;
+import dev.ikm.tinkar.common.service.TrackingCallable;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates in-flight background work by a caller supplied key. While a task submitted with a key is queued
+ * or running, further submissions with an equal key return the existing future instead of queuing a duplicate.
+ * Once the task completes, is cancelled, or fails, the key is released and the next submission starts a new task.
+ * <p>
+ * Keys may be any object with value semantics, such as a {@link String} like {@code "search:<query>"}
+ * or a {@link java.util.List} of the parts that determine the result. Include everything the result depends on,
+ * for example the view coordinate, so that a changed input starts a new task rather than joining a stale one.
+ * <p>
+ * For {@link TrackingCallable} work, {@link #track(Object, Supplier)} returns the shared {@link TaskWrapper}.
+ * All callers see the same progress, and cancelling it cancels the work for every caller. The supplier is only
+ * invoked when no task is in flight for the key, so it is safe to construct tasks with side effects there.
+ */
+public final class SingleFlight {
+    private static final ConcurrentHashMap<Object, Future<?>> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static final LongAdder COALESCED_COUNT = new LongAdder();
+
+    private SingleFlight() {
+    }
+
+    public static <V> TaskWrapper<V> track(Object key, Supplier<? extends TrackingCallable<V>> taskSupplier) {
+        return track(key, taskSupplier, TinkExecutor.threadPool());
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> TaskWrapper<V> track(Object key, Supplier<? extends TrackingCallable<V>> taskSupplier, Executor executor) {
+        TaskWrapper<V>[] created = new TaskWrapper[1];
+        Future<?> future = IN_FLIGHT.compute(key, (k, existing) -> {
+            if (existing != null && !existing.isDone()) {
+                return existing;
+            }
+            created[0] = TaskWrapper.make(taskSupplier.get());
+            return created[0];
+        });
+        if (created[0] == null) {
+            COALESCED_COUNT.increment();
+            return (TaskWrapper<V>) future;
+        }
+        TaskWrapper<V> taskWrapper = created[0];
+        taskWrapper.whenDone(() -> IN_FLIGHT.remove(key, taskWrapper));
+        executor.execute(taskWrapper);
+        return taskWrapper;
+    }
+
+    public static <V> Future<V> submit(Object key, Callable<V> callable) {
+        return submit(key, callable, TinkExecutor.threadPool());
+    }
+
+    public static <V> Future<V> submit(Object key, Callable<V> callable, Executor executor) {
+        return coalesce(key, () -> new KeyedFutureTask<>(key, callable, TaskPriority.declaredBy(callable)), executor);
+    }
+
+    public static Future<?> execute(Object key, Runnable runnable) {
+        return execute(key, runnable, TinkExecutor.threadPool());
+    }
+
+    public static Future<?> execute(Object key, Runnable runnable, Executor executor) {
+        return coalesce(key, () -> new KeyedFutureTask<>(key, runnable, TaskPriority.declaredBy(runnable)), executor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Future<V> coalesce(Object key, Supplier<KeyedFutureTask<V>> taskSupplier, Executor executor) {
+        KeyedFutureTask<V>[] created = new KeyedFutureTask[1];
+        Future<?> future = IN_FLIGHT.compute(key, (k, existing) -> {
+            if (existing != null && !existing.isDone()) {
+                return existing;
+            }
+            created[0] = taskSupplier.get();
+            return created[0];
+        });
+        if (created[0] == null) {
+            COALESCED_COUNT.increment();
+            return (Future<V>) future;
+        }
+        executor.execute(created[0]);
+        return created[0];
+    }
+
+    /**
+     * @return the number of keys with a queued or running task.
+     */
+    public static int inFlightCount() {
+        return IN_FLIGHT.size();
+    }
+
+    /**
+     * @return the number of submissions that joined an in-flight task rather than starting a new one.
+     */
+    public static long coalescedCount() {
+        return COALESCED_COUNT.sum();
+    }
+
+    private static class KeyedFutureTask<V> extends FutureTask<V> implements PrioritizedTask, ExpiringTask {
+        private final Object key;
+        private final TaskPriority taskPriority;
+        private final Expiry expiry;
+
+        private KeyedFutureTask(Object key, Callable<V> callable, TaskPriority taskPriority) {
+            super(callable);
+            this.key = key;
+            this.taskPriority = taskPriority;
+            this.expiry = Expiry.declaredBy(callable);
+        }
+
+        private KeyedFutureTask(Object key, Runnable runnable, TaskPriority taskPriority) {
+            super(runnable, null);
+            this.key = key;
+            this.taskPriority = taskPriority;
+            this.expiry = Expiry.declaredBy(runnable);
+        }
+
+        @Override
+        public TaskPriority taskPriority() {
+            return taskPriority;
+        }
+
+        @Override
+        public Expiry expiry() {
+            return expiry;
+        }
+
+        @Override
+        protected void done() {
+            IN_FLIGHT.remove(key, this);
+        }
+    }
+}
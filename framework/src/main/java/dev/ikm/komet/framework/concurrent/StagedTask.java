@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.concurrent;
+
+import dev.ikm.tinkar.common.service.TinkExecutor;
+import dev.ikm.tinkar.common.service.TrackingCallable;
+import dev.ikm.tinkar.common.util.time.DateTimeUtil;
+import javafx.concurrent.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * A task made of sequential stages, where each stage is submitted to the executor when the previous one
+ * completes. No thread is held waiting between stages, so a long-running pipeline occupies at most one pool
+ * thread at a time, and only while a stage is actually working.
+ * <p>
+ * Subclasses compose their stages in {@link #pipeline()} with {@link #stage(String, TrackingCallable)} and
+ * {@link CompletableFuture#thenCompose}. Each stage shows in the task lists under its own title and progress,
+ * while this task reports the overall step and progress. Call {@link #start()} to run the pipeline; cancelling
+ * this task from the task lists, or cancelling the returned future, cancels the running stage and skips the rest.
+ * <p>
+ * Submitting this task to an executor directly also works, but then that thread is held until the last stage
+ * completes.
+ *
+ * @param <V> the result type of the pipeline
+ */
+public abstract class StagedTask<V> extends TrackingCallable<V> implements PrioritizedTask {
+    private static final Logger LOG = LoggerFactory.getLogger(StagedTask.class);
+
+    private final int stageCount;
+    private final Executor executor;
+    private int stagesStarted;
+    private volatile CompletableFuture<?> currentStage;
+
+    protected StagedTask(int stageCount) {
+        this(stageCount, TinkExecutor.threadPool());
+    }
+
+    protected StagedTask(int stageCount, Executor executor) {
+        super(true, true);
+        this.stageCount = stageCount;
+        this.executor = executor;
+        updateProgress(0, stageCount);
+    }
+
+    /**
+     * Composes the stages of this task. Called once, from the thread that starts the task.
+     *
+     * @return a future that completes with the result of the last stage
+     */
+    protected abstract CompletableFuture<V> pipeline() throws Exception;
+
+    @Override
+    public TaskPriority taskPriority() {
+        return TaskPriority.NORMAL;
+    }
+
+    /**
+     * Starts the pipeline and shows this task in the task lists until it completes.
+     *
+     * @return a future that completes with the result of the pipeline; cancelling it cancels the pipeline
+     */
+    public CompletableFuture<V> start() {
+        TaskWrapper<V> taskWrapper = TaskWrapper.make(this);
+        TaskListsService.get().taskExecuting(taskWrapper);
+        CompletableFuture<V> result = run();
+        // The wrapper only tracks this task for display. It is cancelled from the task lists, never run.
+        taskWrapper.whenDone(() -> result.cancel(true));
+        result.whenComplete((value, throwable) -> {
+            Supplier<Task<?>> completedTask = null;
+            if (retainWhenComplete()) {
+                String title = getTitle();
+                String message = getMessage();
+                String completionTime = DateTimeUtil.nowWithZone();
+                completedTask = () -> new CompletedTask(title, message, completionTime);
+            }
+            TaskListsService.get().taskFinished(taskWrapper, completedTask);
+        });
+        return result;
+    }
+
+    @Override
+    protected final V compute() throws Exception {
+        CompletableFuture<V> result = run();
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception exception) {
+                throw exception;
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<V> run() {
+        CompletableFuture<V> result = new CompletableFuture<>();
+        try {
+            pipeline().whenComplete((value, throwable) -> {
+                if (throwable == null) {
+                    result.complete(value);
+                } else if (throwable instanceof CompletionException && throwable.getCause() != null) {
+                    result.completeExceptionally(throwable.getCause());
+                } else {
+                    result.completeExceptionally(throwable);
+                }
+            });
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+        result.whenComplete((value, throwable) -> {
+            if (result.isCancelled()) {
+                cancel();
+                CompletableFuture<?> stage = currentStage;
+                if (stage != null) {
+                    stage.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Submits the next stage, reporting it as the current step of this task.
+     *
+     * @param message describes the stage, such as "Loading data"
+     * @param stage   the work of the stage
+     * @return a future that completes with the result of the stage
+     */
+    protected <S> CompletableFuture<S> stage(String message, TrackingCallable<S> stage) {
+        if (isCancelled()) {
+            return CompletableFuture.failedFuture(new CancellationException(getTitle()));
+        }
+        int stageNumber;
+        synchronized (this) {
+            stageNumber = ++stagesStarted;
+        }
+        String stepMessage = "Step " + stageNumber + ": " + message;
+        updateMessage(stepMessage);
+        LOG.info(stepMessage);
+        TaskWrapper<S> taskWrapper = TaskWrapper.make(stage);
+        CompletableFuture<S> stageFuture = taskWrapper.completion();
+        currentStage = stageFuture;
+        executor.execute(taskWrapper);
+        return stageFuture.thenApply(value -> {
+            updateProgress(stageNumber, stageCount);
+            return value;
+        });
+    }
+
+    /**
+     * Submits work that has no task of its own as the next stage, at the priority of this task.
+     */
+    protected <S> CompletableFuture<S> stage(String message, Callable<S> work) {
+        return stage(message, new CallableStage<>(message, work, taskPriority()));
+    }
+
+    private static class CallableStage<S> extends TrackingCallable<S> implements PrioritizedTask {
+        private final Callable<S> work;
+        private final TaskPriority taskPriority;
+
+        private CallableStage(String title, Callable<S> work, TaskPriority taskPriority) {
+            super(false, false);
+            this.work = work;
+            this.taskPriority = taskPriority;
+            updateTitle(title);
+        }
+
+        @Override
+        public TaskPriority taskPriority() {
+            return taskPriority;
+        }
+
+        @Override
+        protected S compute() throws Exception {
+            return work.call();
+        }
+    }
+}
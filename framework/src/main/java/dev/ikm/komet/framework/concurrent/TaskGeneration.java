@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts generations of repeated work of one kind, such as the refreshes of a navigator, so that queued work of an
+ * earlier generation can be dropped once a newer generation has started.
+ * <p>
+ * Call {@link #next()} when new work supersedes all earlier work, and submit the work with the returned token as
+ * its {@link Expiry}. Work that belongs to the current generation without starting a new one, such as follow-up
+ * tasks, can use {@link #current()}.
+ */
+public final class TaskGeneration {
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Starts a new generation, expiring the tokens of all earlier generations.
+     */
+    public Token next() {
+        return new Token(this, generation.incrementAndGet());
+    }
+
+    /**
+     * @return a token of the current generation, which expires when {@link #next()} is next called.
+     */
+    public Token current() {
+        return new Token(this, generation.get());
+    }
+
+    public record Token(TaskGeneration taskGeneration, long generation) implements Expiry {
+        @Override
+        public boolean isExpired() {
+            return taskGeneration.generation.get() != generation;
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent, append-only log of completed tasks, written by {@link TaskWrapper} so that slow tasks can still be
+ * found after the completed task list has rolled over or the application has restarted.
+ * <p>
+ * Records are appended to a memory-mapped file of {@value #CAPACITY_PROPERTY} megabytes (default 16), so an append is
+ * a copy into memory, and the operating system writes the pages back to disk. Each record is written before its length
+ * prefix, so a record cut short by a crash is ignored when the file is opened again. When the file is full, it is
+ * renamed with a {@code .1} suffix, replacing the previous one, and a new file is started; queries read both.
+ * <p>
+ * The shared history is kept in {@value #FILE_PROPERTY} (default {@code ~/Solor/komet/task-history.log}), and is
+ * disabled by setting {@value #ENABLED_PROPERTY} to false. A history holds an exclusive lock on a {@code .lock} file
+ * next to its file while it is open, so that two processes never write to the same mapped file; a second Komet
+ * process started on the same file runs without a shared history.
+ */
+public class TaskHistory implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(TaskHistory.class);
+    public static final String ENABLED_PROPERTY = "komet.task.history";
+    public static final String FILE_PROPERTY = "komet.task.history.file";
+    public static final String CAPACITY_PROPERTY = "komet.task.history.capacity.mb";
+    private static final int MAGIC = 0x4B544831;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_STRING_BYTES = Short.MAX_VALUE;
+
+    private static Optional<TaskHistory> shared;
+
+    private final Path file;
+    private final Path previousFile;
+    private final int capacity;
+    private final FileChannel lockChannel;
+    private MappedByteBuffer buffer;
+    private boolean closed;
+
+    /**
+     * Opens the history in the given file, continuing after the records it already holds.
+     *
+     * @param capacity the size of each file, in bytes
+     * @throws InUseException if another history, in this or another process, has the file open
+     */
+    public TaskHistory(Path file, int capacity) throws IOException {
+        this.file = file;
+        this.previousFile = file.resolveSibling(file.getFileName() + ".1");
+        this.capacity = capacity;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        // The lock is taken on a separate file, since the history file itself is renamed when it is rotated.
+        this.lockChannel = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (tryLock(lockChannel) == null) {
+                throw new InUseException(file);
+            }
+            this.buffer = map(file, capacity);
+            if (buffer.getInt(0) == MAGIC) {
+                buffer.position(endOfRecords(buffer));
+            } else if (buffer.getInt(0) == 0 && buffer.getInt(HEADER_BYTES) == 0) {
+                buffer.putInt(0, MAGIC);
+                buffer.position(HEADER_BYTES);
+            } else {
+                LOG.warn("{} is not a task history, starting a new one", file);
+                rotate();
+            }
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another history in this process
+            return null;
+        }
+    }
+
+    /**
+     * @return the history shared by all tasks, or empty if it is disabled or could not be opened
+     */
+    public static synchronized Optional<TaskHistory> shared() {
+        if (shared == null) {
+            shared = Optional.empty();
+            if (Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))) {
+                String fileName = System.getProperty(FILE_PROPERTY);
+                Path file = fileName != null ? Path.of(fileName) :
+                        Path.of(System.getProperty("user.home"), "Solor", "komet", "task-history.log");
+                int capacity = Integer.getInteger(CAPACITY_PROPERTY, 16) * 1024 * 1024;
+                try {
+                    shared = Optional.of(new TaskHistory(file, capacity));
+                } catch (InUseException e) {
+                    LOG.info("{}, task history is disabled for this process", e.getMessage());
+                } catch (IOException | RuntimeException e) {
+                    LOG.warn("Unable to open the task history in " + file, e);
+                }
+            }
+        }
+        return shared;
+    }
+
+    private static MappedByteBuffer map(Path file, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacity, channel.size()));
+        }
+    }
+
+    private static int endOfRecords(ByteBuffer records) {
+        int position = HEADER_BYTES;
+        while (position + Integer.BYTES <= records.limit()) {
+            int length = records.getInt(position);
+            if (length <= 0 || length > records.limit() - position - Integer.BYTES) {
+                break;
+            }
+            position += Integer.BYTES + length;
+        }
+        return position;
+    }
+
+    public synchronized void append(TaskHistoryRecord record) {
+        if (closed) {
+            return;
+        }
+        byte[] title = utf8(record.title());
+        byte[] exceptionClass = utf8(record.exceptionClass());
+        int length = 5 * Long.BYTES + 1 + Short.BYTES + title.length + Short.BYTES + exceptionClass.length;
+        try {
+            if (buffer.remaining() < 2 * Integer.BYTES + length) {
+                if (HEADER_BYTES + 2 * Integer.BYTES + length > capacity) {
+                    return;
+                }
+                rotate();
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to start a new task history file, task history stopped", e);
+            closed = true;
+            return;
+        }
+        int start = buffer.position();
+        buffer.position(start + Integer.BYTES);
+        buffer.putLong(record.submitted().toEpochMilli());
+        buffer.putLong(record.started().toEpochMilli());
+        buffer.putLong(record.ended().toEpochMilli());
+        buffer.putLong(record.queueWait().toNanos());
+        buffer.putLong(record.runTime().toNanos());
+        buffer.put((byte) record.outcome().ordinal());
+        buffer.putShort((short) title.length);
+        buffer.put(title);
+        buffer.putShort((short) exceptionClass.length);
+        buffer.put(exceptionClass);
+        // The length goes in last, so readers never see a partially written record.
+        buffer.putInt(start, length);
+    }
+
+    private void rotate() throws IOException {
+        buffer.force();
+        buffer = null;
+        Files.move(file, previousFile, StandardCopyOption.REPLACE_EXISTING);
+        buffer = map(file, capacity);
+        buffer.putInt(0, MAGIC);
+        buffer.position(HEADER_BYTES);
+    }
+
+    private static byte[] utf8(String string) {
+        if (string == null) {
+            return new byte[0];
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            return string.substring(0, MAX_STRING_BYTES / 4).getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return all records in the history, oldest first
+     */
+    public List<TaskHistoryRecord> records() {
+        List<TaskHistoryRecord> records = new ArrayList<>();
+        try {
+            if (Files.exists(previousFile)) {
+                ByteBuffer previous = ByteBuffer.wrap(Files.readAllBytes(previousFile));
+                if (previous.limit() >= HEADER_BYTES && previous.getInt(0) == MAGIC) {
+                    read(previous, endOfRecords(previous), records);
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to read the task history in " + previousFile, e);
+        }
+        synchronized (this) {
+            if (!closed) {
+                read(buffer.duplicate(), buffer.position(), records);
+            }
+        }
+        return records;
+    }
+
+    private static void read(ByteBuffer records, int end, List<TaskHistoryRecord> into) {
+        records.limit(end).position(HEADER_BYTES);
+        try {
+            while (records.remaining() > Integer.BYTES) {
+                records.getInt();
+                Instant submitted = Instant.ofEpochMilli(records.getLong());
+                Instant started = Instant.ofEpochMilli(records.getLong());
+                Instant ended = Instant.ofEpochMilli(records.getLong());
+                Duration queueWait = Duration.ofNanos(records.getLong());
+                Duration runTime = Duration.ofNanos(records.getLong());
+                TaskHistoryRecord.Outcome outcome = TaskHistoryRecord.Outcome.values()[records.get()];
+                String title = readString(records);
+                String exceptionClass = readString(records);
+                into.add(new TaskHistoryRecord(title, submitted, started, ended, queueWait, runTime, outcome,
+                        exceptionClass.isEmpty() ? null : exceptionClass));
+            }
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            LOG.warn("Task history record is damaged, ignoring the rest of the file");
+        }
+    }
+
+    private static String readString(ByteBuffer records) {
+        byte[] bytes = new byte[records.getShort()];
+        records.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the slowest runs of the tasks with the given title, slowest first
+     */
+    public List<TaskHistoryRecord> slowest(String title, int limit) {
+        return records().stream()
+                .filter(record -> record.title().equals(title))
+                .sorted(Comparator.comparing(TaskHistoryRecord::runTime).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * @return the slowest runs of any task, slowest first
+     */
+    public List<TaskHistoryRecord> slowest(int limit) {
+        return records().stream()
+                .sorted(Comparator.comparing(TaskHistoryRecord::runTime).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * @return run time and queue wait percentiles of each task title, for tasks that ended at or after {@code since}
+     */
+    public Map<String, TitleStats> statsByTitle(Instant since) {
+        return records().stream()
+                .filter(record -> !record.ended().isBefore(since))
+                .collect(Collectors.groupingBy(TaskHistoryRecord::title, TreeMap::new, Collectors.toList()))
+                .entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> TitleStats.of(entry.getKey(), entry.getValue()),
+                        (a, b) -> a, TreeMap::new));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            buffer.force();
+        }
+        if (lockChannel.isOpen()) {
+            try {
+                // Closing the channel releases the lock.
+                lockChannel.close();
+            } catch (IOException e) {
+                LOG.warn("Unable to release the lock on " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Thrown when a task history file is already open in this or another process.
+     */
+    public static class InUseException extends IOException {
+        public InUseException(Path file) {
+            super("Task history " + file + " is in use by another process");
+        }
+    }
+
+    /**
+     * Run time and queue wait percentiles of the tasks with one title.
+     */
+    public record TitleStats(String title, int count, int failedCount, int cancelledCount,
+                             Duration p50RunTime, Duration p90RunTime, Duration p99RunTime, Duration maxRunTime,
+                             Duration p50QueueWait, Duration p99QueueWait) {
+
+        static TitleStats of(String title, List<TaskHistoryRecord> records) {
+            List<Duration> runTimes = records.stream().map(TaskHistoryRecord::runTime).sorted().toList();
+            List<Duration> queueWaits = records.stream().map(TaskHistoryRecord::queueWait).sorted().toList();
+            int failed = (int) records.stream().filter(record -> record.outcome() == TaskHistoryRecord.Outcome.FAILED).count();
+            int cancelled = (int) records.stream().filter(record -> record.outcome() == TaskHistoryRecord.Outcome.CANCELLED).count();
+            return new TitleStats(title, records.size(), failed, cancelled,
+                    percentile(runTimes, 50), percentile(runTimes, 90), percentile(runTimes, 99), runTimes.getLast(),
+                    percentile(queueWaits, 50), percentile(queueWaits, 99));
+        }
+
+        private static Duration percentile(List<Duration> sorted, int percentile) {
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+            return sorted.get(Math.max(0, rank - 1));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.concurrent;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * One completed task in the {@link TaskHistory}.
+ *
+ * @param title          the title of the task, or its class name if it had none
+ * @param submitted      when the task was created for submission
+ * @param started        when the task started running; equal to {@code ended} if it was cancelled before it started
+ * @param ended          when the task finished
+ * @param queueWait      how long the task waited before it started
+ * @param runTime        how long the task ran
+ * @param outcome        how the task finished
+ * @param exceptionClass the class of the exception the task failed with, or null
+ */
+public record TaskHistoryRecord(String title, Instant submitted, Instant started, Instant ended,
+                                Duration queueWait, Duration runTime, Outcome outcome, String exceptionClass) {
+
+    public enum Outcome {SUCCEEDED, FAILED, CANCELLED}
+}
@@ -15,10 +15,21 @@
  */
 package dev.ikm.komet.framework.concurrent;
 
+import javafx.application.Platform;
 import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
 
+import java.util.function.Supplier;
+
+/**
+ * Lists of pending, executing and completed tasks shown in the progress and completion views. The lists must only
+ * be read on the JavaFX application thread. Task state changes are reported through {@link #taskPending(Task)},
+ * {@link #taskExecuting(Task)} and {@link #taskFinished(Task, Supplier)}, which may be called from any thread;
+ * implementations may batch them and apply them to the lists later on the JavaFX application thread.
+ */
 public interface TaskListsService {
+    int MAX_COMPLETED_TASKS = 200;
+
     static TaskListsService get() {
         return TaskListsProviderFinder.INSTANCE.get();
     }
@@ -28,4 +39,45 @@ static TaskListsService get() {
     ObservableList<Task<?>> executingTasks();
 
     ObservableList<Task<?>> completedTasks();
+
+    default void taskPending(Task<?> task) {
+        runOnFxThread(() -> {
+            if (!pendingTasks().contains(task)) {
+                pendingTasks().add(task);
+            }
+        });
+    }
+
+    default void taskExecuting(Task<?> task) {
+        runOnFxThread(() -> {
+            pendingTasks().remove(task);
+            executingTasks().add(task);
+        });
+    }
+
+    /**
+     * @param task the task that succeeded, failed or was cancelled
+     * @param completedTask creates the record to add to the completed tasks, called on the JavaFX application
+     *                      thread, or null if the task is not retained
+     */
+    default void taskFinished(Task<?> task, Supplier<? extends Task<?>> completedTask) {
+        runOnFxThread(() -> {
+            pendingTasks().remove(task);
+            executingTasks().remove(task);
+            if (completedTask != null) {
+                completedTasks().add(0, completedTask.get());
+                if (completedTasks().size() > MAX_COMPLETED_TASKS) {
+                    completedTasks().remove(MAX_COMPLETED_TASKS, completedTasks().size());
+                }
+            }
+        });
+    }
+
+    private static void runOnFxThread(Runnable runnable) {
+        if (Platform.isFxApplicationThread()) {
+            runnable.run();
+        } else {
+            Platform.runLater(runnable);
+        }
+    }
 }
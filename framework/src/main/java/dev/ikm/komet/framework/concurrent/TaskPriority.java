@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.concurrent;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Priority classes for background work. Executors that support priorities run queued
+ * {@link #INTERACTIVE} work before {@link #NORMAL} work, and {@link #NORMAL} work before {@link #BULK} work.
+ * Within a class, tasks run in submission order.
+ * <p>
+ * A task declares its class by implementing {@link PrioritizedTask}; a lambda can be wrapped with
+ * {@link #runnable(Runnable)} or {@link #callable(Callable)}. Tasks that declare nothing inherit the class of the
+ * task that submitted them, or are {@link #NORMAL} when submitted from outside a prioritized task.
+ * <p>
+ * The wrappers can also carry an {@link Expiry}, so that the executor drops the work if it is obsolete by the
+ * time it would start.
+ */
+public enum TaskPriority {
+    /**
+     * Work a user is waiting on: search, tree expansion, details refresh.
+     */
+    INTERACTIVE,
+    /**
+     * Default for work that does not declare a priority.
+     */
+    NORMAL,
+    /**
+     * Long running work that can yield to everything else: reasoner, import/export, semantic table loads.
+     */
+    BULK;
+
+    /**
+     * @param task a task submitted to an executor
+     * @return the declared priority of the task, or null if the task does not declare one
+     */
+    public static TaskPriority declaredBy(Object task) {
+        if (task instanceof PrioritizedTask prioritizedTask) {
+            return prioritizedTask.taskPriority();
+        }
+        return null;
+    }
+
+    public Runnable runnable(Runnable runnable) {
+        return new PrioritizedRunnable(this, runnable, Expiry.NEVER);
+    }
+
+    public Runnable runnable(Runnable runnable, Expiry expiry) {
+        return new PrioritizedRunnable(this, runnable, expiry);
+    }
+
+    public <V> Callable<V> callable(Callable<V> callable) {
+        return new PrioritizedCallable<>(this, callable, Expiry.NEVER);
+    }
+
+    public <V> Callable<V> callable(Callable<V> callable, Expiry expiry) {
+        return new PrioritizedCallable<>(this, callable, expiry);
+    }
+
+    private record PrioritizedRunnable(TaskPriority taskPriority, Runnable runnable, Expiry expiry)
+            implements Runnable, PrioritizedTask, ExpiringTask {
+        @Override
+        public void run() {
+            runnable.run();
+        }
+    }
+
+    private record PrioritizedCallable<V>(TaskPriority taskPriority, Callable<V> callable, Expiry expiry)
+            implements Callable<V>, PrioritizedTask, ExpiringTask {
+        @Override
+        public V call() throws Exception {
+            return callable.call();
+        }
+    }
+}
@@ -15,18 +15,34 @@
  */
 package dev.ikm.komet.framework.concurrent;
 
+import dev.ikm.komet.framework.SessionScope;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
 import dev.ikm.tinkar.common.service.TrackingCallable;
 import dev.ikm.tinkar.common.service.TrackingListener;
 import dev.ikm.tinkar.common.util.time.DateTimeUtil;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
-public class TaskWrapper<V> extends Task<V> implements TrackingListener<V> {
-    private static int maxCompletedTaskListSize = 200;
+public class TaskWrapper<V> extends Task<V> implements TrackingListener<V>, PrioritizedTask, ExpiringTask {
     private final TrackingCallable<V> trackingCallable;
     private final Consumer<V> appThreadConsumer;
+    // The session that created the task, current again when its result is handed to the application thread.
+    private final SessionScope scope = SessionScope.current();
+    private final List<Runnable> doneActions = new CopyOnWriteArrayList<>();
+    // Timings for the TaskHistory; a wrapper is created when its task is submitted.
+    private final long submittedMillis = System.currentTimeMillis();
+    private final long submittedNanos = System.nanoTime();
+    private volatile long startedMillis;
+    private volatile long startedNanos;
 
     private TaskWrapper(TrackingCallable<V> trackingCallable) {
         this.trackingCallable = trackingCallable;
@@ -50,40 +66,121 @@ public static <V> TaskWrapper<V> make(TrackingCallable<V> trackingCallable, Cons
         return new TaskWrapper<>(trackingCallable, appThreadConsumer);
     }
 
+    @Override
+    public TaskPriority taskPriority() {
+        return TaskPriority.declaredBy(trackingCallable);
+    }
+
+    @Override
+    public Expiry expiry() {
+        return Expiry.declaredBy(trackingCallable);
+    }
+
     @Override
     protected V call() throws Exception {
+        startedMillis = System.currentTimeMillis();
+        startedNanos = System.nanoTime();
+        TaskListsService.get().taskExecuting(this);
         V result = trackingCallable.call();
         if (appThreadConsumer != null) {
-            Platform.runLater(() -> appThreadConsumer.accept(result));
+            Platform.runLater(() -> scope.run(() -> appThreadConsumer.accept(result)));
         }
         return result;
     }
 
-    @Override
-    protected void scheduled() {
-        TaskListsService.get().pendingTasks().add(this);
+    /**
+     * Returns a future that completes with the outcome of this task, without blocking a thread while waiting.
+     * Cancelling the returned future cancels this task.
+     */
+    public CompletableFuture<V> completion() {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        whenDone(() -> {
+            try {
+                future.complete(get());
+            } catch (CancellationException e) {
+                future.cancel(false);
+            } catch (ExecutionException e) {
+                future.completeExceptionally(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+            }
+        });
+        future.whenComplete((value, throwable) -> {
+            if (future.isCancelled()) {
+                cancel(true);
+            }
+        });
+        return future;
     }
 
-    @Override
-    protected void running() {
-        TaskListsService.get().pendingTasks().remove(this);
-        TaskListsService.get().executingTasks().add(this);
+    /**
+     * Runs the action on the thread that completes, cancels or fails this task, or immediately if this task
+     * is already done.
+     */
+    void whenDone(Runnable action) {
+        doneActions.add(action);
+        if (isDone() && doneActions.remove(action)) {
+            action.run();
+        }
     }
 
     @Override
-    protected void succeeded() {
-        TaskListsService.get().executingTasks().remove(this);
-        handleRetention();
+    protected void done() {
+        super.done();
+        TaskListsService.get().taskFinished(this, isCancelled() ? null : completedTaskForRetention());
+        TaskHistory.shared().ifPresent(this::recordHistory);
+        for (Runnable action : doneActions) {
+            if (doneActions.remove(action)) {
+                action.run();
+            }
+        }
     }
 
-    private void handleRetention() {
-        if (this.trackingCallable.retainWhenComplete()) {
-            CompletedTask completedTask = new CompletedTask(this.getTitle(), this.getMessage(), DateTimeUtil.nowWithZone());
-            TaskListsService.get().completedTasks().add(0, completedTask);
-            if (TaskListsService.get().completedTasks().size() > maxCompletedTaskListSize) {
-                TaskListsService.get().completedTasks().remove(maxCompletedTaskListSize, TaskListsService.get().completedTasks().size());
+    private void recordHistory(TaskHistory history) {
+        long endedMillis = System.currentTimeMillis();
+        long endedNanos = System.nanoTime();
+        long startedNanos = this.startedNanos;
+        long startedMillis = startedNanos == 0 ? endedMillis : this.startedMillis;
+        if (startedNanos == 0) {
+            startedNanos = endedNanos;
+        }
+        TaskHistoryRecord.Outcome outcome = TaskHistoryRecord.Outcome.SUCCEEDED;
+        String exceptionClass = null;
+        if (isCancelled()) {
+            outcome = TaskHistoryRecord.Outcome.CANCELLED;
+        } else {
+            try {
+                get();
+            } catch (ExecutionException e) {
+                outcome = TaskHistoryRecord.Outcome.FAILED;
+                exceptionClass = e.getCause().getClass().getName();
+            } catch (CancellationException | InterruptedException e) {
+                outcome = TaskHistoryRecord.Outcome.CANCELLED;
             }
         }
+        String title = trackingCallable.getTitle();
+        if (title == null || title.isBlank()) {
+            title = trackingCallable.getClass().getName();
+        }
+        history.append(new TaskHistoryRecord(title, Instant.ofEpochMilli(submittedMillis),
+                Instant.ofEpochMilli(startedMillis), Instant.ofEpochMilli(endedMillis),
+                Duration.ofNanos(startedNanos - submittedNanos), Duration.ofNanos(endedNanos - startedNanos),
+                outcome, exceptionClass));
+    }
+
+    /**
+     * Creates the completed task record on the JavaFX application thread, from the title and message of the
+     * tracked task when it completed.
+     */
+    private Supplier<Task<?>> completedTaskForRetention() {
+        if (this.trackingCallable.retainWhenComplete()) {
+            String title = this.trackingCallable.getTitle();
+            String message = this.trackingCallable.getMessage();
+            String completionTime = DateTimeUtil.nowWithZone();
+            return () -> new CompletedTask(title, message, completionTime);
+        }
+        return null;
     }
 
     @Override
@@ -93,8 +190,6 @@ protected void cancelled() {
 
     @Override
     protected void failed() {
-        TaskListsService.get().executingTasks().remove(this);
-        handleRetention();
         //Failure notification handled by afterExecute(Runnable r, Throwable t) on KometThreadPoolExecutor and KometScheduledExecutor
         //Platform.runLater(() -> showExceptionDialog());
     }
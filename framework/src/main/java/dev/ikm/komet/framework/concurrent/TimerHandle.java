@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.concurrent;
+
+/**
+ * Handle to a timer scheduled through a {@link TimerService}. Cancelling is cheap and may be done from any thread,
+ * so a timer may be cancelled and replaced on every keystroke or resize event.
+ */
+public interface TimerHandle {
+
+    /**
+     * Cancels the timer if it has not fired yet.
+     *
+     * @return true if this call cancelled the timer, false if it had already fired or been cancelled
+     */
+    boolean cancel();
+
+    boolean isCancelled();
+
+    /**
+     * @return true if the timer has neither fired nor been cancelled
+     */
+    boolean isPending();
+}
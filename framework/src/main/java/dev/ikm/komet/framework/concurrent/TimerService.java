@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.concurrent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules large numbers of short timers, such as debounce delays and timeouts, that are usually cancelled before
+ * they fire. Scheduling and cancelling take constant time. Timers are not precise: a timer fires within one tick
+ * after its delay has elapsed, and its action runs on the given executor, never on the timer thread itself, with
+ * the {@link dev.ikm.komet.framework.SessionScope} that was current when it was scheduled.
+ * <p>
+ * For work that must run at a precise time, or repeatedly, use the scheduled executor of
+ * {@link dev.ikm.tinkar.common.service.TinkExecutor#scheduled()} instead.
+ */
+public interface TimerService {
+
+    static TimerService get() {
+        return TimerServiceFinder.INSTANCE.get();
+    }
+
+    /**
+     * Runs the action on the default background executor once the delay has elapsed.
+     */
+    TimerHandle schedule(Runnable action, long delay, TimeUnit unit);
+
+    /**
+     * Runs the action on the given executor once the delay has elapsed.
+     */
+    TimerHandle schedule(Runnable action, long delay, TimeUnit unit, Executor executor);
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.concurrent;
+
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+public enum TimerServiceFinder {
+    INSTANCE;
+
+    TimerService service;
+
+    TimerServiceFinder() {
+        Class serviceClass = TimerService.class;
+        ServiceLoader<TimerService> serviceLoader = ServiceLoader.load(serviceClass);
+        Optional<TimerService> optionalService = serviceLoader.findFirst();
+        if (optionalService.isPresent()) {
+            this.service = optionalService.get();
+        } else {
+            throw new NoSuchElementException("No " + serviceClass.getName() +
+                    " found by ServiceLoader...");
+        }
+    }
+
+    public TimerService get() {
+        return service;
+    }
+
+}
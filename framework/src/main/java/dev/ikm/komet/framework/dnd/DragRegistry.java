@@ -18,7 +18,6 @@
 import java.util.Collections;
 import java.util.Set;
 import java.util.WeakHashMap;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
@@ -29,6 +28,8 @@
 
 import dev.ikm.komet.framework.Dialogs;
 import dev.ikm.komet.framework.FxUtils;
+import dev.ikm.komet.framework.concurrent.TimerHandle;
+import dev.ikm.komet.framework.concurrent.TimerService;
 import dev.ikm.tinkar.common.service.CachingService;
 import dev.ikm.tinkar.common.service.TinkExecutor;
 import javafx.application.Platform;
@@ -72,7 +73,7 @@ public static DragRegistry get() {
     }
 
     private final AtomicLong dragStartedAt = new AtomicLong();
-    private ScheduledFuture<?> timedDragCancel;
+    private TimerHandle timedDragCancel;
     /**
      * To enable garbage collection,
      */
@@ -319,15 +320,13 @@ public synchronized void conceptDragStarted() {
         }).forEachOrdered((n) -> {
             n.setEffect(FxUtils.LIGHT_GREEN_DROP_SHADOW);
         });
-        timedDragCancel = TinkExecutor.scheduled().schedule(()
+        timedDragCancel = TimerService.get().schedule(()
                 -> {
             if (dragStartedAt.get() > 0) {
                 LOG.warn("Unclosed drag event is still active 10 seconds after starting!  Cleaning up...");
-                Platform.runLater(() -> {
-                    conceptDragCompleted();
-                });
+                conceptDragCompleted();
             }
-        }, 10, TimeUnit.SECONDS);
+        }, 10, TimeUnit.SECONDS, Platform::runLater);
     }
 
     public synchronized void conceptDragCompleted() {
@@ -337,7 +336,7 @@ public synchronized void conceptDragCompleted() {
             n.setEffect(existingEffect.remove(n));
         });
         if (timedDragCancel != null) {
-            timedDragCancel.cancel(false);
+            timedDragCancel.cancel();
             timedDragCancel = null;
         }
     }
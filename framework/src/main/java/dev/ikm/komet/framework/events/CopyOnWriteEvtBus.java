@@ -0,0 +1,297 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Event Bus for many publishers and few subscription changes.
+ * <p>
+ * A subscriber to an event class also receives the events of its subclasses. The subscriptions of a topic are kept
+ * in an immutable map that is replaced, never modified, when a subscriber is added or removed. Next to it, each topic
+ * has a dispatch table from concrete event class to every subscriber of that class or one of its superclasses, filled
+ * in on the first publish of each class and discarded whenever the subscriptions of the topic change. Publishing
+ * looks up the current dispatch table entry and calls each subscriber in turn, without locking, copying or logging,
+ * so it is safe and cheap from any thread. A subscriber added or removed while an event is being published may or
+ * may not receive that event. Subscribers with a queued {@link Delivery} only have the event queued on the
+ * publishing thread.
+ * <p>
+ * Topics given to {@link #retain(Object, int, long)} keep their most recent events in a bounded {@link ReplayBuffer},
+ * and subscribers that subscribe with a {@link Replay} receive them before later events. Publishing to such a topic
+ * holds the lock of its buffer while the event is added and its subscribers are looked up, so each subscriber
+ * receives each event exactly once, either replayed or published. A replaying subscriber is registered behind a
+ * {@link ReplayingSubscriber}, which holds back the events published to it until the replayed ones have been handed
+ * over, so it receives them in the order they were published.
+ */
+@EvtBusName("CopyOnWriteEvtBus")
+public class CopyOnWriteEvtBus implements EvtBus {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CopyOnWriteEvtBus.class);
+    private static final Subscriber<?>[] NO_SUBSCRIBERS = new Subscriber<?>[0];
+
+    // topic -> subscriptions and dispatch table
+    private final ConcurrentMap<Object, Topic> topics = new ConcurrentHashMap<>();
+    // topic -> recent events, for topics that retain them
+    private final ConcurrentMap<Object, ReplayBuffer> replayBuffers = new ConcurrentHashMap<>();
+
+    public CopyOnWriteEvtBus() {}
+
+    /**
+     * publish an event to a topic
+     * @param topic the topic
+     * @param evt the custom event
+     * @param <T> the custom type of the event
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Evt> void publish(Object topic, T evt) {
+        ReplayBuffer replayBuffer = replayBuffers.get(topic);
+        Subscriber<?>[] subscribers;
+        if (replayBuffer == null) {
+            subscribers = subscribers(topic, evt.getClass());
+        } else {
+            long size = replayBuffer.estimatedBytes(evt);
+            synchronized (replayBuffer) {
+                replayBuffer.add(evt, size);
+                subscribers = subscribers(topic, evt.getClass());
+            }
+        }
+        for (Subscriber<?> subscriber : subscribers) {
+            ((Subscriber<T>) subscriber).handle(evt);
+        }
+    }
+
+    private Subscriber<?>[] subscribers(Object topic, Class<?> eventClass) {
+        Topic subscriptions = topics.get(topic);
+        return subscriptions == null ? NO_SUBSCRIBERS : subscriptions.subscribers(eventClass);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Evt> void subscribe(Object topic, Class<T> eventClass, Subscriber<T> subscriber, Delivery delivery, Replay replay) {
+        Subscriber<T> registered = delivery.wrap(subscriber);
+        ReplayBuffer replayBuffer = replayBuffers.get(topic);
+        if (replayBuffer == null || replay == Replay.NONE) {
+            subscribe(topic, eventClass, registered);
+            return;
+        }
+        List<Evt> replayed;
+        ReplayingSubscriber<T> replaying = new ReplayingSubscriber<>(registered);
+        synchronized (replayBuffer) {
+            replayed = replayBuffer.replay(eventClass, replay);
+            subscribe(topic, eventClass, replaying);
+        }
+        replaying.replay((List<T>) replayed);
+    }
+
+    @Override
+    public void retain(Object topic, int maxEvents, long maxBytes) {
+        retain(topic, maxEvents, maxBytes, ReplayBuffer::shallowBytes);
+    }
+
+    @Override
+    public void retain(Object topic, int maxEvents, long maxBytes, ToLongFunction<? super Evt> sizer) {
+        if (maxEvents <= 0) {
+            replayBuffers.remove(topic);
+        } else {
+            replayBuffers.put(topic, new ReplayBuffer(maxEvents, maxBytes, sizer));
+        }
+    }
+
+    /**
+     * @return the number of events retained for the topic
+     */
+    public int retainedEventCount(Object topic) {
+        ReplayBuffer replayBuffer = replayBuffers.get(topic);
+        return replayBuffer == null ? 0 : replayBuffer.size();
+    }
+
+    /**
+     * @return the estimated memory used by the events retained for the topic, in bytes
+     */
+    public long retainedBytes(Object topic) {
+        ReplayBuffer replayBuffer = replayBuffers.get(topic);
+        return replayBuffer == null ? 0 : replayBuffer.bytes();
+    }
+
+    /**
+     * @return the estimated memory used by the events retained for all topics, in bytes
+     */
+    public long retainedBytes() {
+        return replayBuffers.values().stream().mapToLong(ReplayBuffer::bytes).sum();
+    }
+
+    /**
+     * subscribe to a topic
+     * @param topic the topic
+     * @param subscriber the subscriber, which also receives the events of subclasses of the event class
+     */
+    @Override
+    public <T extends Evt> void subscribe(Object topic, Class<T> eventClass, Subscriber<T> subscriber) {
+        topics.compute(topic, (key, subscriptions) -> {
+            Map<Class<?>, Subscriber<?>[]> registered = new HashMap<>(subscriptions == null ? Map.of() : subscriptions.registered);
+            registered.merge(eventClass, new Subscriber<?>[]{subscriber}, (subscribers, added) -> {
+                Subscriber<?>[] copy = Arrays.copyOf(subscribers, subscribers.length + 1);
+                copy[subscribers.length] = subscriber;
+                return copy;
+            });
+            return new Topic(registered);
+        });
+    }
+
+    /**
+     * unsubscribe from a topic
+     * @param topic the topic
+     * @param subscriber the subscriber
+     */
+    @Override
+    public <T extends Evt> void unsubscribe(Object topic, Class<T> eventClass, Subscriber<T> subscriber) {
+        if (!topics.containsKey(topic)) {
+            LOG.warn("Unsubscribing Topic: %s, eventClass: %s, subscriber: %s. contains no subscriber ".formatted(topic, eventClass.getName(), String.valueOf(subscriber)));
+            return;
+        }
+        topics.computeIfPresent(topic, (key, subscriptions) -> {
+            Subscriber<?>[] subscribers = subscriptions.registered.get(eventClass);
+            if (subscribers == null) {
+                return subscriptions;
+            }
+            Subscriber<?>[] remaining = Arrays.stream(subscribers)
+                    .filter(existing -> !QueuedSubscriber.matches(ReplayingSubscriber.unwrap(existing), subscriber))
+                    .toArray(Subscriber<?>[]::new);
+            Arrays.stream(subscribers)
+                    .map(ReplayingSubscriber::unwrap)
+                    .filter(existing -> QueuedSubscriber.matches(existing, subscriber))
+                    .forEach(QueuedSubscriber::closeIfQueued);
+            Map<Class<?>, Subscriber<?>[]> registered = new HashMap<>(subscriptions.registered);
+            if (remaining.length == 0) {
+                registered.remove(eventClass);
+            } else {
+                registered.put(eventClass, remaining);
+            }
+            return registered.isEmpty() ? null : new Topic(registered);
+        });
+    }
+
+    /**
+     * Registered in place of a subscriber that is being sent the events retained for its topic. Events published to
+     * it meanwhile are held back and handed over after the replayed ones, by the subscribing thread; once none are
+     * left it passes events straight through.
+     */
+    private static final class ReplayingSubscriber<T extends Evt> implements Subscriber<T> {
+        private final Subscriber<T> subscriber;
+        private final ArrayDeque<T> heldBack = new ArrayDeque<>();
+        private volatile boolean replaying = true;
+
+        private ReplayingSubscriber(Subscriber<T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        static Subscriber<?> unwrap(Subscriber<?> registered) {
+            return registered instanceof ReplayingSubscriber<?> replaying ? replaying.subscriber : registered;
+        }
+
+        @Override
+        public void handle(T evt) {
+            if (replaying) {
+                synchronized (this) {
+                    if (replaying) {
+                        heldBack.addLast(evt);
+                        return;
+                    }
+                }
+            }
+            subscriber.handle(evt);
+        }
+
+        void replay(List<T> replayed) {
+            try {
+                for (T evt : replayed) {
+                    subscriber.handle(evt);
+                }
+                while (true) {
+                    T evt;
+                    synchronized (this) {
+                        evt = heldBack.pollFirst();
+                        if (evt == null) {
+                            replaying = false;
+                            return;
+                        }
+                    }
+                    subscriber.handle(evt);
+                }
+            } finally {
+                if (replaying) {
+                    // The subscriber failed; stop holding events back so it is not left without any.
+                    synchronized (this) {
+                        replaying = false;
+                        heldBack.clear();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "ReplayingSubscriber{" + subscriber + '}';
+        }
+    }
+
+    /**
+     * The subscriptions of one topic, replaced as a whole when they change, and the dispatch table resolved from them.
+     */
+    private static final class Topic {
+        private final Map<Class<?>, Subscriber<?>[]> registered;
+        private final ConcurrentMap<Class<?>, Subscriber<?>[]> dispatch = new ConcurrentHashMap<>();
+
+        private Topic(Map<Class<?>, Subscriber<?>[]> registered) {
+            this.registered = Map.copyOf(registered);
+        }
+
+        private Subscriber<?>[] subscribers(Class<?> eventClass) {
+            Subscriber<?>[] subscribers = dispatch.get(eventClass);
+            if (subscribers == null) {
+                subscribers = dispatch.computeIfAbsent(eventClass, this::resolve);
+            }
+            return subscribers;
+        }
+
+        /**
+         * @return the subscribers of the event class, followed by those of each of its superclasses in turn
+         */
+        private Subscriber<?>[] resolve(Class<?> eventClass) {
+            List<Subscriber<?>> subscribers = new ArrayList<>();
+            for (Class<?> type = eventClass; type != null && Evt.class.isAssignableFrom(type); type = type.getSuperclass()) {
+                Subscriber<?>[] typeSubscribers = registered.get(type);
+                if (typeSubscribers != null) {
+                    subscribers.addAll(Arrays.asList(typeSubscribers));
+                }
+            }
+            return subscribers.isEmpty() ? NO_SUBSCRIBERS : subscribers.toArray(Subscriber<?>[]::new);
+        }
+    }
+
+}
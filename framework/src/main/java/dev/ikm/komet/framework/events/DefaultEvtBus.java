@@ -46,14 +46,16 @@ public DefaultEvtBus() {}
     public <T extends Evt> void publish(Object topic, T evt) {
         // if there is no topic then create one as a String
         LOG.info(evt.getSource().toString());
-        // event class name is the key -> List<Subscriber>
-        String eventClassName = evt.getClass().getName();
+        // event class name is the key -> List<Subscriber>, subscribers to superclasses receive the event as well
         subscribersMap.putIfAbsent(topic, new HashMap<>());
         Map<String, List<Subscriber>> eventNameAndSubscribers = subscribersMap.get(topic);
-        eventNameAndSubscribers.putIfAbsent(eventClassName, new ArrayList<>());
-        List<Subscriber> subscribers = eventNameAndSubscribers.get(eventClassName).stream().toList();
-        if (null != subscribers && !subscribers.isEmpty()) {
-            subscribers.forEach(s -> s.handle(evt));
+        for (Class<?> eventClass = evt.getClass(); Evt.class.isAssignableFrom(eventClass); eventClass = eventClass.getSuperclass()) {
+            String eventClassName = eventClass.getName();
+            eventNameAndSubscribers.putIfAbsent(eventClassName, new ArrayList<>());
+            List<Subscriber> subscribers = eventNameAndSubscribers.get(eventClassName).stream().toList();
+            if (null != subscribers && !subscribers.isEmpty()) {
+                subscribers.forEach(s -> s.handle(evt));
+            }
         }
     }
 
@@ -90,7 +92,13 @@ public <T extends Evt> void unsubscribe(Object topic, Class<T> eventClass, Subsc
 
         List<Subscriber> subscribers = eventNameAndSubscribers.get(eventClass.getName());
         if (null != subscribers && !subscribers.isEmpty()) {
-            subscribers.removeIf(subscriber::equals);
+            subscribers.removeIf(existing -> {
+                if (QueuedSubscriber.matches(existing, subscriber)) {
+                    QueuedSubscriber.closeIfQueued(existing);
+                    return true;
+                }
+                return false;
+            });
         }
     }
 
@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.events;
+
+import dev.ikm.tinkar.common.service.TinkExecutor;
+import javafx.application.Platform;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Where and how an {@link EvtBus} delivers events to a subscriber, given with
+ * {@link EvtBus#subscribe(Object, Class, Subscriber, Delivery)}.
+ * <p>
+ * With {@link #caller()} delivery the subscriber runs on the publishing thread, before publish returns. With any
+ * other delivery, events are put on a bounded queue of the subscriber and handed to it, in order, on its executor,
+ * so a slow subscriber does not hold up the publisher or the other subscribers. When the queue is full, the
+ * {@link Overflow} policy decides whether the publisher waits or an event is dropped. With {@link #coalesce()},
+ * an event identical to the last one still queued is not queued again.
+ *
+ * @param executor the executor the subscriber runs on, or null to run it on the publishing thread
+ * @param capacity the most events queued for the subscriber
+ * @param overflow what to do when the queue is full
+ * @param coalesceIdentical whether to skip an event identical to the last queued event
+ */
+public record Delivery(Executor executor, int capacity, Overflow overflow, boolean coalesceIdentical) {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    /**
+     * Runs each drain of a {@link #worker()} subscriber on a new virtual thread.
+     */
+    private static final Executor WORKER_EXECUTOR = runnable -> Thread.ofVirtual().name("Komet-event-delivery").start(runnable);
+
+    public enum Overflow {
+        /**
+         * The publisher waits until the queue has room. The JavaFX application thread, and the subscriber itself
+         * when it publishes, never wait; for them the oldest queued event is dropped instead.
+         */
+        BLOCK,
+        /**
+         * The oldest queued event is dropped, so the subscriber sees the most recent events.
+         */
+        DROP_OLDEST,
+        /**
+         * The new event is dropped.
+         */
+        DROP_NEWEST
+    }
+
+    public Delivery {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Delivery capacity must be at least 1: " + capacity);
+        }
+    }
+
+    /**
+     * @return delivery on the publishing thread, before publish returns
+     */
+    public static Delivery caller() {
+        return new Delivery(null, DEFAULT_CAPACITY, Overflow.BLOCK, false);
+    }
+
+    /**
+     * @return queued delivery on the JavaFX application thread, dropping the oldest events when the queue is full
+     */
+    public static Delivery fxThread() {
+        return new Delivery(Platform::runLater, DEFAULT_CAPACITY, Overflow.DROP_OLDEST, false);
+    }
+
+    /**
+     * @return queued delivery on a thread of its own, making publishers wait when the queue is full. The events are
+     * not drained on the {@link TinkExecutor#threadPool()}, since a publisher running there that waits for room
+     * could hold the very worker the drain needs.
+     */
+    public static Delivery worker() {
+        return new Delivery(WORKER_EXECUTOR, DEFAULT_CAPACITY, Overflow.BLOCK, false);
+    }
+
+    /**
+     * @return queued delivery on the given executor, making publishers wait when the queue is full. If publishers
+     * may run on the same executor, use a dropping {@link Overflow}, so they cannot wait on a drain that needs their
+     * thread.
+     */
+    public static Delivery on(Executor executor) {
+        return new Delivery(executor, DEFAULT_CAPACITY, Overflow.BLOCK, false);
+    }
+
+    public Delivery withCapacity(int capacity) {
+        return new Delivery(executor, capacity, overflow, coalesceIdentical);
+    }
+
+    public Delivery withOverflow(Overflow overflow) {
+        return new Delivery(executor, capacity, overflow, coalesceIdentical);
+    }
+
+    /**
+     * Skips an event that is identical to the last event still queued for the subscriber: equal to it, or of the same
+     * class with the same source and event type. Only use it for events that carry no other state.
+     */
+    public Delivery coalesce() {
+        return new Delivery(executor, capacity, overflow, true);
+    }
+
+    /**
+     * @return the subscriber itself for {@link #caller()} delivery, otherwise a subscriber that queues the events
+     * for it
+     */
+    <T extends Evt> Subscriber<T> wrap(Subscriber<T> subscriber) {
+        if (executor == null) {
+            return subscriber;
+        }
+        return new QueuedSubscriber<>(subscriber, this);
+    }
+}
@@ -15,6 +15,7 @@
  */
 package dev.ikm.komet.framework.events;
 
+import java.util.function.ToLongFunction;
 
 /**
  * Event Bus. Allow components in the Komet Application to communicate
@@ -28,10 +29,54 @@ public interface EvtBus {
     /**
      * subscribe to a topic
      * @param topic the topic name
-     * @param subscriber subscriber to the topic
+     * @param subscriber subscriber to the topic, which also receives the events of subclasses of the event class
      */
     <T extends Evt> void subscribe(Object topic, Class<T> eventClass, Subscriber<T> subscriber);
 
+    /**
+     * subscribe to a topic, with events delivered as given
+     * @param topic the topic name
+     * @param subscriber subscriber to the topic
+     * @param delivery the thread the subscriber runs on, and how events are queued for it
+     */
+    default <T extends Evt> void subscribe(Object topic, Class<T> eventClass, Subscriber<T> subscriber, Delivery delivery) {
+        subscribe(topic, eventClass, delivery.wrap(subscriber));
+    }
+
+    /**
+     * subscribe to a topic, first receiving events retained for it (see {@link #retain(Object, int, long)})
+     * @param topic the topic name
+     * @param subscriber subscriber to the topic
+     * @param delivery the thread the subscriber runs on, and how events are queued for it
+     * @param replay which retained events the subscriber receives first
+     */
+    default <T extends Evt> void subscribe(Object topic, Class<T> eventClass, Subscriber<T> subscriber, Delivery delivery, Replay replay) {
+        subscribe(topic, eventClass, subscriber, delivery);
+    }
+
+    /**
+     * retain the most recent events published to a topic, for subscribers that subscribe later with a {@link Replay}.
+     * Event buses that cannot replay events ignore this.
+     * @param topic the topic name
+     * @param maxEvents the most events retained, or 0 to stop retaining events
+     * @param maxBytes the most memory the retained events may use, as estimated by the event bus from the event
+     *                 objects alone, without what they refer to
+     */
+    default void retain(Object topic, int maxEvents, long maxBytes) {
+    }
+
+    /**
+     * retain the most recent events published to a topic, estimating the memory each event uses with a sizer.
+     * Event buses that cannot replay events ignore this.
+     * @param topic the topic name
+     * @param maxEvents the most events retained, or 0 to stop retaining events
+     * @param maxBytes the most memory the retained events may use, as estimated by the sizer
+     * @param sizer estimates the memory an event uses, in bytes; called on the publishing thread for each event
+     */
+    default void retain(Object topic, int maxEvents, long maxBytes, ToLongFunction<? super Evt> sizer) {
+        retain(topic, maxEvents, maxBytes);
+    }
+
     /**
      * unsubscribe to the topic
      * @param topic the topic name
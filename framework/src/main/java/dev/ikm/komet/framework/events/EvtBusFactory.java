@@ -15,33 +15,67 @@
  */
 package dev.ikm.komet.framework.events;
 
+import dev.ikm.komet.framework.SessionScope;
+
 import java.util.HashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.ServiceLoader;
 
 /**
  * Factory class to create and return an Event Bus implementation
+ * <p>
+ * The {@link EvtBus} implementations are found by the ServiceLoader. The default event bus, returned for the
+ * {@link EvtBus} class itself, is the one named by the {@value #EVT_BUS_PROPERTY} system property (see
+ * {@link EvtBusName}), or else the first one found, which is the {@link CopyOnWriteEvtBus}.
+ * <p>
+ * The instances are held per {@link SessionScope}, so each JPro session publishes to its own buses and the
+ * buses of a session are dropped, with their subscribers, when the session is closed. The desktop application
+ * uses the buses of {@link SessionScope#GLOBAL}.
  */
 public class EvtBusFactory {
 
-    // collection of EvtBus implementations
-    private static final Map<String, EvtBus> evtBusMap = new HashMap<>();
+    public static final String EVT_BUS_PROPERTY = "komet.evtbus";
 
     private EvtBusFactory() {}
 
+    /**
+     * @return the EvtBus implementations of the current session, guarded by the class lock
+     */
+    private static Map<String, EvtBus> evtBusMap() {
+        return SessionScope.current().computeIfAbsent(EvtBusFactory.class, scope -> new HashMap<String, EvtBus>());
+    }
+
     /**
      * Get instance by class definition, this is the preferred approach. If a caller uses EvtBus class the Default is returned event bus is returned.
      * @param clazz the class definition
      * @return the EvtBus implementation
      */
-    public static EvtBus getInstance(Class clazz) {
+    public static synchronized EvtBus getInstance(Class clazz) {
+        Map<String, EvtBus> evtBusMap = evtBusMap();
         if (null == evtBusMap.get(clazz.getSimpleName())) {
-            EvtBus bus = (EvtBus) ServiceLoader.load(clazz).findFirst().get();
+            EvtBus bus;
+            String selectedName = System.getProperty(EVT_BUS_PROPERTY);
+            if (clazz == EvtBus.class && selectedName != null) {
+                bus = getInstance(selectedName);
+                if (bus == null) {
+                    throw new NoSuchElementException("No EvtBus named " + selectedName + " found by ServiceLoader...");
+                }
+            } else if (clazz == EvtBus.class) {
+                bus = ServiceLoader.load(EvtBus.class).findFirst().get();
+            } else {
+                bus = ServiceLoader.load(EvtBus.class)
+                        .stream()
+                        .filter(evtBusProvider -> evtBusProvider.type() == clazz)
+                        .map(ServiceLoader.Provider::get)
+                        .findFirst()
+                        .orElseThrow(() -> new NoSuchElementException("No " + clazz.getName() + " found by ServiceLoader..."));
+            }
             if (clazz == EvtBus.class) {
                 evtBusMap.put(clazz.getSimpleName(), bus);
             }
-            evtBusMap.put(bus.getClass().getSimpleName(), bus);
+            evtBusMap.putIfAbsent(bus.getClass().getSimpleName(), bus);
         }
         return evtBusMap.get(clazz.getSimpleName());
     }
@@ -51,7 +85,8 @@ public static EvtBus getInstance(Class clazz) {
      * @param name the class definition
      * @return the EvtBus implementation
      */
-    public static EvtBus getInstance(String name) {
+    public static synchronized EvtBus getInstance(String name) {
+        Map<String, EvtBus> evtBusMap = evtBusMap();
         if (null == evtBusMap.get(name)) {
             Optional<EvtBus> optBus = ServiceLoader.load(EvtBus.class)
                     .stream()
@@ -68,10 +103,10 @@ public static EvtBus getInstance(String name) {
     }
 
     /**
-     * This will create a singleton of the Default event bus implementation.
-     * @return A default event bus implementation to be used.
+     * This will create a singleton of the default event bus implementation.
+     * @return A default event bus implementation to be used, the same instance as {@code getInstance(EvtBus.class)}.
      */
     public static EvtBus getDefaultEvtBus() {
-        return getInstance(DefaultEvtBus.class);
+        return getInstance(EvtBus.class);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.events;
+
+import dev.ikm.komet.framework.SessionScope;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Queues events for a subscriber and hands them to it on the executor of its {@link Delivery}. At most one drain
+ * runs at a time, so the subscriber sees its events one at a time and in order. A drain hands over at most
+ * {@value #MAX_BATCH} events before it is resubmitted, so a busy subscriber does not hold an executor thread, or the
+ * JavaFX application thread, for long. Events are handed over with the {@link SessionScope} of the subscription
+ * current, since the thread of the delivery may serve every session.
+ */
+final class QueuedSubscriber<T extends Evt> implements Subscriber<T>, Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(QueuedSubscriber.class);
+    private static final int MAX_BATCH = 64;
+
+    private final Subscriber<T> subscriber;
+    private final Delivery delivery;
+    private final SessionScope scope = SessionScope.current();
+    private final ArrayDeque<T> queue = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private boolean scheduled;
+    private boolean closed;
+    private volatile Thread drainThread;
+    private long droppedCount;
+
+    QueuedSubscriber(Subscriber<T> subscriber, Delivery delivery) {
+        this.subscriber = subscriber;
+        this.delivery = delivery;
+    }
+
+    /**
+     * @return true if {@code existing}, as registered with a bus, is the given subscriber or queues events for it
+     */
+    static boolean matches(Subscriber<?> existing, Subscriber<?> subscriber) {
+        if (existing instanceof QueuedSubscriber<?> queuedSubscriber) {
+            return queuedSubscriber == subscriber || queuedSubscriber.subscriber.equals(subscriber);
+        }
+        return existing.equals(subscriber);
+    }
+
+    /**
+     * Stops delivery after the subscriber has been removed from its bus, discarding the queued events.
+     */
+    static void closeIfQueued(Subscriber<?> subscriber) {
+        if (subscriber instanceof QueuedSubscriber<?> queuedSubscriber) {
+            queuedSubscriber.close();
+        }
+    }
+
+    @Override
+    public void handle(T evt) {
+        boolean schedule;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            if (delivery.coalesceIdentical() && !queue.isEmpty() && identical(queue.peekLast(), evt)) {
+                return;
+            }
+            while (queue.size() >= delivery.capacity()) {
+                Delivery.Overflow overflow = delivery.overflow();
+                if (overflow == Delivery.Overflow.BLOCK
+                        && (Platform.isFxApplicationThread() || Thread.currentThread() == drainThread)) {
+                    overflow = Delivery.Overflow.DROP_OLDEST;
+                }
+                switch (overflow) {
+                    case DROP_NEWEST -> {
+                        dropped();
+                        return;
+                    }
+                    case DROP_OLDEST -> {
+                        queue.pollFirst();
+                        dropped();
+                    }
+                    case BLOCK -> {
+                        try {
+                            notFull.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            dropped();
+                            return;
+                        }
+                        if (closed) {
+                            return;
+                        }
+                    }
+                }
+            }
+            queue.addLast(evt);
+            schedule = !scheduled;
+            scheduled = true;
+        } finally {
+            lock.unlock();
+        }
+        if (schedule) {
+            delivery.executor().execute(this);
+        }
+    }
+
+    private static boolean identical(Evt queued, Evt evt) {
+        return queued.equals(evt) || (queued.getClass() == evt.getClass()
+                && queued.getSource() == evt.getSource()
+                && queued.getEventType() == evt.getEventType());
+    }
+
+    private void dropped() {
+        droppedCount++;
+        if (Long.bitCount(droppedCount) == 1) {
+            LOG.warn("Dropped {} events for slow subscriber {}", droppedCount, subscriber);
+        }
+    }
+
+    /**
+     * Hands queued events to the subscriber; runs on the delivery executor.
+     */
+    @Override
+    public void run() {
+        scope.run(this::drain);
+    }
+
+    private void drain() {
+        boolean handedOver = false;
+        try {
+            for (int i = 0; i < MAX_BATCH; i++) {
+                T evt;
+                lock.lock();
+                try {
+                    evt = queue.pollFirst();
+                    if (evt == null || closed) {
+                        scheduled = false;
+                        handedOver = true;
+                        return;
+                    }
+                    notFull.signal();
+                    drainThread = Thread.currentThread();
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    subscriber.handle(evt);
+                } catch (RuntimeException e) {
+                    LOG.error("Subscriber " + subscriber + " failed to handle " + evt, e);
+                } finally {
+                    drainThread = null;
+                }
+            }
+            delivery.executor().execute(this);
+            handedOver = true;
+        } finally {
+            if (!handedOver) {
+                // An Error from the subscriber, or a rejected resubmission, ended this drain; let the next event
+                // schedule a new one rather than leave the subscriber without delivery.
+                lock.lock();
+                try {
+                    scheduled = false;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            queue.clear();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "QueuedSubscriber{" + subscriber + '}';
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.events;
+
+/**
+ * Which of the events retained for a topic (see {@link EvtBus#retain(Object, int, long)}) a new subscriber receives
+ * when it subscribes, before any event published later.
+ */
+public enum Replay {
+    /**
+     * No retained events.
+     */
+    NONE,
+    /**
+     * The most recent retained event of the subscribed class, for topics whose events carry the current state.
+     */
+    LATEST,
+    /**
+     * Every retained event of the subscribed class, oldest first.
+     */
+    ALL
+}
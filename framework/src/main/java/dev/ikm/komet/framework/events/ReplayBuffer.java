@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.events;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * The most recent events published to one topic, bounded by a number of events and by their estimated size.
+ * <p>
+ * The size of an event is estimated by the sizer given when the topic was retained. The default sizer,
+ * {@link #shallowBytes(Evt)}, only counts the fields of the event's class, so it costs a lookup per publish; it
+ * does not follow any reference, neither to the source of the event, which belongs to the publisher, nor to a
+ * payload, which may be part of a live object graph such as an observable collection. Topics whose events carry
+ * large payloads give a sizer that knows their shape. The size is estimated before the buffer is locked.
+ */
+final class ReplayBuffer {
+    private static final int OBJECT_HEADER_BYTES = 12;
+    private static final int REFERENCE_BYTES = 4;
+    private static final ClassValue<Long> SHALLOW_BYTES = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long size = OBJECT_HEADER_BYTES;
+            for (Class<?> declaring = type; declaring != null; declaring = declaring.getSuperclass()) {
+                for (Field field : declaring.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        size += fieldBytes(field.getType());
+                    }
+                }
+            }
+            return align(size);
+        }
+    };
+
+    private final int maxEvents;
+    private final long maxBytes;
+    private final ToLongFunction<? super Evt> sizer;
+    private final ArrayDeque<Evt> events = new ArrayDeque<>();
+    private final ArrayDeque<Long> eventBytes = new ArrayDeque<>();
+    private long bytes;
+
+    ReplayBuffer(int maxEvents, long maxBytes, ToLongFunction<? super Evt> sizer) {
+        this.maxEvents = maxEvents;
+        this.maxBytes = maxBytes;
+        this.sizer = sizer;
+    }
+
+    private static int fieldBytes(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE_BYTES;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * @return the memory used by the event object itself, without the objects it refers to
+     */
+    static long shallowBytes(Evt evt) {
+        return SHALLOW_BYTES.get(evt.getClass());
+    }
+
+    /**
+     * @return the estimated memory used by the event, plus its slot in the buffer
+     */
+    long estimatedBytes(Evt evt) {
+        return REFERENCE_BYTES + sizer.applyAsLong(evt);
+    }
+
+    /**
+     * @param size the {@linkplain #estimatedBytes(Evt) estimated size} of the event
+     */
+    synchronized void add(Evt evt, long size) {
+        events.addLast(evt);
+        eventBytes.addLast(size);
+        bytes += size;
+        while (!events.isEmpty() && (events.size() > maxEvents || bytes > maxBytes)) {
+            events.pollFirst();
+            bytes -= eventBytes.pollFirst();
+        }
+    }
+
+    /**
+     * @return the retained events of the event class or its subclasses, as selected by the replay
+     */
+    synchronized List<Evt> replay(Class<?> eventClass, Replay replay) {
+        List<Evt> replayed = new ArrayList<>();
+        if (replay == Replay.LATEST) {
+            for (Iterator<Evt> iterator = events.descendingIterator(); iterator.hasNext(); ) {
+                Evt evt = iterator.next();
+                if (eventClass.isInstance(evt)) {
+                    replayed.add(evt);
+                    break;
+                }
+            }
+        } else if (replay == Replay.ALL) {
+            for (Evt evt : events) {
+                if (eventClass.isInstance(evt)) {
+                    replayed.add(evt);
+                }
+            }
+        }
+        return replayed;
+    }
+
+    synchronized int size() {
+        return events.size();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+}
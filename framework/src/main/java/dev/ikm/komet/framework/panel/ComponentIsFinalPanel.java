@@ -23,6 +23,7 @@
 import javafx.scene.control.ContentDisplay;
 import javafx.scene.control.TitledPane;
 import javafx.scene.layout.BorderPane;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.komet.framework.observable.*;
 import dev.ikm.komet.framework.panel.concept.ConceptVersionPanel;
 import dev.ikm.komet.framework.panel.pattern.PatternVersionPanel;
@@ -66,7 +67,7 @@ public ComponentIsFinalPanel(ES component, ViewProperties viewProperties,
         Platform.runLater(() -> referencedNids.add(component.nid()));
         // TODO finish good identicon graphic.
         // this.collapsiblePane.setGraphic(Identicon.generateIdenticon(component.publicId(), 24, 24));
-        TinkExecutor.threadPool().execute(() -> {
+        TinkExecutor.threadPool().execute(TaskPriority.INTERACTIVE.runnable(() -> {
             Latest<OV> latestComponent = component.getLatestVersion();
             latestComponent.ifPresent(latestVersion -> {
                 Platform.runLater(() -> addVersionPanel(latestVersion, true));
@@ -83,7 +84,7 @@ public ComponentIsFinalPanel(ES component, ViewProperties viewProperties,
                 }
             }
             Platform.runLater(() -> addSemanticReferences(component, topEnclosingComponentProperty));
-        });
+        }, renderExpiry(topEnclosingComponentProperty)));
     }
 
     private void addVersionPanel(OV version, boolean expanded) {
@@ -23,6 +23,8 @@
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.VBox;
 import dev.ikm.komet.framework.StyleClasses;
+import dev.ikm.komet.framework.concurrent.Expiry;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.komet.framework.observable.*;
 import dev.ikm.komet.framework.panel.concept.ConceptPanel;
 import dev.ikm.komet.framework.panel.pattern.PatternPanel;
@@ -76,9 +78,22 @@ public VBox getComponentPanelBox() {
         return componentPanelBox;
     }
 
+    /**
+     * Returns an expiry for queued rendering work, which expires once the enclosing component changes and the
+     * details are rendered again. Must be called on the JavaFX application thread. Workers read the property
+     * without synchronization, so at worst they run work that just became obsolete.
+     */
+    protected static Expiry renderExpiry(SimpleObjectProperty<EntityFacade> topEnclosingComponentProperty) {
+        if (topEnclosingComponentProperty == null) {
+            return Expiry.NEVER;
+        }
+        EntityFacade renderedComponent = topEnclosingComponentProperty.get();
+        return () -> topEnclosingComponentProperty.get() != renderedComponent;
+    }
+
     protected void addSemanticReferences(ObservableEntitySnapshot entity, SimpleObjectProperty<EntityFacade> topEnclosingComponentProperty) {
         if (entity != null) {
-            TinkExecutor.threadPool().execute(() -> {
+            TinkExecutor.threadPool().execute(TaskPriority.INTERACTIVE.runnable(() -> {
                 PrimitiveData.get().forEachSemanticNidForComponent(entity.nid(), semanticNid -> {
                     Platform.runLater(() -> referencedNids.add(semanticNid));
                     SemanticEntity semanticEntity = Entity.getFast(semanticNid);
@@ -90,7 +105,7 @@ protected void addSemanticReferences(ObservableEntitySnapshot entity, SimpleObje
                         });
                     }
                 });
-            });
+            }, renderExpiry(topEnclosingComponentProperty)));
         }
     }
 
@@ -25,5 +25,22 @@ static StatementStore make(Statement... statements) {
 
     ImmutableList<Statement> statementsForTopic(Topic topic);
 
+    /**
+     * @return the statements about the component with the nid, of any topic
+     */
+    ImmutableList<Statement> statementsForComponent(int componentNid);
+
+    /**
+     * @return the statements of the topic about the component with the nid
+     */
+    ImmutableList<Statement> statementsForComponent(int componentNid, Topic topic);
+
     void addStatement(Statement statement);
+
+    int size();
+
+    /**
+     * @return an estimate of the memory used by the store
+     */
+    long estimatedMemoryBytes();
 }
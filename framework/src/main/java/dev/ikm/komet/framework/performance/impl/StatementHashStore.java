@@ -15,35 +15,138 @@
  */
 package dev.ikm.komet.framework.performance.impl;
 
-import org.eclipse.collections.api.factory.Lists;
-import org.eclipse.collections.api.list.ImmutableList;
-import org.eclipse.collections.api.list.MutableList;
+import dev.ikm.komet.framework.panel.axiom.AxiomSubjectRecord;
 import dev.ikm.komet.framework.performance.Statement;
 import dev.ikm.komet.framework.performance.StatementStore;
 import dev.ikm.komet.framework.performance.Topic;
+import dev.ikm.tinkar.entity.EntityVersion;
+import dev.ikm.tinkar.terms.EntityFacade;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.ImmutableList;
 
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * A statement store that may be shared between the JavaFX application thread and rule worker threads.
+ * <p>
+ * Statements are indexed by {@link Topic}, and by topic and the nid of their subject, so the statements about a
+ * component are found without scanning. Lookups by subject return the stored immutable list, which is replaced
+ * on each addition, so readers never see a list that is being changed.
+ * <p>
+ * The subject of a statement is indexed when it is an entity, an entity version, or an axiom (indexed by the
+ * semantic containing the axiom). Statements with other subjects are only found by topic.
+ */
 public class StatementHashStore implements StatementStore {
-    HashMap<Topic, MutableList<Statement>> observationMap = new HashMap<>();
+    /**
+     * Approximate bytes of index overhead for a statement: its node in the queue of its topic.
+     */
+    private static final int BYTES_PER_STATEMENT = 24;
+    /**
+     * Approximate bytes of index overhead for a subject of a topic: a map node, the boxed nid, and a list.
+     */
+    private static final int BYTES_PER_SUBJECT = 96;
+    /**
+     * Bytes of a slot in a subject list, assuming compressed references.
+     */
+    private static final int BYTES_PER_REFERENCE = 4;
+
+    private final EnumMap<Topic, TopicIndex> topicMap = new EnumMap<>(Topic.class);
+    private final ConcurrentHashMap<Integer, ImmutableList<Statement>> subjectMap = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong subjectListSlots = new AtomicLong();
+
+    /**
+     * The statements of one topic. The map of topics is filled when the store is made and not changed after,
+     * so it may be read without locking.
+     */
+    private static final class TopicIndex {
+        final ConcurrentLinkedQueue<Statement> statements = new ConcurrentLinkedQueue<>();
+        final ConcurrentHashMap<Integer, ImmutableList<Statement>> subjectMap = new ConcurrentHashMap<>();
+    }
 
     public StatementHashStore(Statement... statements) {
+        for (Topic topic : Topic.values()) {
+            topicMap.put(topic, new TopicIndex());
+        }
         addStatements(statements);
     }
 
     private void addStatements(Statement... statements) {
         for (Statement statement : statements) {
-            observationMap.computeIfAbsent(statement.topic(), topic -> Lists.mutable.empty()).add(statement);
+            TopicIndex topicIndex = topicMap.get(statement.topic());
+            topicIndex.statements.add(statement);
+            OptionalInt subjectNid = subjectNid(statement.subject());
+            if (subjectNid.isPresent()) {
+                topicIndex.subjectMap.merge(subjectNid.getAsInt(), Lists.immutable.of(statement), ImmutableList::newWithAll);
+                subjectMap.merge(subjectNid.getAsInt(), Lists.immutable.of(statement), ImmutableList::newWithAll);
+                subjectListSlots.addAndGet(2);
+            }
+            size.incrementAndGet();
         }
     }
 
+    /**
+     * @return the nid of the component a subject is about, if it is indexed
+     */
+    static OptionalInt subjectNid(Object subject) {
+        if (subject instanceof EntityVersion entityVersion) {
+            return OptionalInt.of(entityVersion.nid());
+        }
+        if (subject instanceof EntityFacade entityFacade) {
+            return OptionalInt.of(entityFacade.nid());
+        }
+        if (subject instanceof AxiomSubjectRecord axiomSubject) {
+            return OptionalInt.of(axiomSubject.semanticContainingAxiom().nid());
+        }
+        return OptionalInt.empty();
+    }
+
     @Override
     public ImmutableList<Statement> statementsForTopic(Topic topic) {
-        return observationMap.getOrDefault(topic, Lists.mutable.empty()).toImmutable();
+        return Lists.immutable.ofAll(topicMap.get(topic).statements);
+    }
+
+    @Override
+    public ImmutableList<Statement> statementsForComponent(int componentNid) {
+        return subjectMap.getOrDefault(componentNid, Lists.immutable.empty());
+    }
+
+    @Override
+    public ImmutableList<Statement> statementsForComponent(int componentNid, Topic topic) {
+        return topicMap.get(topic).subjectMap.getOrDefault(componentNid, Lists.immutable.empty());
     }
 
     @Override
     public void addStatement(Statement statement) {
         addStatements(statement);
     }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return an estimate of the bytes held by the indexes of this store, not counting the statements themselves
+     */
+    @Override
+    public long estimatedMemoryBytes() {
+        long subjects = subjectMap.size();
+        for (TopicIndex topicIndex : topicMap.values()) {
+            subjects += topicIndex.subjectMap.size();
+        }
+        return (long) size.get() * BYTES_PER_STATEMENT + subjects * BYTES_PER_SUBJECT
+                + subjectListSlots.get() * BYTES_PER_REFERENCE;
+    }
+
+    @Override
+    public String toString() {
+        return "StatementHashStore{size=" + size() + ", subjects=" + subjectMap.size() +
+                ", estimatedMemoryBytes=" + estimatedMemoryBytes() + "}";
+    }
 }
@@ -22,5 +22,12 @@
 
     String ruleMethod();
 
+    /**
+     * @return the rule and facts that produced this consequence, or null if they were not recorded
+     */
+    default RuleProvenance provenance() {
+        return null;
+    }
+
     T get();
 }
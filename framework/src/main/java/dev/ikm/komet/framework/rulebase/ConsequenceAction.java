@@ -22,7 +22,20 @@
 
 public record ConsequenceAction(UUID consequenceUUID,
                                 String ruleMethod,
-                                GeneratedAction generatedAction) implements Consequence<GeneratedAction> {
+                                GeneratedAction generatedAction,
+                                RuleProvenance provenance) implements Consequence<GeneratedAction> {
+
+    public ConsequenceAction(UUID consequenceUUID, String ruleMethod, GeneratedAction generatedAction) {
+        this(consequenceUUID, ruleMethod, generatedAction, null);
+    }
+
+    /**
+     * A consequence named after the rule of its provenance.
+     */
+    public ConsequenceAction(RuleProvenance provenance, GeneratedAction generatedAction) {
+        this(RuleProvenance.nextUuid(), provenance.ruleId(), generatedAction, provenance);
+    }
+
     @Override
     public GeneratedAction get() {
         return generatedAction;
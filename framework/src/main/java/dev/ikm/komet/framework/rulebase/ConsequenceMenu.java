@@ -23,7 +23,20 @@
 
 public record ConsequenceMenu(UUID consequenceUUID,
                               String ruleMethod,
-                              Menu generatedMenu) implements Consequence<Menu> {
+                              Menu generatedMenu,
+                              RuleProvenance provenance) implements Consequence<Menu> {
+
+    public ConsequenceMenu(UUID consequenceUUID, String ruleMethod, Menu generatedMenu) {
+        this(consequenceUUID, ruleMethod, generatedMenu, null);
+    }
+
+    /**
+     * A consequence named after the rule of its provenance.
+     */
+    public ConsequenceMenu(RuleProvenance provenance, Menu generatedMenu) {
+        this(RuleProvenance.nextUuid(), provenance.ruleId(), generatedMenu, provenance);
+    }
+
     @Override
     public Menu get() {
         return generatedMenu;
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.rulebase;
+
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.ImmutableList;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The rule and the facts that produced a {@link Consequence}, kept for debugging rule results.
+ * <p>
+ * Rules name themselves with a compile-time constant, which is also the {@link Consequence#ruleMethod()} of their
+ * consequences, so recording provenance costs an object rather than a stack trace. The provenance is a field of the
+ * consequence it describes, so it lives exactly as long as the consequence does, and rules that fire in parallel
+ * share no lock to record it. Its equality is identity, so the facts are not hashed when a consequence is added to
+ * a set.
+ */
+public final class RuleProvenance {
+    private static final long UUID_MOST_SIGNIFICANT_BITS = ThreadLocalRandom.current().nextLong();
+    private static final AtomicLong UUID_SEQUENCE = new AtomicLong();
+
+    private final String ruleId;
+    private final ImmutableList<Object> facts;
+
+    /**
+     * @param ruleId the compile-time identifier of the rule, such as
+     *               {@code "ComponentFocusRules.componentFocusedAndActive"}
+     * @param facts  the facts the rule fired on
+     */
+    public RuleProvenance(String ruleId, Object... facts) {
+        this.ruleId = ruleId;
+        this.facts = Lists.immutable.of(facts);
+    }
+
+    public String ruleId() {
+        return ruleId;
+    }
+
+    public ImmutableList<Object> facts() {
+        return facts;
+    }
+
+    /**
+     * @return a UUID for a new consequence, made from a counter rather than from a secure random source
+     */
+    public static UUID nextUuid() {
+        return new UUID(UUID_MOST_SIGNIFICANT_BITS, UUID_SEQUENCE.incrementAndGet());
+    }
+
+    /**
+     * @return the provenance of the consequence, if it was recorded
+     */
+    public static Optional<RuleProvenance> of(Consequence<?> consequence) {
+        return Optional.ofNullable(consequence.provenance());
+    }
+
+    @Override
+    public String toString() {
+        return "RuleProvenance{" + ruleId + ", facts=" + facts + "}";
+    }
+}
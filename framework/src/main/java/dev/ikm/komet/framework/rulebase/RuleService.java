@@ -28,4 +28,30 @@ ImmutableList<Consequence<?>> execute(String knowledgeBaseName,
                                           ImmutableList<Statement> statements,
                                           ViewProperties viewProperties,
                                           EditCoordinate editCoordinate);
+
+    /**
+     * Evaluates several inputs, such as the versions of the components shown in a details view, with the same
+     * view and edit coordinates. Each input is evaluated on its own, as by {@link #execute}, but an implementation
+     * may share a session and the coordinate facts between them. Call it from a background thread.
+     *
+     * @param statementGroups the statements of each input
+     * @return the sorted consequences of each input, in the order of the inputs
+     */
+    default ImmutableList<ImmutableList<Consequence<?>>> executeBatch(String knowledgeBaseName,
+                                                                     ImmutableList<ImmutableList<Statement>> statementGroups,
+                                                                     ViewProperties viewProperties,
+                                                                     EditCoordinate editCoordinate) {
+        return statementGroups.collect(statements -> execute(knowledgeBaseName, statements, viewProperties, editCoordinate));
+    }
+
+    /**
+     * Opens a stateful session for a window, that evaluates only what changed when the window's focus changes.
+     *
+     * @param name a name for the session, such as the window's title
+     * @throws UnsupportedOperationException if this service has no stateful sessions
+     */
+    default StatefulRuleSession openStatefulSession(String name, ViewProperties viewProperties,
+                                                    EditCoordinate editCoordinate) {
+        throw new UnsupportedOperationException(getClass().getName() + " has no stateful sessions");
+    }
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.rulebase;
+
+import dev.ikm.komet.framework.performance.Statement;
+import dev.ikm.komet.framework.view.ViewProperties;
+import dev.ikm.tinkar.coordinate.edit.EditCoordinate;
+import org.eclipse.collections.api.list.ImmutableList;
+
+import java.util.Map;
+
+/**
+ * A long-lived rule session of a window, that keeps its facts between evaluations.
+ * <p>
+ * When the window's focus changes, {@link #setStatements} retracts the statements that are no longer focused and
+ * inserts the new ones, so only the rules that match the new statements fire. Changing the view properties or the
+ * edit coordinate evaluates the current statements again, and so does a change to the component a statement is
+ * about. A session is not shared between windows, and should be
+ * closed with its window.
+ */
+public interface StatefulRuleSession extends AutoCloseable {
+    String name();
+
+    /**
+     * Makes the statements the facts of this session: statements not in the list are retracted with their
+     * consequences, and statements not yet in the session are inserted and fired.
+     *
+     * @return the sorted consequences of all the statements
+     */
+    ImmutableList<Consequence<?>> setStatements(ImmutableList<Statement> statements);
+
+    /**
+     * @return the sorted consequences of the statements, evaluated again for the components that changed since
+     * the session was last used
+     */
+    ImmutableList<Consequence<?>> consequences();
+
+    ImmutableList<Consequence<?>> setViewProperties(ViewProperties viewProperties);
+
+    ImmutableList<Consequence<?>> setEditCoordinate(EditCoordinate editCoordinate);
+
+    /**
+     * What a session holds in its memory.
+     *
+     * @param factCount        the facts in the memory of the rule engine, including the view properties, the edit
+     *                         coordinate and the set the rules add their consequences to
+     * @param statementCount   the statements inserted
+     * @param consequenceCount the consequences kept for the statements
+     * @param factsByType      the number of facts of each type, by simple class name
+     */
+    record Memory(int factCount, int statementCount, int consequenceCount, Map<String, Integer> factsByType) {}
+
+    /**
+     * @return a snapshot of what the session holds in its memory, or an empty one if it is closed
+     */
+    Memory memory();
+
+    /**
+     * @return the number of facts in the session's memory
+     */
+    default int factCount() {
+        return memory().factCount();
+    }
+
+    /**
+     * @return the number of rule firings since the session was opened
+     */
+    long firingCount();
+
+    @Override
+    void close();
+}
@@ -17,6 +17,10 @@
 
 import dev.ikm.komet.framework.activity.ActivityStream;
 import dev.ikm.komet.framework.activity.ActivityStreams;
+import dev.ikm.komet.framework.concurrent.Debouncer;
+import dev.ikm.komet.framework.concurrent.Expiry;
+import dev.ikm.komet.framework.concurrent.SingleFlight;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.komet.framework.graphics.Icon;
 import dev.ikm.komet.framework.view.ViewMenuModel;
 import dev.ikm.komet.framework.view.ViewProperties;
@@ -26,7 +30,6 @@
 import dev.ikm.tinkar.common.id.PublicIdStringKey;
 import dev.ikm.tinkar.common.id.PublicIds;
 import dev.ikm.tinkar.common.service.PrimitiveData;
-import dev.ikm.tinkar.common.service.TinkExecutor;
 import dev.ikm.tinkar.common.util.text.NaturalOrder;
 import dev.ikm.tinkar.common.util.uuid.UuidUtil;
 import dev.ikm.tinkar.coordinate.stamp.calculator.Latest;
@@ -54,6 +57,7 @@
 import org.slf4j.LoggerFactory;
 
 import java.net.URL;
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.List;
 import java.util.OptionalInt;
@@ -87,6 +91,14 @@ public class SearchPanelController implements ListChangeListener<TreeItem<Object
     private KometPreferences nodePreferences;
     private ViewMenuModel viewMenuModel;
     private TreeItem<Object> resultsRoot = new TreeItem<>("root");
+    /**
+     * Key of the most recently requested search. Queued searches for any other key are obsolete and are dropped.
+     */
+    private volatile Object latestSearchKey;
+    /**
+     * Repeats the search once resizing or view changes have settled, rather than on every width change.
+     */
+    private final Debouncer researchDebouncer = new Debouncer(Duration.ofMillis(150), Platform::runLater, () -> doSearch(null));
 
     @FXML
     void initialize() {
@@ -116,6 +128,7 @@ void initialize() {
 
     @FXML
     void doSearch(ActionEvent event) {
+        latestSearchKey = null;
         searchTreeView.getSelectionModel().clearSelection();
         resultsRoot.getChildren().clear();
         if (queryString.getText() == null || queryString.getText().isEmpty()) {
@@ -137,7 +150,12 @@ void doSearch(ActionEvent event) {
                 addComponentFromNid(PrimitiveData.nid(PublicIds.of(uuid)));
             });
         } else {
-            TinkExecutor.threadPool().execute(() -> {
+            List<Object> searchKey = List.of("search", this, queryText,
+                    resultsLayoutCombo.getSelectionModel().getSelectedItem(),
+                    viewProperties.calculator().viewCoordinateRecord());
+            latestSearchKey = searchKey;
+            Expiry superseded = () -> !searchKey.equals(latestSearchKey);
+            SingleFlight.execute(searchKey, TaskPriority.INTERACTIVE.runnable(() -> {
                 try {
                     TreeItem<Object> tempRoot = new TreeItem<>("Temp root");
                     ImmutableList<LatestVersionSearchResult> results = viewProperties.calculator().search(queryString.getText().strip(), 1000);
@@ -199,7 +217,7 @@ void doSearch(ActionEvent event) {
                 } catch (Throwable e) {
                     AlertStreams.getRoot().dispatch(AlertObject.makeError(e.getClass().getSimpleName() + " during search", queryString.getText().strip(), e));
                 }
-            });
+            }, superseded));
         }
     }
 
@@ -296,7 +314,7 @@ public void setProperties(Region parentNode, ReadOnlyObjectProperty<PublicIdStri
     private void menuUpdate() {
         if (!resultsRoot.getChildren().isEmpty()) {
             resultsRoot.getChildren().clear();
-            Platform.runLater(() -> doSearch(null));
+            researchDebouncer.trigger();
         }
     }
 
@@ -304,19 +322,7 @@ private void setWidth(Double width) {
         this.searchTreeView.setMinWidth(width);
         this.searchTreeView.setPrefWidth(width);
         this.searchTreeView.setMaxWidth(width);
-        Platform.runLater(() -> {
-            doSearch(null);
-//            VirtualFlow<IndexedCell> vf = (VirtualFlow<IndexedCell>) this.searchTreeView.getChildrenUnmodifiable().get(0);
-//            int cellCount = vf.getCellCount();
-//            for (int i = 0; i < cellCount; i++) {
-//                SearchResultCell cell = (SearchResultCell) vf.getCell(i);
-//                Platform.runLater(() -> {
-//                    cell.updateItem(cell.getItem(), cell.isEmpty(), width);
-//                    cell.layout();
-//                });
-//            }
-//            Platform.runLater(() -> this.searchTreeView.layout());
-        });
+        researchDebouncer.trigger();
     }
 
     @Override
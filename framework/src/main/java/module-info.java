@@ -16,7 +16,9 @@
 
 import dev.ikm.komet.framework.KometNodeFactory;
 import dev.ikm.komet.framework.concurrent.TaskListsService;
+import dev.ikm.komet.framework.concurrent.TimerService;
 import dev.ikm.komet.framework.dnd.DragRegistry;
+import dev.ikm.komet.framework.events.CopyOnWriteEvtBus;
 import dev.ikm.komet.framework.events.DefaultEvtBus;
 import dev.ikm.komet.framework.rulebase.RuleService;
 import dev.ikm.komet.preferences.PreferencesService;
@@ -86,6 +88,7 @@
     requires transitive org.slf4j;
     requires transitive dev.ikm.tinkar.ext.lang.owl; // Owl expression builder
     uses TaskListsService;
+    uses TimerService;
     uses PreferencesService;
     uses KometNodeFactory;
     uses dev.ikm.tinkar.common.alert.AlertReportingService;
@@ -93,7 +96,7 @@
 
 
     provides dev.ikm.komet.framework.events.EvtBus
-            with DefaultEvtBus;
+            with CopyOnWriteEvtBus, DefaultEvtBus;
 
     uses dev.ikm.komet.framework.events.EvtBus;
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTest {
+    /**
+     * Holds submitted tasks until the test runs them, so a task stays in flight as long as the test needs.
+     */
+    private static class ManualExecutor implements Executor {
+        private final List<Runnable> queued = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            queued.add(command);
+        }
+
+        void runAll() {
+            List<Runnable> tasks = new ArrayList<>(queued);
+            queued.clear();
+            tasks.forEach(Runnable::run);
+        }
+    }
+
+    @Test
+    public void testEqualKeysJoinInFlightTask() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        AtomicInteger calls = new AtomicInteger();
+        List<String> key = List.of("search", "heart");
+        long coalesced = SingleFlight.coalescedCount();
+
+        Future<Integer> first = SingleFlight.submit(key, calls::incrementAndGet, executor);
+        Future<Integer> second = SingleFlight.submit(List.of("search", "heart"), calls::incrementAndGet, executor);
+        assertSame(first, second);
+        assertEquals(1, executor.queued.size());
+        assertEquals(coalesced + 1, SingleFlight.coalescedCount());
+
+        executor.runAll();
+        assertEquals(1, (int) first.get());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testKeyIsReleasedWhenTaskCompletes() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        AtomicInteger calls = new AtomicInteger();
+        String key = "refresh:" + System.nanoTime();
+
+        Future<Integer> first = SingleFlight.submit(key, calls::incrementAndGet, executor);
+        executor.runAll();
+        assertEquals(1, (int) first.get());
+
+        Future<Integer> second = SingleFlight.submit(key, calls::incrementAndGet, executor);
+        assertNotSame(first, second);
+        executor.runAll();
+        assertEquals(2, (int) second.get());
+    }
+
+    @Test
+    public void testKeyIsReleasedWhenTaskFailsOrIsCancelled() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        String key = "load:" + System.nanoTime();
+
+        Future<Object> failed = SingleFlight.submit(key, () -> {
+            throw new IllegalStateException("no data");
+        }, executor);
+        executor.runAll();
+        try {
+            failed.get();
+            throw new AssertionError("expected failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        Future<?> cancelled = SingleFlight.execute(key, () -> { }, executor);
+        assertNotSame(failed, cancelled);
+        cancelled.cancel(false);
+        assertNotSame(cancelled, SingleFlight.execute(key, () -> { }, executor));
+        executor.runAll();
+    }
+
+    @Test
+    public void testConcurrentSubmissionsRunOnce() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        AtomicInteger calls = new AtomicInteger();
+        String key = "expand:" + System.nanoTime();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch submitted = new CountDownLatch(threads);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    Future<Integer> future = SingleFlight.submit(key, calls::incrementAndGet, Runnable::run);
+                    synchronized (futures) {
+                        futures.add(future);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    submitted.countDown();
+                }
+            });
+        }
+        // Hold the key while the threads race, so every one of them must join the same task.
+        Future<Integer> holder = SingleFlight.submit(key, calls::incrementAndGet, executor);
+        start.countDown();
+        submitted.await();
+        executor.runAll();
+        assertEquals(threads, futures.size());
+        for (Future<Integer> future : futures) {
+            assertSame(holder, future);
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testPriorityIsDeclaredOnlyWhenTheTaskDeclaresOne() {
+        ManualExecutor executor = new ManualExecutor();
+        Future<?> undeclared = SingleFlight.execute("undeclared:" + System.nanoTime(), () -> { }, executor);
+        Future<?> declared = SingleFlight.execute("declared:" + System.nanoTime(),
+                TaskPriority.INTERACTIVE.runnable(() -> { }), executor);
+        assertNull(TaskPriority.declaredBy(undeclared));
+        assertEquals(TaskPriority.INTERACTIVE, TaskPriority.declaredBy(declared));
+        executor.runAll();
+    }
+}
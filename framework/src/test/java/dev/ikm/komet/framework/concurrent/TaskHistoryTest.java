@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.concurrent;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TaskHistoryTest {
+    @TempDir
+    Path directory;
+
+    private static TaskHistoryRecord record(String title, long runMillis, TaskHistoryRecord.Outcome outcome) {
+        Instant now = Instant.ofEpochMilli(System.currentTimeMillis());
+        return new TaskHistoryRecord(title, now, now, now.plusMillis(runMillis), Duration.ofMillis(1),
+                Duration.ofMillis(runMillis), outcome,
+                outcome == TaskHistoryRecord.Outcome.FAILED ? IllegalStateException.class.getName() : null);
+    }
+
+    @Test
+    public void testRecordsSurviveReopen() throws Exception {
+        Path file = directory.resolve("history.log");
+        try (TaskHistory history = new TaskHistory(file, 64 * 1024)) {
+            history.append(record("Search", 5, TaskHistoryRecord.Outcome.SUCCEEDED));
+            history.append(record("Search", 50, TaskHistoryRecord.Outcome.FAILED));
+        }
+        try (TaskHistory history = new TaskHistory(file, 64 * 1024)) {
+            history.append(record("Classify", 500, TaskHistoryRecord.Outcome.CANCELLED));
+            List<TaskHistoryRecord> records = history.records();
+            assertEquals(3, records.size());
+            assertEquals("Search", records.getFirst().title());
+            assertNull(records.getFirst().exceptionClass());
+            assertEquals(IllegalStateException.class.getName(), records.get(1).exceptionClass());
+            assertEquals(TaskHistoryRecord.Outcome.CANCELLED, records.get(2).outcome());
+            assertEquals(Duration.ofMillis(500), history.slowest(1).getFirst().runTime());
+            assertEquals(Duration.ofMillis(50), history.slowest("Search", 1).getFirst().runTime());
+        }
+    }
+
+    @Test
+    public void testFileInUseIsNotOpenedTwice() throws Exception {
+        Path file = directory.resolve("history.log");
+        try (TaskHistory history = new TaskHistory(file, 64 * 1024)) {
+            history.append(record("Search", 5, TaskHistoryRecord.Outcome.SUCCEEDED));
+            assertThrows(TaskHistory.InUseException.class, () -> new TaskHistory(file, 64 * 1024));
+        }
+        try (TaskHistory history = new TaskHistory(file, 64 * 1024)) {
+            assertEquals(1, history.records().size());
+        }
+    }
+
+    @Test
+    public void testRotationKeepsPreviousFile() throws Exception {
+        try (TaskHistory history = new TaskHistory(directory.resolve("history.log"), 4 * 1024)) {
+            for (int i = 1; i <= 100; i++) {
+                history.append(record("Refresh", i, TaskHistoryRecord.Outcome.SUCCEEDED));
+            }
+            List<TaskHistoryRecord> records = history.records();
+            assertEquals(Duration.ofMillis(100), records.getLast().runTime());
+            Map<String, TaskHistory.TitleStats> stats = history.statsByTitle(Instant.EPOCH);
+            assertEquals(records.size(), stats.get("Refresh").count());
+            assertEquals(Duration.ofMillis(100), stats.get("Refresh").maxRunTime());
+        }
+    }
+}
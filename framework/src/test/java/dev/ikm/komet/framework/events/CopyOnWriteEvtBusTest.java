@@ -0,0 +1,339 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.framework.events;
+
+import dev.ikm.komet.framework.SessionScope;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CopyOnWriteEvtBusTest {
+    private static final String TOPIC = "topic";
+
+    static class TestEvt extends Evt {
+        static final EvtType<TestEvt> TEST = new EvtType<>(Evt.ANY, "TEST");
+        final int value;
+
+        TestEvt(int value) {
+            super(TOPIC, TEST);
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + value;
+        }
+    }
+
+    static class SubEvt extends TestEvt {
+        SubEvt(int value) {
+            super(value);
+        }
+    }
+
+    @Test
+    public void testSubscriberReceivesEventsOfSubclasses() {
+        CopyOnWriteEvtBus bus = new CopyOnWriteEvtBus();
+        List<String> received = new ArrayList<>();
+        bus.subscribe(TOPIC, SubEvt.class, evt -> received.add("sub:" + evt));
+        bus.subscribe(TOPIC, TestEvt.class, evt -> received.add("test:" + evt));
+        bus.subscribe(TOPIC, Evt.class, evt -> received.add("any:" + evt));
+
+        bus.publish(TOPIC, new TestEvt(1));
+        bus.publish(TOPIC, new SubEvt(2));
+        bus.publish("other", new SubEvt(3));
+
+        assertEquals(List.of("test:TestEvt1", "any:TestEvt1", "sub:SubEvt2", "test:SubEvt2", "any:SubEvt2"), received);
+    }
+
+    @Test
+    public void testSubscriptionChangesAfterPublishAreSeen() {
+        CopyOnWriteEvtBus bus = new CopyOnWriteEvtBus();
+        List<Integer> first = new ArrayList<>();
+        List<Integer> second = new ArrayList<>();
+        Subscriber<TestEvt> firstSubscriber = evt -> first.add(evt.value);
+        Subscriber<Evt> secondSubscriber = evt -> second.add(((TestEvt) evt).value);
+
+        bus.subscribe(TOPIC, TestEvt.class, firstSubscriber);
+        bus.publish(TOPIC, new SubEvt(1));
+        // The dispatch table for SubEvt was filled in by the publish, and must be discarded by this subscribe.
+        bus.subscribe(TOPIC, Evt.class, secondSubscriber);
+        bus.publish(TOPIC, new SubEvt(2));
+        bus.unsubscribe(TOPIC, TestEvt.class, firstSubscriber);
+        bus.publish(TOPIC, new SubEvt(3));
+        bus.unsubscribe(TOPIC, Evt.class, secondSubscriber);
+        bus.publish(TOPIC, new SubEvt(4));
+
+        assertEquals(List.of(1, 2), first);
+        assertEquals(List.of(2, 3), second);
+    }
+
+    @Test
+    public void testUnsubscribeRemovesOnlyThatSubscriber() {
+        CopyOnWriteEvtBus bus = new CopyOnWriteEvtBus();
+        AtomicInteger kept = new AtomicInteger();
+        Subscriber<TestEvt> removed = evt -> {
+            throw new AssertionError("Removed subscriber received " + evt);
+        };
+        bus.subscribe(TOPIC, TestEvt.class, evt -> kept.incrementAndGet());
+        bus.subscribe(TOPIC, TestEvt.class, removed);
+        bus.unsubscribe(TOPIC, TestEvt.class, removed);
+        bus.unsubscribe("unknown", TestEvt.class, removed);
+
+        bus.publish(TOPIC, new TestEvt(1));
+        assertEquals(1, kept.get());
+    }
+
+    @Test
+    public void testQueuedDeliveryKeepsOrderOnItsExecutor() throws Exception {
+        CopyOnWriteEvtBus bus = new CopyOnWriteEvtBus();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            int count = 1000;
+            List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch done = new CountDownLatch(count);
+            Thread publisher = Thread.currentThread();
+            bus.subscribe(TOPIC, TestEvt.class, evt -> {
+                assertTrue(Thread.currentThread() != publisher);
+                received.add(evt.value);
+                done.countDown();
+            }, Delivery.on(executor).withCapacity(16));
+            for (int i = 0; i < count; i++) {
+                bus.publish(TOPIC, new TestEvt(i));
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, (int) received.get(i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testQueuedSubscriberKeepsReceivingAfterError() {
+        CopyOnWriteEvtBus bus = new CopyOnWriteEvtBus();
+        List<Integer> received = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        // Drains on the publishing thread, and swallows what escapes the drain, as a pool thread would.
+        Delivery delivery = Delivery.on(runnable -> {
+            try {
+                runnable.run();
+            } catch (Error e) {
+                errors.add(e);
+            }
+        });
+        bus.subscribe(TOPIC, TestEvt.class, evt -> {
+            if (evt.value == 1) {
+                throw new StackOverflowError();
+            }
+            received.add(evt.value);
+        }, delivery);
+
+        bus.publish(TOPIC, new TestEvt(1));
+        bus.publish(TOPIC, new TestEvt(2));
+        bus.publish(TOPIC, new TestEvt(3));
+
+        assertEquals(1, errors.size());
+        assertEquals(List.of(2, 3), received);
+    }
+
+    @Test
+    public void testWorkerDeliveryDoesNotNeedThePublishersPool() throws Exception {
+        CopyOnWriteEvtBus bus = new CopyOnWriteEvtBus();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            int count = 100;
+            CountDownLatch received = new CountDownLatch(count);
+            bus.subscribe(TOPIC, TestEvt.class, evt -> received.countDown(), Delivery.worker().withCapacity(1));
+            // The only pool thread publishes more events than fit in the queue, so it waits for the drain.
+            pool.execute(() -> {
+                for (int i = 0; i < count; i++) {
+                    bus.publish(TOPIC, new TestEvt(i));
+                }
+            });
+            assertTrue(received.await(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentPublishersReachEverySubscriber() throws Exception {
+        CopyOnWriteEvtBus bus = new CopyOnWriteEvtBus();
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger second = new AtomicInteger();
+        bus.subscribe(TOPIC, TestEvt.class, evt -> first.incrementAndGet());
+        bus.subscribe(TOPIC, SubEvt.class, evt -> second.incrementAndGet());
+        List<Thread> publishers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            publishers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    bus.publish(TOPIC, i % 2 == 0 ? new TestEvt(i) : new SubEvt(i));
+                }
+            }));
+        }
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+        assertEquals(40_000, first.get());
+        assertEquals(20_000, second.get());
+    }
+
+    static class PayloadEvt extends TestEvt {
+        final List<String> payload;
+
+        PayloadEvt(int value, List<String> payload) {
+            super(value);
+            this.payload = payload;
+        }
+    }
+
+    private static List<Integer> values(List<? extends TestEvt> events) {
+        return events.stream().map(evt -> evt.value).toList();
+    }
+
+    @Test
+    public void testReplayLatestAndAllRetainedEvents() {
+        CopyOnWriteEvtBus bus = new CopyOnWriteEvtBus();
+        bus.retain(TOPIC, 10, Long.MAX_VALUE);
+        bus.publish(TOPIC, new TestEvt(1));
+        bus.publish(TOPIC, new SubEvt(2));
+        bus.publish(TOPIC, new TestEvt(3));
+
+        List<TestEvt> latest = new ArrayList<>();
+        List<TestEvt> latestSub = new ArrayList<>();
+        List<TestEvt> all = new ArrayList<>();
+        List<TestEvt> none = new ArrayList<>();
+        bus.subscribe(TOPIC, TestEvt.class, latest::add, Delivery.caller(), Replay.LATEST);
+        bus.subscribe(TOPIC, SubEvt.class, latestSub::add, Delivery.caller(), Replay.LATEST);
+        bus.subscribe(TOPIC, TestEvt.class, all::add, Delivery.caller(), Replay.ALL);
+        bus.subscribe(TOPIC, TestEvt.class, none::add, Delivery.caller(), Replay.NONE);
+        bus.publish(TOPIC, new SubEvt(4));
+
+        assertEquals(List.of(3, 4), values(latest));
+        assertEquals(List.of(2, 4), values(latestSub));
+        assertEquals(List.of(1, 2, 3, 4), values(all));
+        assertEquals(List.of(4), values(none));
+    }
+
+    @Test
+    public void testPublishDuringReplayIsDeliveredAfterReplayedEvents() {
+        CopyOnWriteEvtBus bus = new CopyOnWriteEvtBus();
+        bus.retain(TOPIC, 10, Long.MAX_VALUE);
+        bus.publish(TOPIC, new TestEvt(1));
+        bus.publish(TOPIC, new TestEvt(2));
+
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        Subscriber<TestEvt> subscriber = evt -> {
+            received.add(evt.value);
+            if (evt.value == 1) {
+                // Another thread publishes, and finishes publishing, while the replay is under way.
+                Thread publisher = Thread.ofPlatform().start(() -> bus.publish(TOPIC, new TestEvt(3)));
+                try {
+                    publisher.join();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        };
+        bus.subscribe(TOPIC, TestEvt.class, subscriber, Delivery.caller(), Replay.ALL);
+        bus.publish(TOPIC, new TestEvt(4));
+
+        assertEquals(List.of(1, 2, 3, 4), received);
+    }
+
+    @Test
+    public void testReplayingSubscriberCanBeUnsubscribed() {
+        CopyOnWriteEvtBus bus = new CopyOnWriteEvtBus();
+        bus.retain(TOPIC, 10, Long.MAX_VALUE);
+        bus.publish(TOPIC, new TestEvt(1));
+        List<Integer> received = new ArrayList<>();
+        Subscriber<TestEvt> subscriber = evt -> received.add(evt.value);
+
+        bus.subscribe(TOPIC, TestEvt.class, subscriber, Delivery.caller(), Replay.LATEST);
+        bus.unsubscribe(TOPIC, TestEvt.class, subscriber);
+        bus.publish(TOPIC, new TestEvt(2));
+
+        assertEquals(List.of(1), received);
+    }
+
+    @Test
+    public void testRetainedEventsAreBoundedByCountAndBytes() {
+        CopyOnWriteEvtBus bus = new CopyOnWriteEvtBus();
+        bus.retain(TOPIC, 3, Long.MAX_VALUE);
+        for (int i = 1; i <= 5; i++) {
+            bus.publish(TOPIC, new TestEvt(i));
+        }
+        List<TestEvt> all = new ArrayList<>();
+        bus.subscribe(TOPIC, TestEvt.class, all::add, Delivery.caller(), Replay.ALL);
+        assertEquals(List.of(3, 4, 5), values(all));
+        assertEquals(3, bus.retainedEventCount(TOPIC));
+
+        bus.retain("small", 100, 2 * 100, evt -> 96);
+        for (int i = 1; i <= 5; i++) {
+            bus.publish("small", new TestEvt(i));
+        }
+        assertEquals(2, bus.retainedEventCount("small"));
+        assertEquals(2 * 100, bus.retainedBytes("small"));
+
+        bus.retain(TOPIC, 0, 0);
+        assertEquals(0, bus.retainedEventCount(TOPIC));
+    }
+
+    @Test
+    public void testDefaultEstimateDoesNotFollowReferences() {
+        String text = "x".repeat(10_000);
+        long empty = ReplayBuffer.shallowBytes(new PayloadEvt(1, new ArrayList<>()));
+        long large = ReplayBuffer.shallowBytes(new PayloadEvt(1, new ArrayList<>(List.of(text))));
+
+        assertEquals(empty, large);
+        assertTrue(empty > 0 && empty < 100, "only the event object is counted");
+    }
+
+    @Test
+    public void testQueuedDeliveryRunsInTheSessionOfTheSubscription() throws Exception {
+        CopyOnWriteEvtBus bus = new CopyOnWriteEvtBus();
+        SessionScope session = SessionScope.open("delivery-test");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            List<SessionScope> deliveredIn = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch delivered = new CountDownLatch(2);
+            session.run(() -> bus.subscribe(TOPIC, TestEvt.class, evt -> {
+                deliveredIn.add(SessionScope.current());
+                delivered.countDown();
+            }, Delivery.on(executor)));
+
+            bus.publish(TOPIC, new TestEvt(1));
+            bus.publish(TOPIC, new TestEvt(2));
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(session, session), deliveredIn);
+        } finally {
+            executor.shutdownNow();
+            session.close();
+        }
+    }
+}
@@ -25,6 +25,7 @@
 import org.eclipse.collections.api.list.ImmutableList;
 import dev.ikm.komet.framework.ExplorationNodeAbstract;
 import dev.ikm.komet.framework.TopPanelFactory;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.komet.framework.view.ViewProperties;
 import dev.ikm.komet.preferences.KometPreferences;
 import dev.ikm.tinkar.common.service.TinkExecutor;
@@ -130,7 +131,7 @@ public TreeTableCell<Component, Object> call(TreeTableColumn<Component, Object>
             this.treeTableView.getColumns().add(makeColumn("Module", "Represents the module this version is part of", StampFields.MODULE));
             this.treeTableView.getColumns().add(makeColumn("Path", "Define path that this version is created on", StampFields.PATH));
             if (populate) {
-                TinkExecutor.threadPool().execute(() -> {
+                TinkExecutor.threadPool().execute(TaskPriority.BULK.runnable(() -> {
                     AtomicInteger count = new AtomicInteger();
                     PrimitiveData.get().forEachSemanticNidOfPattern(patternEntity.nid(), semanticNid -> {
                         if (count.getAndIncrement() < 5000) {
@@ -144,7 +145,7 @@ public TreeTableCell<Component, Object> call(TreeTableColumn<Component, Object>
                             });
                         }
                     });
-                });
+                }));
             }
         });
     }
@@ -19,6 +19,10 @@
 import dev.ikm.tinkar.common.alert.AlertStreams;
 import javafx.application.Platform;
 import org.eclipse.collections.api.collection.ImmutableCollection;
+import dev.ikm.komet.framework.concurrent.ExpiringTask;
+import dev.ikm.komet.framework.concurrent.Expiry;
+import dev.ikm.komet.framework.concurrent.PrioritizedTask;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.komet.framework.view.ObservableView;
 import dev.ikm.tinkar.common.service.TinkExecutor;
 import dev.ikm.tinkar.common.service.TrackingCallable;
@@ -39,7 +43,7 @@
 /**
  *
  */
-public class FetchChildren extends TrackingCallable<Void> {
+public class FetchChildren extends TrackingCallable<Void> implements PrioritizedTask, ExpiringTask {
     private static final Logger LOG = LoggerFactory.getLogger(FetchChildren.class);
     private static final AtomicInteger FETCHER_SEQUENCE = new AtomicInteger(1);
     private static final ConcurrentHashMap<Integer, FetchChildren> FETCHER_MAP = new ConcurrentHashMap<>();
@@ -49,6 +53,7 @@ public class FetchChildren extends TrackingCallable<Void> {
     private final int fetcherId = FETCHER_SEQUENCE.incrementAndGet();
     private final String parentName;
     private final ViewCalculator viewCalculator;
+    private final Expiry expiry;
     private int childrenFound = 0;
 
     public FetchChildren(CountDownLatch childrenLoadedLatch,
@@ -57,6 +62,8 @@ public FetchChildren(CountDownLatch childrenLoadedLatch,
         this.childrenLoadedLatch = childrenLoadedLatch;
         this.parentGraphItem = parentGraphItem;
         this.viewCalculator = parentGraphItem.getViewCalculator();
+        MultiParentGraphViewController graphController = parentGraphItem.getGraphController();
+        this.expiry = graphController != null ? graphController.refreshExpiry() : Expiry.NEVER;
         if (parentGraphItem.getValue() != null) {
             this.parentName = this.viewCalculator.getDescriptionTextOrNid(parentGraphItem.getValue().nid());
         } else {
@@ -71,6 +78,19 @@ public FetchChildren(CountDownLatch childrenLoadedLatch,
         }
     }
 
+    @Override
+    public TaskPriority taskPriority() {
+        return TaskPriority.INTERACTIVE;
+    }
+
+    /**
+     * Expires when the navigator refreshes its taxonomy, since the parent is then no longer in the tree.
+     */
+    @Override
+    public Expiry expiry() {
+        return expiry;
+    }
+
     @Override
     public Void compute() throws Exception {
         try {
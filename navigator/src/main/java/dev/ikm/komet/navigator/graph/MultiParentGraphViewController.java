@@ -22,6 +22,9 @@
 import dev.ikm.komet.framework.activity.ActivityStream;
 import dev.ikm.komet.framework.activity.ActivityStreams;
 import dev.ikm.komet.framework.alerts.AlertPanel;
+import dev.ikm.komet.framework.concurrent.Expiry;
+import dev.ikm.komet.framework.concurrent.TaskGeneration;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.komet.framework.concurrent.TaskWrapper;
 import dev.ikm.komet.framework.dnd.ClipboardHelper;
 import dev.ikm.komet.framework.dnd.KometClipboard;
@@ -124,6 +127,10 @@ public class MultiParentGraphViewController implements RefreshListener {
     private TreeView<ConceptFacade> treeView;
     private ViewProperties viewProperties;
     private final ChangeListener<ViewCoordinateRecord> viewChangedListener = this::viewChanged;
+    /**
+     * Advanced on each refresh of the taxonomy, so queued fetches for the replaced tree are dropped.
+     */
+    private final TaskGeneration refreshGeneration = new TaskGeneration();
     private GraphNavigatorNode graphNavigatorNode;
     private SimpleObjectProperty<PublicIdStringKey<ActivityStream>> activityStreamKeyProperty = new SimpleObjectProperty<>();
     private SimpleObjectProperty<ActivityStream> activityStreamProperty = new SimpleObjectProperty<>();
@@ -151,6 +158,7 @@ private void sceneChanged(ObservableValue<? extends Scene> observableValue, Scen
     protected void shutdownInstance() {
         LOG.info("Shutdown graph view instance");
         this.getObservableView().removeListener(this.viewChangedListener);
+        this.refreshGeneration.next();
         if (rootTreeItem != null) {
             rootTreeItem.clearChildren();  // This recursively cancels any active lookups
         }
@@ -634,7 +642,15 @@ public final void handleDescriptionTypeChange(ActionEvent event) {
         this.treeView.refresh();
     }
 
+    /**
+     * @return an expiry for work on the current tree, which expires when the taxonomy is next refreshed.
+     */
+    Expiry refreshExpiry() {
+        return refreshGeneration.current();
+    }
+
     private void refreshTaxonomy() {
+        TaskGeneration.Token refreshToken = refreshGeneration.next();
         saveExpanded();
         Navigator navigator = new EmptyNavigator(this.getObservableView());
         try {
@@ -657,7 +673,8 @@ private void refreshTaxonomy() {
         }
         for (TreeItem<ConceptFacade> rootChild : this.rootTreeItem.getChildren()) {
             ((MultiParentVertexImpl) rootChild).clearChildren();
-            TinkExecutor.threadPool().execute(() -> ((MultiParentVertexImpl) rootChild).addChildren());
+            TinkExecutor.threadPool().execute(TaskPriority.INTERACTIVE.runnable(
+                    () -> ((MultiParentVertexImpl) rootChild).addChildren(), refreshToken));
         }
 
         this.rootTreeItem.invalidate();
@@ -22,11 +22,11 @@
 import javafx.scene.Node;
 import javafx.scene.control.TreeItem;
 import org.eclipse.collections.api.collection.ImmutableCollection;
+import dev.ikm.komet.framework.concurrent.SingleFlight;
 import dev.ikm.komet.framework.view.ObservableView;
 import dev.ikm.tinkar.common.id.IntIdSet;
 import dev.ikm.tinkar.common.id.IntIds;
 import dev.ikm.tinkar.common.id.PublicId;
-import dev.ikm.tinkar.common.service.TinkExecutor;
 import dev.ikm.tinkar.common.util.text.NaturalOrder;
 import dev.ikm.tinkar.coordinate.navigation.calculator.Edge;
 import dev.ikm.tinkar.coordinate.view.calculator.ViewCalculator;
@@ -255,8 +255,12 @@ void addChildren() {
         LOG.atTrace().log("addChildren: ConceptEntity=" + this.getValue());
         if (getChildren().isEmpty()) {
             if (shouldDisplay()) {
-                FetchChildren fetchTask = new FetchChildren(childrenLoadedLatch, this);
-                TinkExecutor.threadPool().submit(fetchTask);
+                // Repeated expand and refresh events join the fetch already in flight for this vertex and view.
+                CountDownLatch latch = childrenLoadedLatch;
+                SingleFlight.track(List.of("children", this, getViewCalculator().viewCoordinateRecord()),
+                                () -> new FetchChildren(latch, this))
+                        // A fetch dropped after a refresh never runs, so release anyone waiting on its children.
+                        .completion().whenComplete((value, throwable) -> latch.countDown());
             }
         }
     }
@@ -25,6 +25,8 @@
  import org.eclipse.collections.api.list.MutableList;
  import org.eclipse.collections.api.list.primitive.MutableIntList;
 import org.eclipse.collections.impl.factory.primitive.IntLists;
+import dev.ikm.komet.framework.concurrent.PrioritizedTask;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.tinkar.common.alert.AlertObject;
 import dev.ikm.tinkar.common.service.TrackingCallable;
 import dev.ikm.tinkar.entity.ConceptEntity;
@@ -41,7 +43,7 @@
 /**
  * 
  */
-public class ShowConceptInGraphTask extends TrackingCallable<Void> {
+public class ShowConceptInGraphTask extends TrackingCallable<Void> implements PrioritizedTask {
 
     private static final Logger LOG = LoggerFactory.getLogger(ShowConceptInGraphTask.class);
 
@@ -56,6 +58,11 @@ public ShowConceptInGraphTask(MultiParentGraphViewController multiParentGraphVie
         updateTitle("Expanding taxonomy to: " + conceptDescription);
     }
 
+    @Override
+    public TaskPriority taskPriority() {
+        return TaskPriority.INTERACTIVE;
+    }
+
     @Override
     protected Void compute() throws Exception {
         // await() init() completion.
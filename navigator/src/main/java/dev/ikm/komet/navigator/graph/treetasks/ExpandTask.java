@@ -15,6 +15,8 @@
  */
 package dev.ikm.komet.navigator.graph.treetasks;
 
+import dev.ikm.komet.framework.concurrent.PrioritizedTask;
+import dev.ikm.komet.framework.concurrent.TaskPriority;
 import dev.ikm.komet.navigator.graph.MultiParentGraphViewController;
 import dev.ikm.komet.navigator.graph.MultiParentVertexImpl;
 import dev.ikm.tinkar.common.id.IntIdList;
@@ -34,7 +36,7 @@
 
 import java.util.concurrent.atomic.AtomicReference;
 
-public class ExpandTask extends TrackingCallable<Void> {
+public class ExpandTask extends TrackingCallable<Void> implements PrioritizedTask {
     private static final Logger LOG = LoggerFactory.getLogger(ExpandTask.class);
     private final MultiParentGraphViewController multiParentGraphViewController;
     final IntIdList expansionPath;
@@ -48,6 +50,11 @@ public ExpandTask(MultiParentGraphViewController multiParentGraphViewController,
         });
     }
 
+    @Override
+    public TaskPriority taskPriority() {
+        return TaskPriority.INTERACTIVE;
+    }
+
     @Override
     protected Void compute() {
         LOG.info("Starting expansion of: " + expansionPath);
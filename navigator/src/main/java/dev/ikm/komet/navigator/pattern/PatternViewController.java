@@ -30,6 +30,7 @@
 import org.eclipse.collections.api.list.ImmutableList;
 import dev.ikm.komet.framework.KometNode;
 import dev.ikm.komet.framework.activity.ActivityStream;
+import dev.ikm.komet.framework.concurrent.SingleFlight;
 import dev.ikm.komet.framework.graphics.Icon;
 import dev.ikm.komet.framework.temp.FxGet;
 import dev.ikm.komet.framework.view.ObservableView;
@@ -37,7 +38,6 @@
 import dev.ikm.komet.framework.view.ViewProperties;
 import dev.ikm.komet.preferences.KometPreferences;
 import dev.ikm.tinkar.common.id.PublicIdStringKey;
-import dev.ikm.tinkar.common.service.TinkExecutor;
 import dev.ikm.tinkar.common.service.PrimitiveData;
 import dev.ikm.tinkar.common.util.text.NaturalOrder;
 import dev.ikm.tinkar.coordinate.stamp.StampPathImmutable;
@@ -53,6 +53,7 @@
 import java.net.URL;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.OptionalInt;
 import java.util.ResourceBundle;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -153,7 +154,8 @@ private void menuUpdate() {
 
     private void refreshTaxonomy() {
         this.rootTreeItem.getChildren().clear();
-        TinkExecutor.threadPool().execute(() -> {
+        // A view change triggers more than one refresh; they all share the first refresh task for that view.
+        SingleFlight.execute(List.of("patterns", this, viewProperties.calculator().viewCoordinateRecord()), () -> {
             ArrayList<TreeItem<Object>> patternItems = new ArrayList<>();
             PrimitiveData.get().forEachPatternNid(patternNid -> {
                 Latest<PatternEntityVersion> latestPattern = viewProperties.calculator().latest(patternNid);
@@ -20,6 +20,7 @@
 import dev.ikm.komet.framework.rulebase.Consequence;
 import dev.ikm.komet.framework.rulebase.ConsequenceAction;
 import dev.ikm.komet.framework.rulebase.ConsequenceMenu;
+import dev.ikm.komet.framework.rulebase.RuleProvenance;
 import dev.ikm.komet.framework.view.ViewProperties;
 import dev.ikm.komet.rules.actions.axiom.*;
 import dev.ikm.tinkar.common.sets.ConcurrentHashSet;
@@ -32,12 +33,19 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.UUID;
-
 @RuleSet(value = "Axiom focus rules")
 public class AxiomFocusedRules {
     private static final Logger LOG = LoggerFactory.getLogger(AxiomFocusedRules.class);
 
+    // One per rule method, named like the method.
+    static final String AXIOM_IS_NOT_DEFINITION_ROOT = "AxiomFocusedRules.axiomIsNotDefinitionRoot";
+    static final String AXIOM_IS_DEFINITION_ROOT = "AxiomFocusedRules.axiomIsDefinitionRoot";
+    static final String AXIOM_IS_SET = "AxiomFocusedRules.axiomIsSet";
+    static final String AXIOM_IS_CONCEPT_AXIOM = "AxiomFocusedRules.axiomIsConceptAxiom";
+    static final String AXIOM_IS_ROLE_GROUP = "AxiomFocusedRules.axiomIsRoleGroup";
+    static final String AXIOM_IS_ROLE_BUT_NOT_A_ROLE_GROUP = "AxiomFocusedRules.axiomIsRoleButNotARoleGroup";
+    static final String AXIOM_IS_FEATURE = "AxiomFocusedRules.axiomIsFeature";
+
     @Rule(value = "Axiom of interest is not the definition root")
     @Where(value = {"$observation.topic() == Topic.AXIOM_FOCUSED",
             """
@@ -53,8 +61,8 @@ public void axiomIsNotDefinitionRoot(ObservationRecord $observation,
 // TODO would be nice if Everete recognized the pattern variable "axiomSubject" and could pass it as a parameter.
         if ($observation.subject() instanceof AxiomSubjectRecord axiomSubjectRecord) {
             RemoveAxiomAction removeAxiomAction = new RemoveAxiomAction("Remove axiom", axiomSubjectRecord, $viewProperties.calculator(), $editCoordinate);
-            $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(), removeAxiomAction));
+            $actionList.add(new ConsequenceAction(new RuleProvenance(AXIOM_IS_NOT_DEFINITION_ROOT, $observation),
+                    removeAxiomAction));
         }
     }
 
@@ -74,13 +82,13 @@ public void axiomIsDefinitionRoot(ObservationRecord $observation,
             if (!axiomSubjectRecord.axiomTree().containsVertexWithMeaning(TinkarTerm.NECESSARY_SET)) {
                 // allow addition of necessary set
                 AddNecessarySet addNecessarySet = new AddNecessarySet("Add necessary set", axiomSubjectRecord, $viewProperties.calculator(), $editCoordinate);
-                $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                        Thread.currentThread().getStackTrace()[1].toString(), addNecessarySet));
+                $actionList.add(new ConsequenceAction(new RuleProvenance(AXIOM_IS_DEFINITION_ROOT, $observation),
+                        addNecessarySet));
             }
             // always allow addition of sufficient set (multiple sufficient sets allowed)
             AddSufficientSet addSufficientSet = new AddSufficientSet("Add sufficient set", axiomSubjectRecord, $viewProperties.calculator(), $editCoordinate);
-            $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(), addSufficientSet));
+            $actionList.add(new ConsequenceAction(new RuleProvenance(AXIOM_IS_DEFINITION_ROOT, $observation),
+                    addSufficientSet));
         }
     }
 
@@ -100,29 +108,25 @@ public void axiomIsSet(ObservationRecord $observation,
         if ($observation.subject() instanceof AxiomSubjectRecord axiomSubject) {
             if (axiomSubject.axiomMeaning().equals(TinkarTerm.NECESSARY_SET)) {
                 ChangeSetType changeToSufficientSet = new ChangeSetType(TinkarTerm.SUFFICIENT_SET, "Change to sufficient set", axiomSubject, $viewProperties.calculator(), $editCoordinate);
-                $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                        Thread.currentThread().getStackTrace()[1].toString(), changeToSufficientSet));
+                $actionList.add(new ConsequenceAction(new RuleProvenance(AXIOM_IS_SET, $observation),
+                        changeToSufficientSet));
             } else if (axiomSubject.axiomMeaning().equals(TinkarTerm.SUFFICIENT_SET))  {
                 ChangeSetType changeToNecessarySet = new ChangeSetType(TinkarTerm.NECESSARY_SET, "Change to necessary set", axiomSubject, $viewProperties.calculator(), $editCoordinate);
-                $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                        Thread.currentThread().getStackTrace()[1].toString(), changeToNecessarySet));
+                $actionList.add(new ConsequenceAction(new RuleProvenance(AXIOM_IS_SET, $observation),
+                        changeToNecessarySet));
             }
 
             AddIsA addIsA = new AddIsA("Add is-a", axiomSubject, $viewProperties.calculator(), $editCoordinate);
-            $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(), addIsA));
+            $actionList.add(new ConsequenceAction(new RuleProvenance(AXIOM_IS_SET, $observation), addIsA));
 
             AddSomeRole addSomeRole = new AddSomeRole("Add role", axiomSubject, $viewProperties.calculator(), $editCoordinate);
-            $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(), addSomeRole));
+            $actionList.add(new ConsequenceAction(new RuleProvenance(AXIOM_IS_SET, $observation), addSomeRole));
 
             AddRoleGroup addRoleGroup = new AddRoleGroup("Add role group", axiomSubject, $viewProperties.calculator(), $editCoordinate);
-            $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(), addRoleGroup));
+            $actionList.add(new ConsequenceAction(new RuleProvenance(AXIOM_IS_SET, $observation), addRoleGroup));
 
             AddFeature addFeature = new AddFeature("Add feature", axiomSubject, $viewProperties.calculator(), $editCoordinate);
-            $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(), addFeature));
+            $actionList.add(new ConsequenceAction(new RuleProvenance(AXIOM_IS_SET, $observation), addFeature));
         }
     }
 
@@ -140,8 +144,7 @@ public void axiomIsConceptAxiom(ObservationRecord $observation,
                                     RhsContext ctx) {
 
         if ($observation.subject() instanceof AxiomSubjectRecord axiomSubjectRecord) {
-            $actionList.add(new ConsequenceMenu(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(),
+            $actionList.add(new ConsequenceMenu(new RuleProvenance(AXIOM_IS_CONCEPT_AXIOM, $observation),
                     new ChooseConceptMenu("Choose replacement is-a", $viewProperties.calculator(), axiomSubjectRecord.nodeForPopover(),
                             $viewProperties, o -> {
                         ChangeConcept changeConcept = new ChangeConcept("Change is-a", o, axiomSubjectRecord, $viewProperties.calculator(), $editCoordinate);
@@ -167,8 +170,7 @@ public void axiomIsRoleGroup(ObservationRecord $observation,
 
         if ($observation.subject() instanceof AxiomSubjectRecord axiomSubjectRecord) {
             AddSomeRole addRole = new AddSomeRole("Add role", axiomSubjectRecord, $viewProperties.calculator(), $editCoordinate);
-            $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(), addRole));
+            $actionList.add(new ConsequenceAction(new RuleProvenance(AXIOM_IS_ROLE_GROUP, $observation), addRole));
         }
     }
 
@@ -187,16 +189,14 @@ public void axiomIsRoleButNotARoleGroup(ObservationRecord $observation,
                                             RhsContext ctx) {
 
         if ($observation.subject() instanceof AxiomSubjectRecord axiomSubjectRecord) {
-            $actionList.add(new ConsequenceMenu(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(),
+            $actionList.add(new ConsequenceMenu(new RuleProvenance(AXIOM_IS_ROLE_BUT_NOT_A_ROLE_GROUP, $observation),
                     new ChooseConceptMenu("Choose role type", $viewProperties.calculator(), axiomSubjectRecord.nodeForPopover(),
                             $viewProperties, o -> {
                         ChangeRoleType changeRoleType = new ChangeRoleType("Change role type", o, axiomSubjectRecord, $viewProperties.calculator(), $editCoordinate);
                         changeRoleType.doAction();
                     })
             ));
-            $actionList.add(new ConsequenceMenu(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(),
+            $actionList.add(new ConsequenceMenu(new RuleProvenance(AXIOM_IS_ROLE_BUT_NOT_A_ROLE_GROUP, $observation),
                     new ChooseConceptMenu("Choose role restriction", $viewProperties.calculator(), axiomSubjectRecord.nodeForPopover(),
                             $viewProperties, o -> {
                         ChangeRoleRestriction changeRoleRestriction = new ChangeRoleRestriction("Change role restriction", o, axiomSubjectRecord, $viewProperties.calculator(), $editCoordinate);
@@ -220,8 +220,7 @@ public void axiomIsFeature(ObservationRecord $observation,
                                  RhsContext ctx) {
 
         if ($observation.subject() instanceof AxiomSubjectRecord axiomSubjectRecord) {
-            $actionList.add(new ConsequenceMenu(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(),
+            $actionList.add(new ConsequenceMenu(new RuleProvenance(AXIOM_IS_FEATURE, $observation),
                     new ChooseConceptMenu("Choose feature type", $viewProperties.calculator(), axiomSubjectRecord.nodeForPopover(),
                             $viewProperties, o -> {
                         ChangeFeatureType changeFeatureType = new ChangeFeatureType("Change feature type", o, axiomSubjectRecord, $viewProperties.calculator(), $editCoordinate);
@@ -229,8 +228,7 @@ public void axiomIsFeature(ObservationRecord $observation,
                     })
             ));
 
-            $actionList.add(new ConsequenceMenu(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(),
+            $actionList.add(new ConsequenceMenu(new RuleProvenance(AXIOM_IS_FEATURE, $observation),
                     new ChooseConcreteOperatorMenu("Choose comparison", $viewProperties.calculator(),
                             o -> {
                         ChangeFeatureOperator changeFeatureOperator = new ChangeFeatureOperator("Change comparison", o, axiomSubjectRecord, $viewProperties.calculator(), $editCoordinate);
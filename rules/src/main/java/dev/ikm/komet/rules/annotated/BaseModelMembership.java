@@ -0,0 +1,265 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.rules.annotated;
+
+import dev.ikm.tinkar.common.flow.FlowSubscriber;
+import dev.ikm.tinkar.common.service.CachingService;
+import dev.ikm.tinkar.entity.Entity;
+import dev.ikm.tinkar.entity.EntityService;
+import dev.ikm.tinkar.entity.SemanticEntity;
+import dev.ikm.tinkar.terms.TinkarTerm;
+import org.eclipse.collections.api.factory.primitive.IntLists;
+import org.eclipse.collections.api.factory.primitive.IntObjectMaps;
+import org.eclipse.collections.api.list.primitive.IntList;
+import org.eclipse.collections.api.list.primitive.MutableIntList;
+import org.eclipse.collections.api.map.primitive.ImmutableIntObjectMap;
+import org.eclipse.collections.api.map.primitive.MutableIntObjectMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Membership of components in the TINKAR and KOMET base models, so the component focus rules can test it without
+ * an index lookup on every firing.
+ * <p>
+ * For each base model pattern, the components with a semantic of the pattern are kept as a bitset over nids, with
+ * their semantic nids. The sets are built on first use and kept up to date through the entity change subscription.
+ * A change notification is only queued; the next lookup resolves the queued changes and replaces the sets of the
+ * affected patterns once for all of them, so a lookup never sees a set that is being changed. When more than
+ * {@value #MAX_PENDING_CHANGES} changes are queued, as during an import, the sets are loaded again instead, without
+ * resolving any of them. The sets are dropped when the data store is reset, through {@link CacheProvider}.
+ */
+public final class BaseModelMembership {
+    private static final Logger LOG = LoggerFactory.getLogger(BaseModelMembership.class);
+    private static final int[] NO_SEMANTICS = new int[0];
+    static final int MAX_PENDING_CHANGES = 256;
+
+    private static volatile BaseModelMembership singleton;
+
+    public static class CacheProvider implements CachingService {
+        @Override
+        public void reset() {
+            synchronized (BaseModelMembership.class) {
+                singleton = null;
+            }
+        }
+    }
+
+    /**
+     * The pattern of a semantic and the component it refers to.
+     */
+    record Semantic(int patternNid, int referencedComponentNid) {}
+
+    private final int tinkarPatternNid;
+    private final int kometPatternNid;
+    private final IntFunction<int[]> semanticNidsOfPattern;
+    private final IntFunction<Semantic> semanticOf;
+    private volatile Members tinkarMembers;
+    private volatile Members kometMembers;
+    private final ConcurrentLinkedQueue<Integer> pendingChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean pendingOverflowed = new AtomicBoolean();
+    // Held here, since the entity provider only keeps a weak reference.
+    private final FlowSubscriber<Integer> changeSubscriber = new FlowSubscriber<>(this::entityChanged);
+
+    /**
+     * The members of one pattern: a bit for each component, at its nid offset from {@link Integer#MIN_VALUE},
+     * and the semantics that make it a member.
+     */
+    private record Members(BitSet components, ImmutableIntObjectMap<int[]> semanticNidsByComponent) {
+        boolean contains(int componentNid) {
+            return componentNid < 0 && components.get(componentNid - Integer.MIN_VALUE);
+        }
+
+        int[] semanticNids(int componentNid) {
+            return contains(componentNid) ? semanticNidsByComponent.get(componentNid) : NO_SEMANTICS;
+        }
+
+        /**
+         * @return the members with the semantics added, copied once for all of them
+         */
+        Members withAll(IntList componentNids, IntList semanticNids) {
+            BitSet newComponents = null;
+            MutableIntObjectMap<int[]> newSemanticNidsByComponent = null;
+            for (int i = 0; i < componentNids.size(); i++) {
+                int componentNid = componentNids.get(i);
+                int semanticNid = semanticNids.get(i);
+                int[] current = newSemanticNidsByComponent != null ?
+                        newSemanticNidsByComponent.getIfAbsent(componentNid, NO_SEMANTICS) : semanticNids(componentNid);
+                if (componentNid >= 0 || Arrays.stream(current).anyMatch(nid -> nid == semanticNid)) {
+                    continue;
+                }
+                if (newComponents == null) {
+                    newComponents = (BitSet) components.clone();
+                    newSemanticNidsByComponent = IntObjectMaps.mutable.empty();
+                    newSemanticNidsByComponent.putAll(semanticNidsByComponent);
+                }
+                newComponents.set(componentNid - Integer.MIN_VALUE);
+                newSemanticNidsByComponent.put(componentNid, added(current, semanticNid));
+            }
+            return newComponents == null ? this :
+                    new Members(newComponents, newSemanticNidsByComponent.toImmutable());
+        }
+    }
+
+    private BaseModelMembership() {
+        this(TinkarTerm.TINKAR_BASE_MODEL_COMPONENT_PATTERN.nid(), TinkarTerm.KOMET_BASE_MODEL_COMPONENT_PATTERN.nid(),
+                patternNid -> EntityService.get().semanticNidsOfPattern(patternNid), BaseModelMembership::semanticOf,
+                subscriber -> Entity.provider().addSubscriberWithWeakReference(subscriber));
+    }
+
+    /**
+     * Subscribes to entity changes before the sets are loaded, so a semantic written during the load is not
+     * missed; a change queued for a semantic the load already found is applied again without effect.
+     *
+     * @param semanticNidsOfPattern the semantics of a pattern
+     * @param semanticOf            the pattern and component of a semantic, or null if the nid is not a semantic
+     * @param subscribe             subscribes the change subscriber to entity changes
+     */
+    BaseModelMembership(int tinkarPatternNid, int kometPatternNid, IntFunction<int[]> semanticNidsOfPattern,
+                        IntFunction<Semantic> semanticOf, Consumer<FlowSubscriber<Integer>> subscribe) {
+        this.tinkarPatternNid = tinkarPatternNid;
+        this.kometPatternNid = kometPatternNid;
+        this.semanticNidsOfPattern = semanticNidsOfPattern;
+        this.semanticOf = semanticOf;
+        subscribe.accept(changeSubscriber);
+        this.tinkarMembers = load(tinkarPatternNid);
+        this.kometMembers = load(kometPatternNid);
+    }
+
+    public static BaseModelMembership get() {
+        BaseModelMembership membership = singleton;
+        if (membership == null) {
+            synchronized (BaseModelMembership.class) {
+                membership = singleton;
+                if (membership == null) {
+                    membership = new BaseModelMembership();
+                    singleton = membership;
+                }
+            }
+        }
+        return membership;
+    }
+
+    private static Semantic semanticOf(int nid) {
+        return Entity.getFast(nid) instanceof SemanticEntity<?> semantic ?
+                new Semantic(semantic.patternNid(), semantic.referencedComponentNid()) : null;
+    }
+
+    private static int[] added(int[] nids, int nid) {
+        int[] added = Arrays.copyOf(nids, nids.length + 1);
+        added[nids.length] = nid;
+        return added;
+    }
+
+    private Members load(int patternNid) {
+        BitSet components = new BitSet();
+        MutableIntObjectMap<int[]> semanticNidsByComponent = IntObjectMaps.mutable.empty();
+        for (int semanticNid : semanticNidsOfPattern.apply(patternNid)) {
+            Semantic semantic = semanticOf.apply(semanticNid);
+            if (semantic != null && semantic.referencedComponentNid() < 0) {
+                int componentNid = semantic.referencedComponentNid();
+                components.set(componentNid - Integer.MIN_VALUE);
+                semanticNidsByComponent.updateValue(componentNid, () -> NO_SEMANTICS, nids -> added(nids, semanticNid));
+            }
+        }
+        LOG.debug("Loaded {} members of base model pattern {}", semanticNidsByComponent.size(), patternNid);
+        return new Members(components, semanticNidsByComponent.toImmutable());
+    }
+
+    /**
+     * Queues the change for the next lookup; called on the thread that wrote the entity, so it does no more than
+     * that.
+     */
+    void entityChanged(int nid) {
+        if (pendingCount.incrementAndGet() <= MAX_PENDING_CHANGES) {
+            pendingChanges.add(nid);
+        } else {
+            pendingCount.decrementAndGet();
+            pendingOverflowed.set(true);
+        }
+    }
+
+    private void applyPendingChanges() {
+        if (pendingCount.get() == 0 && !pendingOverflowed.get()) {
+            return;
+        }
+        synchronized (this) {
+            if (pendingOverflowed.getAndSet(false)) {
+                // Too many to resolve one by one: load the sets again.
+                for (Integer nid; (nid = pendingChanges.poll()) != null; ) {
+                    pendingCount.decrementAndGet();
+                }
+                tinkarMembers = load(tinkarPatternNid);
+                kometMembers = load(kometPatternNid);
+                return;
+            }
+            MutableIntList tinkarComponents = IntLists.mutable.empty();
+            MutableIntList tinkarSemantics = IntLists.mutable.empty();
+            MutableIntList kometComponents = IntLists.mutable.empty();
+            MutableIntList kometSemantics = IntLists.mutable.empty();
+            for (Integer nid; (nid = pendingChanges.poll()) != null; ) {
+                pendingCount.decrementAndGet();
+                Semantic semantic = semanticOf.apply(nid);
+                if (semantic == null) {
+                    continue;
+                }
+                if (semantic.patternNid() == tinkarPatternNid) {
+                    tinkarComponents.add(semantic.referencedComponentNid());
+                    tinkarSemantics.add(nid);
+                } else if (semantic.patternNid() == kometPatternNid) {
+                    kometComponents.add(semantic.referencedComponentNid());
+                    kometSemantics.add(nid);
+                }
+            }
+            tinkarMembers = tinkarMembers.withAll(tinkarComponents, tinkarSemantics);
+            kometMembers = kometMembers.withAll(kometComponents, kometSemantics);
+        }
+    }
+
+    public boolean isTinkarBaseModelMember(int componentNid) {
+        applyPendingChanges();
+        return tinkarMembers.contains(componentNid);
+    }
+
+    public boolean isKometBaseModelMember(int componentNid) {
+        applyPendingChanges();
+        return kometMembers.contains(componentNid);
+    }
+
+    /**
+     * @return the nids of the TINKAR base model semantics of the component, empty if it is not a member
+     */
+    public int[] tinkarBaseModelSemanticNids(int componentNid) {
+        applyPendingChanges();
+        return tinkarMembers.semanticNids(componentNid);
+    }
+
+    /**
+     * @return the nids of the KOMET base model semantics of the component, empty if it is not a member
+     */
+    public int[] kometBaseModelSemanticNids(int componentNid) {
+        applyPendingChanges();
+        return kometMembers.semanticNids(componentNid);
+    }
+}
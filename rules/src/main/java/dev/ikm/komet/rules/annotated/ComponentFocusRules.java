@@ -18,6 +18,7 @@
 import dev.ikm.komet.framework.performance.impl.ObservationRecord;
 import dev.ikm.komet.framework.rulebase.Consequence;
 import dev.ikm.komet.framework.rulebase.ConsequenceAction;
+import dev.ikm.komet.framework.rulebase.RuleProvenance;
 import dev.ikm.komet.framework.view.ViewProperties;
 import dev.ikm.komet.rules.actions.component.ActivateComponentAction;
 import dev.ikm.komet.rules.actions.component.InactivateComponentAction;
@@ -25,13 +26,11 @@
 import dev.ikm.komet.rules.actions.membership.AddToTinkarBaseModelAction;
 import dev.ikm.komet.rules.actions.membership.RemoveFromKometBaseModelAction;
 import dev.ikm.komet.rules.actions.membership.RemoveFromTinkarBaseModelAction;
-import dev.ikm.tinkar.common.service.PrimitiveData;
 import dev.ikm.tinkar.common.sets.ConcurrentHashSet;
 import dev.ikm.tinkar.coordinate.edit.EditCoordinate;
 import dev.ikm.tinkar.coordinate.stamp.calculator.Latest;
 import dev.ikm.tinkar.entity.ConceptEntityVersion;
 import dev.ikm.tinkar.entity.EntityVersion;
-import dev.ikm.tinkar.terms.TinkarTerm;
 import org.evrete.api.RhsContext;
 import org.evrete.dsl.annotation.Rule;
 import org.evrete.dsl.annotation.RuleSet;
@@ -39,8 +38,6 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.UUID;
-
 /**
  * The java compiler needs the -parameters argument
  * see: https://www.evrete.org/docs/ajr/
@@ -51,6 +48,11 @@ public class ComponentFocusRules {
 
     private static final Logger LOG = LoggerFactory.getLogger(ComponentFocusRules.class);
 
+    // Rule identifiers, recorded as the rule method and provenance of each consequence.
+    static final String COMPONENT_FOCUSED_AND_ACTIVE = "ComponentFocusRules.componentFocusedAndActive";
+    static final String COMPONENT_FOCUSED_AND_INACTIVE = "ComponentFocusRules.componentFocusedAndInactive";
+    static final String CONCEPT_VERSION_FOCUSED = "ComponentFocusRules.conceptVersionFocused";
+
     @Rule(value = "Component focused and active")
     @Where(value = {"$observation.topic() == Topic.COMPONENT_FOCUSED",
                     "$observation.subject() instanceof EntityVersion entityVersion && entityVersion.active()"})
@@ -62,8 +64,8 @@ public void componentFocusedAndActive(ObservationRecord $observation,
         if ($observation.subject() instanceof EntityVersion entityVersion) {
             InactivateComponentAction generatedAction
                     = new InactivateComponentAction(entityVersion, $viewProperties.calculator(), $editCoordinate);
-            $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(), generatedAction));
+            $actionList.add(new ConsequenceAction(new RuleProvenance(COMPONENT_FOCUSED_AND_ACTIVE, $observation),
+                    generatedAction));
         }
     }
 
@@ -78,8 +80,8 @@ public void componentFocusedAndInactive(ObservationRecord $observation,
         if ($observation.subject() instanceof EntityVersion entityVersion) {
             ActivateComponentAction generatedAction
                     = new ActivateComponentAction(entityVersion, $viewProperties.calculator(), $editCoordinate);
-            $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(), generatedAction));
+            $actionList.add(new ConsequenceAction(new RuleProvenance(COMPONENT_FOCUSED_AND_INACTIVE, $observation),
+                    generatedAction));
         }
     }
 
@@ -94,81 +96,80 @@ public void conceptVersionFocused(ObservationRecord $observation,
                                RhsContext ctx) {
         //TODO see if we can get more in the @Where annotation, and maybe split into multiple rules.
         if ($observation.subject() instanceof ConceptEntityVersion conceptVersion) {
-            int[] tinkarSemanticNidsForComponent = PrimitiveData.get().semanticNidsForComponentOfPattern(conceptVersion.nid(),
-                    TinkarTerm.TINKAR_BASE_MODEL_COMPONENT_PATTERN.nid());
-            int[] kometSemanticNidsForComponent = PrimitiveData.get().semanticNidsForComponentOfPattern(conceptVersion.nid(),
-                    TinkarTerm.KOMET_BASE_MODEL_COMPONENT_PATTERN.nid());
+            BaseModelMembership baseModelMembership = BaseModelMembership.get();
+            int[] tinkarSemanticNidsForComponent = baseModelMembership.tinkarBaseModelSemanticNids(conceptVersion.nid());
+            int[] kometSemanticNidsForComponent = baseModelMembership.kometBaseModelSemanticNids(conceptVersion.nid());
             // case 1: never a member of tinkar or komet
             if (tinkarSemanticNidsForComponent.length == 0 && kometSemanticNidsForComponent.length == 0) {
-                addToTinkar($actionList, $viewProperties, $editCoordinate, conceptVersion);
-                addToKomet($actionList, $viewProperties, $editCoordinate, conceptVersion);
+                addToTinkar($observation, $actionList, $viewProperties, $editCoordinate, conceptVersion);
+                addToKomet($observation, $actionList, $viewProperties, $editCoordinate, conceptVersion);
             } else {
                 if (tinkarSemanticNidsForComponent.length == 1 && kometSemanticNidsForComponent.length == 0) {
                     // case 2: a member of tinkar only but maybe inactive
-                    addRemoveTinkarBasedOnActive($actionList, $viewProperties, $editCoordinate, conceptVersion, tinkarSemanticNidsForComponent);
-                    addToKomet($actionList, $viewProperties, $editCoordinate, conceptVersion);
+                    addRemoveTinkarBasedOnActive($observation, $actionList, $viewProperties, $editCoordinate, conceptVersion, tinkarSemanticNidsForComponent);
+                    addToKomet($observation, $actionList, $viewProperties, $editCoordinate, conceptVersion);
                 } else if (tinkarSemanticNidsForComponent.length == 0 && kometSemanticNidsForComponent.length == 1) {
                     // case 3: a member of komet only but maybe inactive
-                    addToTinkar($actionList, $viewProperties, $editCoordinate, conceptVersion);
-                    addRemoveKometBasedOnActive($actionList, $viewProperties, $editCoordinate, conceptVersion, kometSemanticNidsForComponent);
+                    addToTinkar($observation, $actionList, $viewProperties, $editCoordinate, conceptVersion);
+                    addRemoveKometBasedOnActive($observation, $actionList, $viewProperties, $editCoordinate, conceptVersion, kometSemanticNidsForComponent);
                 } else if (tinkarSemanticNidsForComponent.length == 1 && kometSemanticNidsForComponent.length == 1) {
                     // case 4: a member of both tinkar and komet
-                    addRemoveTinkarBasedOnActive($actionList, $viewProperties, $editCoordinate, conceptVersion, tinkarSemanticNidsForComponent);
-                    addRemoveKometBasedOnActive($actionList, $viewProperties, $editCoordinate, conceptVersion, kometSemanticNidsForComponent);
+                    addRemoveTinkarBasedOnActive($observation, $actionList, $viewProperties, $editCoordinate, conceptVersion, tinkarSemanticNidsForComponent);
+                    addRemoveKometBasedOnActive($observation, $actionList, $viewProperties, $editCoordinate, conceptVersion, kometSemanticNidsForComponent);
                 }
 
             }
         }
     }
 
-    private void addRemoveKometBasedOnActive(ConcurrentHashSet<Consequence<?>> $actionList, ViewProperties $viewProperties, EditCoordinate $editCoordinate, ConceptEntityVersion conceptVersion, int[] kometSemanticNidsForComponent) {
+    private void addRemoveKometBasedOnActive(ObservationRecord $observation, ConcurrentHashSet<Consequence<?>> $actionList, ViewProperties $viewProperties, EditCoordinate $editCoordinate, ConceptEntityVersion conceptVersion, int[] kometSemanticNidsForComponent) {
         Latest<EntityVersion> latestKometSemanticVersion = $viewProperties.calculator().latest(kometSemanticNidsForComponent[0]);
         if (latestKometSemanticVersion.isPresent()) {
             if (latestKometSemanticVersion.get().active()) {
-                removeFromKomet($actionList, $viewProperties, $editCoordinate, conceptVersion);
+                removeFromKomet($observation, $actionList, $viewProperties, $editCoordinate, conceptVersion);
             } else {
-                addToKomet($actionList, $viewProperties, $editCoordinate, conceptVersion);
+                addToKomet($observation, $actionList, $viewProperties, $editCoordinate, conceptVersion);
             }
         }
     }
 
-    private void addRemoveTinkarBasedOnActive(ConcurrentHashSet<Consequence<?>> $actionList, ViewProperties $viewProperties, EditCoordinate $editCoordinate, ConceptEntityVersion conceptVersion, int[] tinkarSemanticNidsForComponent) {
+    private void addRemoveTinkarBasedOnActive(ObservationRecord $observation, ConcurrentHashSet<Consequence<?>> $actionList, ViewProperties $viewProperties, EditCoordinate $editCoordinate, ConceptEntityVersion conceptVersion, int[] tinkarSemanticNidsForComponent) {
         Latest<EntityVersion> latestTinkarSemanticVersion = $viewProperties.calculator().latest(tinkarSemanticNidsForComponent[0]);
         if (latestTinkarSemanticVersion.isPresent()) {
             if (latestTinkarSemanticVersion.get().active()) {
-                removeFromTinkar($actionList, $viewProperties, $editCoordinate, conceptVersion);
+                removeFromTinkar($observation, $actionList, $viewProperties, $editCoordinate, conceptVersion);
             } else {
-                addToTinkar($actionList, $viewProperties, $editCoordinate, conceptVersion);
+                addToTinkar($observation, $actionList, $viewProperties, $editCoordinate, conceptVersion);
             }
         }
     }
 
-    private void removeFromKomet(ConcurrentHashSet<Consequence<?>> $actionList, ViewProperties $viewProperties, EditCoordinate $editCoordinate, ConceptEntityVersion conceptVersion) {
+    private void removeFromKomet(ObservationRecord $observation, ConcurrentHashSet<Consequence<?>> $actionList, ViewProperties $viewProperties, EditCoordinate $editCoordinate, ConceptEntityVersion conceptVersion) {
         RemoveFromKometBaseModelAction removeKometAction =
                 new RemoveFromKometBaseModelAction(conceptVersion, $viewProperties.calculator(), $editCoordinate);
-        $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                Thread.currentThread().getStackTrace()[1].toString(), removeKometAction));
+        $actionList.add(new ConsequenceAction(new RuleProvenance(CONCEPT_VERSION_FOCUSED, $observation),
+                removeKometAction));
     }
 
-    private void removeFromTinkar(ConcurrentHashSet<Consequence<?>> $actionList, ViewProperties $viewProperties, EditCoordinate $editCoordinate, ConceptEntityVersion conceptVersion) {
+    private void removeFromTinkar(ObservationRecord $observation, ConcurrentHashSet<Consequence<?>> $actionList, ViewProperties $viewProperties, EditCoordinate $editCoordinate, ConceptEntityVersion conceptVersion) {
         RemoveFromTinkarBaseModelAction generatedAction =
                 new RemoveFromTinkarBaseModelAction(conceptVersion, $viewProperties.calculator(), $editCoordinate);
-        $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                Thread.currentThread().getStackTrace()[1].toString(), generatedAction));
+        $actionList.add(new ConsequenceAction(new RuleProvenance(CONCEPT_VERSION_FOCUSED, $observation),
+                generatedAction));
     }
 
-    private void addToTinkar(ConcurrentHashSet<Consequence<?>> $actionList, ViewProperties $viewProperties, EditCoordinate $editCoordinate, ConceptEntityVersion conceptVersion) {
+    private void addToTinkar(ObservationRecord $observation, ConcurrentHashSet<Consequence<?>> $actionList, ViewProperties $viewProperties, EditCoordinate $editCoordinate, ConceptEntityVersion conceptVersion) {
         AddToTinkarBaseModelAction addTinkerAction =
                 new AddToTinkarBaseModelAction(conceptVersion, $viewProperties.calculator(), $editCoordinate);
-        $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                Thread.currentThread().getStackTrace()[1].toString(), addTinkerAction));
+        $actionList.add(new ConsequenceAction(new RuleProvenance(CONCEPT_VERSION_FOCUSED, $observation),
+                addTinkerAction));
     }
 
-    private void addToKomet(ConcurrentHashSet<Consequence<?>> $actionList, ViewProperties $viewProperties, EditCoordinate $editCoordinate, ConceptEntityVersion conceptVersion) {
+    private void addToKomet(ObservationRecord $observation, ConcurrentHashSet<Consequence<?>> $actionList, ViewProperties $viewProperties, EditCoordinate $editCoordinate, ConceptEntityVersion conceptVersion) {
         AddToKometBaseModelAction addKometAction =
                 new AddToKometBaseModelAction(conceptVersion, $viewProperties.calculator(), $editCoordinate);
-        $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                Thread.currentThread().getStackTrace()[1].toString(), addKometAction));
+        $actionList.add(new ConsequenceAction(new RuleProvenance(CONCEPT_VERSION_FOCUSED, $observation),
+                addKometAction));
     }
 
 }
@@ -19,6 +19,7 @@
 import dev.ikm.komet.framework.performance.Statement;
 import dev.ikm.komet.framework.rulebase.Consequence;
 import dev.ikm.komet.framework.rulebase.ConsequenceAction;
+import dev.ikm.komet.framework.rulebase.RuleProvenance;
 import dev.ikm.komet.framework.view.ViewProperties;
 import dev.ikm.komet.rules.actions.concept.NewConceptFromTextAction;
 import dev.ikm.tinkar.common.sets.ConcurrentHashSet;
@@ -29,10 +30,10 @@
 import org.evrete.dsl.annotation.RuleSet;
 import org.evrete.dsl.annotation.Where;
 
-import java.util.UUID;
-
 @RuleSet(value = "New concept rules")
 public class NewConceptRules {
+    static final String NEW_CONCEPT_RULE = "NewConceptRules.newConceptRule";
+
     @Rule(value = "New concept rule")
     @Where(value = {"$request.topic() == Topic.NEW_CONCEPT_REQUEST",
     "$request instanceof Request request && request.subject() instanceof String",
@@ -45,8 +46,7 @@ public void newConceptRule(Statement $request,
         if ($request instanceof Request request) {
             NewConceptFromTextAction generatedAction =
                     new NewConceptFromTextAction(request, $viewProperties.calculator(), $editCoordinate);
-            $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(), generatedAction));
+            $actionList.add(new ConsequenceAction(new RuleProvenance(NEW_CONCEPT_RULE, $request), generatedAction));
         }
     }
 }
@@ -19,11 +19,11 @@
 import dev.ikm.komet.framework.performance.Statement;
 import dev.ikm.komet.framework.rulebase.Consequence;
 import dev.ikm.komet.framework.rulebase.ConsequenceAction;
+import dev.ikm.komet.framework.rulebase.RuleProvenance;
 import dev.ikm.komet.framework.view.ViewProperties;
 import dev.ikm.komet.rules.actions.pattern.NewPatternAction;
 import dev.ikm.tinkar.common.sets.ConcurrentHashSet;
 import dev.ikm.tinkar.coordinate.edit.EditCoordinate;
-import java.util.UUID;
 import org.evrete.api.RhsContext;
 import org.evrete.dsl.annotation.Rule;
 import org.evrete.dsl.annotation.RuleSet;
@@ -31,6 +31,8 @@
 
 @RuleSet(value = "New pattern rules")
 public class NewPatternRules {
+    static final String NEW_PATTERN_RULE = "NewPatternRules.newPatternRule";
+
     @Rule(value = "New pattern rule")
     @Where(value = {"$request.topic() == Topic.NEW_PATTERN_REQUEST",
     "$request instanceof Request request && request.subject() instanceof String",
@@ -43,8 +45,7 @@ public void newPatternRule(Statement $request,
         if ($request instanceof Request request) {
             NewPatternAction generatedAction =
                     new NewPatternAction(request, $viewProperties.calculator(), $editCoordinate);
-            $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                    Thread.currentThread().getStackTrace()[1].toString(), generatedAction));
+            $actionList.add(new ConsequenceAction(new RuleProvenance(NEW_PATTERN_RULE, $request), generatedAction));
         }
     }
 }
@@ -19,6 +19,7 @@
 import dev.ikm.komet.framework.performance.impl.ObservationRecord;
 import dev.ikm.komet.framework.rulebase.Consequence;
 import dev.ikm.komet.framework.rulebase.ConsequenceAction;
+import dev.ikm.komet.framework.rulebase.RuleProvenance;
 import dev.ikm.komet.framework.view.ViewProperties;
 import dev.ikm.komet.rules.actions.axiom.RemoveAxiomAction;
 import dev.ikm.tinkar.common.sets.ConcurrentHashSet;
@@ -29,11 +30,11 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.UUID;
-
 public class AxiomFocusedRulesBuilder {
     private static final Logger LOG = LoggerFactory.getLogger(AxiomFocusedRulesBuilder.class);
 
+    static final String AXIOM_IS_NOT_DEFINITION_ROOT = "AxiomFocusedRulesBuilder.axiomIsNotDefinitionRoot";
+
     static KnowledgeService service = new KnowledgeService();
     static Knowledge knowledge = service.newKnowledge();
 
@@ -62,8 +63,8 @@ public class AxiomFocusedRulesBuilder {
                                 axiomSubjectRecord,
                                 $viewProperties.calculator(),
                                 $editCoordinate);
-                        $actionList.add(new ConsequenceAction(UUID.randomUUID(),
-                                Thread.currentThread().getStackTrace()[1].toString(), removeAxiomAction));
+                        $actionList.add(new ConsequenceAction(
+                                new RuleProvenance(AXIOM_IS_NOT_DEFINITION_ROOT, $observation), removeAxiomAction));
                     }
                 });
     }
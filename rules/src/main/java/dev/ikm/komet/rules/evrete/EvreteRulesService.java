@@ -23,14 +23,17 @@
 import dev.ikm.komet.framework.performance.impl.RequestRecord;
 import dev.ikm.komet.framework.rulebase.Consequence;
 import dev.ikm.komet.framework.rulebase.RuleService;
+import dev.ikm.komet.framework.rulebase.StatefulRuleSession;
 import dev.ikm.komet.framework.view.ViewProperties;
 import dev.ikm.komet.rules.annotated.AxiomFocusedRules;
 import dev.ikm.komet.rules.annotated.ComponentFocusRules;
 import dev.ikm.komet.rules.annotated.NewConceptRules;
 import dev.ikm.komet.rules.annotated.NewPatternRules;
+import dev.ikm.tinkar.common.flow.FlowSubscriber;
 import dev.ikm.tinkar.common.sets.ConcurrentHashSet;
 import dev.ikm.tinkar.coordinate.edit.EditCoordinate;
 import dev.ikm.tinkar.entity.ConceptEntityVersion;
+import dev.ikm.tinkar.entity.Entity;
 import dev.ikm.tinkar.entity.EntityVersion;
 import dev.ikm.tinkar.entity.PatternRecord;
 import dev.ikm.tinkar.entity.graph.EntityVertex;
@@ -38,28 +41,89 @@
 import dev.ikm.tinkar.terms.TinkarTerm;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.factory.primitive.IntLists;
 import org.eclipse.collections.api.list.ImmutableList;
 import org.eclipse.collections.api.list.MutableList;
+import org.eclipse.collections.api.list.primitive.MutableIntList;
 import org.evrete.Configuration;
 import org.evrete.KnowledgeService;
 import org.evrete.api.ActivationMode;
 import org.evrete.api.FactHandle;
 import org.evrete.api.Knowledge;
-import org.evrete.api.StatelessSession;
+import org.evrete.api.StatefulSession;
 import org.evrete.dsl.AbstractDSLProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Evaluates the annotated rule classes with Evrete.
+ * <p>
+ * The rule classes are compiled into a {@link Knowledge} once, when the service is constructed, and again only
+ * when {@link #reloadRules()} is called. A {@link RuleActivationIndex}, built from the rule annotations when the
+ * rules are compiled, gives the rule classes that can fire on the topics of an input. A knowledge of all the rule
+ * classes, and one of the classes of each single topic, are compiled together, so an execution never waits for a
+ * compile; an input of one topic is evaluated by only the rules of that topic, and an input of several topics by
+ * all the rules. Each execution borrows a stateful session from a pool, inserts the facts, fires the rules, and
+ * clears the session before it returns it to the pool, so the cost of creating a session is only paid when the
+ * pool is empty. The number of idle sessions kept is set by the
+ * {@value #SESSION_POOL_SIZE_PROPERTY} system property, and defaults to the number of processors; sessions beyond
+ * that are closed after use. The compile, session creation, and evaluation times are reported by
+ * {@link #metrics()}.
+ * <p>
+ * The consequences for a committed component version are kept in a {@link RuleResultCache}, so showing the same
+ * version again does not evaluate the rules again.
+ * <p>
+ * A window may instead {@linkplain #openStatefulSession open a stateful session}, that keeps its facts and only
+ * evaluates the statements that changed. The open stateful sessions are listed by {@link #statefulSessions()}, with
+ * their fact and rule firing counts. They keep the rule set version they were opened with, and are told of entity
+ * changes, so the statements about a changed component are evaluated again.
+ */
 public class EvreteRulesService implements RuleService {
 
     private static final Logger LOG = LoggerFactory.getLogger(EvreteRulesService.class);
+    public static final String SESSION_POOL_SIZE_PROPERTY = "komet.rules.session.pool.size";
 
     private Configuration conf = new Configuration();
     private KnowledgeService service;
 
-    private Knowledge knowledge;
+    private final int sessionPoolSize = Integer.getInteger(SESSION_POOL_SIZE_PROPERTY,
+            Runtime.getRuntime().availableProcessors());
+    private final RuleServiceMetrics metrics = new RuleServiceMetrics();
+    private final RuleResultCache resultCache = new RuleResultCache();
+    public static final ImmutableList<Class<?>> RULE_CLASSES = Lists.immutable.of(
+            ComponentFocusRules.class, NewConceptRules.class, AxiomFocusedRules.class, NewPatternRules.class);
+
+    private final Set<EvreteStatefulRuleSession> statefulSessions = ConcurrentHashMap.newKeySet();
+    // Held here, since the entity provider only keeps a weak reference to its subscribers.
+    private final FlowSubscriber<Integer> statefulSessionSubscriber = new FlowSubscriber<>(this::entityChanged);
+    private volatile RuleGeneration generation;
+
+    /**
+     * A rule set version: its activation index, and the knowledge compiled for each subset of the rule classes.
+     */
+    private record RuleGeneration(long version, RuleActivationIndex activationIndex,
+                                  ConcurrentHashMap<ImmutableList<Class<?>>, CompiledRules> compiledRules) {
+        RuleGeneration(long version) {
+            this(version, RuleActivationIndex.of(RULE_CLASSES), new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * A compiled subset of the rule classes and its idle sessions.
+     */
+    private record CompiledRules(ImmutableList<Class<?>> ruleClasses, Knowledge knowledge, long version,
+                                 ConcurrentLinkedDeque<StatefulSession> idleSessions, AtomicInteger idleSessionCount) {
+        CompiledRules(ImmutableList<Class<?>> ruleClasses, Knowledge knowledge, long version) {
+            this(ruleClasses, knowledge, version, new ConcurrentLinkedDeque<>(), new AtomicInteger());
+        }
+    }
 
     public EvreteRulesService() throws IOException {
         conf.addImport(Topic.class);
@@ -80,33 +144,232 @@ public EvreteRulesService() throws IOException {
         }
 
         this.service = new KnowledgeService(this.conf, MethodHandles.lookup());
-        this.knowledge = service.newKnowledge(AbstractDSLProvider.PROVIDER_JAVA_C,
-                ComponentFocusRules.class, NewConceptRules.class, AxiomFocusedRules.class, NewPatternRules.class);
-        LOG.info("Constructed EvreteRulesService");
+        RuleGeneration firstGeneration = new RuleGeneration(1);
+        compileAll(firstGeneration);
+        this.generation = firstGeneration;
+        this.resultCache.subscribeToEntityChanges();
+        Entity.provider().addSubscriberWithWeakReference(statefulSessionSubscriber);
+        LOG.info("Constructed EvreteRulesService, compiled rules in {} ms, {}", metrics.compileMillis(),
+                firstGeneration.activationIndex());
+    }
+
+    /**
+     * @return the knowledge of the rule classes in the generation, or of all the rule classes if that subset was
+     * not compiled
+     */
+    private CompiledRules compiledRules(RuleGeneration generation, ImmutableList<Class<?>> ruleClasses) {
+        CompiledRules rules = generation.compiledRules().get(ruleClasses);
+        return rules != null ? rules : generation.compiledRules().get(RULE_CLASSES);
+    }
+
+    /**
+     * Compiles all the rule classes, and the rule classes of each single topic.
+     */
+    private void compileAll(RuleGeneration generation) throws IOException {
+        compile(generation, RULE_CLASSES);
+        for (ImmutableList<Class<?>> topicSubset : generation.activationIndex().topicSubsets()) {
+            if (!generation.compiledRules().containsKey(topicSubset)) {
+                compile(generation, topicSubset);
+            }
+        }
+    }
+
+    private CompiledRules compile(RuleGeneration generation, ImmutableList<Class<?>> ruleClasses) throws IOException {
+        long compileStart = System.nanoTime();
+        Knowledge knowledge = service.newKnowledge(AbstractDSLProvider.PROVIDER_JAVA_C,
+                ruleClasses.toArray(new Class<?>[0]));
+        metrics.compiled(System.nanoTime() - compileStart);
+        CompiledRules rules = new CompiledRules(ruleClasses, knowledge, generation.version());
+        generation.compiledRules().put(ruleClasses, rules);
+        LOG.info("Compiled rule version {} of {} in {} ms", generation.version(),
+                ruleClasses.collect(Class::getSimpleName), metrics.compileMillis());
+        return rules;
+    }
+
+    /**
+     * Compiles the rule classes again, and drops the cached consequences and the idle sessions of the previous
+     * rule set version. Executions already running finish with the previous version.
+     */
+    public synchronized void reloadRules() throws IOException {
+        RuleGeneration previous = this.generation;
+        RuleGeneration next = new RuleGeneration(previous.version() + 1);
+        compileAll(next);
+        this.generation = next;
+        resultCache.clear();
+        for (CompiledRules rules : previous.compiledRules().values()) {
+            StatefulSession idle;
+            while ((idle = rules.idleSessions().pollFirst()) != null) {
+                idle.close();
+            }
+        }
+        LOG.info("Reloaded rules as version {}, {}", next.version(), next.activationIndex());
+    }
+
+    /**
+     * @return the index of the rule classes that can fire on each topic
+     */
+    public RuleActivationIndex activationIndex() {
+        return generation.activationIndex();
+    }
+
+    @Override
+    public StatefulRuleSession openStatefulSession(String name, ViewProperties viewProperties,
+                                                   EditCoordinate editCoordinate) {
+        // The statements of a window may have any topic, so its session has all the rules.
+        EvreteStatefulRuleSession session = new EvreteStatefulRuleSession(name,
+                compiledRules(generation, RULE_CLASSES).knowledge(),
+                viewProperties, editCoordinate, statefulSessions::remove);
+        statefulSessions.add(session);
+        return session;
+    }
+
+    private void entityChanged(int nid) {
+        for (EvreteStatefulRuleSession session : statefulSessions) {
+            session.entityChanged(nid);
+        }
+    }
+
+    /**
+     * @return the open stateful sessions
+     */
+    public ImmutableList<StatefulRuleSession> statefulSessions() {
+        return Lists.immutable.ofAll(statefulSessions);
+    }
+
+    public RuleServiceMetrics metrics() {
+        return metrics;
+    }
+
+    public RuleResultCache resultCache() {
+        return resultCache;
     }
 
     @Override
     public ImmutableList<Consequence<?>> execute(String knowledgeBaseName,
                                                  ImmutableList<Statement> statements,
                                                  ViewProperties viewProperties, EditCoordinate editCoordinate) {
+        return executeBatch(knowledgeBaseName, Lists.immutable.of(statements), viewProperties, editCoordinate).getFirst();
+    }
 
-        StatelessSession session = this.knowledge.newStatelessSession(ActivationMode.CONTINUOUS);
-        ConcurrentHashSet<Consequence<?>> globalActionSet = new ConcurrentHashSet<>();
-        FactHandle globalActionListHandle = session.insert0(globalActionSet, false);
+    /**
+     * Evaluates the inputs that are not cached in one session. The view properties and edit coordinate are
+     * inserted once; the statements of each input are inserted with their own consequence set, fired, and
+     * deleted again before the next input, so each rule only fires for the statements of one input.
+     */
+    @Override
+    public ImmutableList<ImmutableList<Consequence<?>>> executeBatch(String knowledgeBaseName,
+                                                                    ImmutableList<ImmutableList<Statement>> statementGroups,
+                                                                    ViewProperties viewProperties,
+                                                                    EditCoordinate editCoordinate) {
+        RuleGeneration generation = this.generation;
+        int size = statementGroups.size();
+        RuleResultCache.Lookup[] cacheLookups = new RuleResultCache.Lookup[size];
+        MutableList<ImmutableList<Consequence<?>>> results = Lists.mutable.withNValues(size, () -> null);
+        MutableIntList toEvaluate = IntLists.mutable.empty();
+        for (int i = 0; i < size; i++) {
+            cacheLookups[i] = resultCache.keyFor(statementGroups.get(i), viewProperties, editCoordinate,
+                    generation.version());
+            ImmutableList<Consequence<?>> cached = cacheLookups[i] != null ? resultCache.get(cacheLookups[i]) : null;
+            if (cached != null) {
+                results.set(i, cached);
+            } else {
+                toEvaluate.add(i);
+            }
+        }
+        if (toEvaluate.isEmpty()) {
+            return results.toImmutable();
+        }
 
-        session.insert(statements.castToList());
-        session.insert(viewProperties);
-        session.insert(editCoordinate);
+        EnumSet<Topic> topics = EnumSet.noneOf(Topic.class);
+        toEvaluate.forEach(index -> statementGroups.get(index).forEach(statement -> topics.add(statement.topic())));
+        ImmutableList<Class<?>> ruleClasses = generation.activationIndex().ruleClassesFor(topics);
+        if (ruleClasses.isEmpty()) {
+            // No rule can fire on these topics.
+            toEvaluate.forEach(index -> results.set(index, Lists.immutable.empty()));
+            return results.toImmutable();
+        }
+        CompiledRules rules = compiledRules(generation, ruleClasses);
 
-        session.fire((handle, object) -> {
-            // Inspect memory objects
-            LOG.atDebug().log("handle: " + handle + " object: " + object);
-            if (object instanceof ConcurrentHashSet<?> set) {
-                LOG.atDebug().log("Set items: " + set.stream().toList());
+        StatefulSession session = borrowSession(rules);
+        boolean reusable = false;
+        try {
+            session.insert(viewProperties);
+            session.insert(editCoordinate);
+            for (int index : toEvaluate.toArray()) {
+                ImmutableList<Consequence<?>> consequences = evaluate(session, statementGroups.get(index));
+                if (cacheLookups[index] != null) {
+                    resultCache.put(cacheLookups[index], consequences);
+                }
+                results.set(index, consequences);
             }
-        });
-        MutableList<Consequence<?>> globalActionList = Lists.mutable.ofAll(globalActionSet);
-        globalActionList.sort((o1, o2) -> o1.compareTo(o2));
-        return globalActionList.toImmutableList();
+            session.clear();
+            reusable = true;
+            return results.toImmutable();
+        } finally {
+            returnSession(rules, session, reusable);
+        }
+    }
+
+    /**
+     * Fires the rules for the statements of one input, and deletes them and their consequence set from the
+     * session again.
+     */
+    private ImmutableList<Consequence<?>> evaluate(StatefulSession session, ImmutableList<Statement> statements) {
+        long evaluationStart = System.nanoTime();
+        try {
+            ConcurrentHashSet<Consequence<?>> globalActionSet = new ConcurrentHashSet<>();
+            MutableList<FactHandle> inputHandles = Lists.mutable.ofInitialCapacity(statements.size() + 1);
+            inputHandles.add(session.insert0(globalActionSet, false));
+            for (Statement statement : statements) {
+                inputHandles.add(session.insert(statement));
+            }
+
+            session.fire();
+            if (LOG.isDebugEnabled()) {
+                session.forEachFact((handle, object) -> {
+                    // Inspect memory objects
+                    LOG.atDebug().log("handle: " + handle + " object: " + object);
+                    if (object instanceof ConcurrentHashSet<?> set) {
+                        LOG.atDebug().log("Set items: " + set.stream().toList());
+                    }
+                });
+            }
+            inputHandles.forEach(session::delete);
+            session.fire();
+
+            MutableList<Consequence<?>> globalActionList = Lists.mutable.ofAll(globalActionSet);
+            globalActionList.sort((o1, o2) -> o1.compareTo(o2));
+            return globalActionList.toImmutableList();
+        } finally {
+            metrics.evaluated(System.nanoTime() - evaluationStart);
+        }
+    }
+
+    private StatefulSession borrowSession(CompiledRules rules) {
+        StatefulSession session = rules.idleSessions().pollFirst();
+        if (session != null) {
+            rules.idleSessionCount().decrementAndGet();
+            metrics.sessionReused();
+            return session;
+        }
+        long start = System.nanoTime();
+        session = rules.knowledge().newStatefulSession(ActivationMode.CONTINUOUS);
+        metrics.sessionCreated(System.nanoTime() - start);
+        return session;
+    }
+
+    /**
+     * Returns a session to the pool, unless the pool is full, the rules were reloaded, or the session failed, in
+     * which case its memory may still hold facts of the failed execution; the session is closed instead.
+     */
+    private void returnSession(CompiledRules rules, StatefulSession session, boolean reusable) {
+        if (reusable && this.generation.compiledRules().get(rules.ruleClasses()) == rules) {
+            if (rules.idleSessionCount().incrementAndGet() <= sessionPoolSize) {
+                rules.idleSessions().offerFirst(session);
+                return;
+            }
+            rules.idleSessionCount().decrementAndGet();
+        }
+        session.close();
     }
 }
@@ -0,0 +1,335 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.rules.evrete;
+
+import dev.ikm.komet.framework.panel.axiom.AxiomSubjectRecord;
+import dev.ikm.komet.framework.performance.Statement;
+import dev.ikm.komet.framework.performance.impl.ObservationRecord;
+import dev.ikm.komet.framework.rulebase.Consequence;
+import dev.ikm.komet.framework.rulebase.StatefulRuleSession;
+import dev.ikm.komet.framework.view.ViewProperties;
+import dev.ikm.tinkar.common.sets.ConcurrentHashSet;
+import dev.ikm.tinkar.coordinate.edit.EditCoordinate;
+import dev.ikm.tinkar.entity.EntityVersion;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.ImmutableList;
+import org.eclipse.collections.api.list.MutableList;
+import org.evrete.api.ActivationMode;
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * An Evrete {@link StatefulSession} kept open for a window.
+ * <p>
+ * The statements are inserted and fired one at a time. The consequence set the rules add to stays in the session's
+ * memory, but it is emptied after each firing, so what a firing added to it belongs to the statement just inserted
+ * and is moved to that statement's consequences. When a statement is retracted, its fact is deleted and its
+ * consequences are dropped with it. The view properties and the edit coordinate match every rule, so when one of
+ * them changes, the statements are retracted and inserted again.
+ * <p>
+ * A statement about a component is retracted and inserted again when the component changes, or a semantic that
+ * refers to it, such as a base model membership, so its consequences do not outlive the state they were computed
+ * from. The changes are queued by {@link #entityChanged(int)} and applied when the session is next used.
+ * <p>
+ * Rule firings are counted by an action chained to the right hand side of each rule of the session.
+ */
+final class EvreteStatefulRuleSession implements StatefulRuleSession {
+    private static final Logger LOG = LoggerFactory.getLogger(EvreteStatefulRuleSession.class);
+    private static final int MAX_PENDING_CHANGES = 256;
+
+    private final String name;
+    private final StatefulSession session;
+    private final Consumer<EvreteStatefulRuleSession> onClose;
+    private final IntUnaryOperator referencedComponentOf;
+    private final ConcurrentLinkedQueue<Integer> pendingChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean pendingOverflowed = new AtomicBoolean();
+    // Collects the consequences of one firing; empty between firings.
+    private final ConcurrentHashSet<Consequence<?>> firingConsequences = new ConcurrentHashSet<>();
+    private int consequenceCount;
+    private final LinkedHashMap<Statement, StatementFacts> statementFacts = new LinkedHashMap<>();
+    private final AtomicLong firingCount = new AtomicLong();
+    private FactHandle viewPropertiesHandle;
+    private FactHandle editCoordinateHandle;
+    private boolean closed;
+
+    /**
+     * The fact of a statement, the component it is about, and the consequences its insertion produced.
+     */
+    private record StatementFacts(FactHandle handle, int componentNid, List<Consequence<?>> consequences) {}
+
+    EvreteStatefulRuleSession(String name, Knowledge knowledge, ViewProperties viewProperties,
+                              EditCoordinate editCoordinate, Consumer<EvreteStatefulRuleSession> onClose) {
+        this(name, knowledge, viewProperties, editCoordinate, RuleResultCache::referencedComponentOf, onClose);
+    }
+
+    /**
+     * Opens a session with any facts in place of the view properties and edit coordinate, for rules that do not
+     * use them.
+     *
+     * @param referencedComponentOf the component a changed semantic refers to, or
+     *                              {@link RuleResultCache#NO_COMPONENT} if the changed nid is not a semantic
+     */
+    EvreteStatefulRuleSession(String name, Knowledge knowledge, Object viewProperties, Object editCoordinate,
+                              IntUnaryOperator referencedComponentOf, Consumer<EvreteStatefulRuleSession> onClose) {
+        this.name = name;
+        this.onClose = onClose;
+        this.referencedComponentOf = referencedComponentOf;
+        this.session = knowledge.newStatefulSession(ActivationMode.CONTINUOUS);
+        this.session.getRules().forEach(rule -> rule.chainRhs(ctx -> firingCount.incrementAndGet()));
+        this.session.insert0(firingConsequences, false);
+        this.viewPropertiesHandle = session.insert(viewProperties);
+        this.editCoordinateHandle = session.insert(editCoordinate);
+        this.session.fire();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public synchronized ImmutableList<Consequence<?>> setStatements(ImmutableList<Statement> statements) {
+        checkOpen();
+        applyPendingChanges();
+        Set<Statement> focused = new HashSet<>(statements.castToList());
+        boolean retracted = false;
+        for (Iterator<Map.Entry<Statement, StatementFacts>> iterator = statementFacts.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Statement, StatementFacts> entry = iterator.next();
+            if (!focused.contains(entry.getKey())) {
+                retract(entry.getValue());
+                iterator.remove();
+                retracted = true;
+            }
+        }
+        if (retracted) {
+            session.fire();
+        }
+        for (Statement statement : statements) {
+            if (!statementFacts.containsKey(statement)) {
+                statementFacts.put(statement, insertAndFire(statement));
+            }
+        }
+        return collectConsequences();
+    }
+
+    @Override
+    public synchronized ImmutableList<Consequence<?>> consequences() {
+        checkOpen();
+        applyPendingChanges();
+        return collectConsequences();
+    }
+
+    @Override
+    public synchronized ImmutableList<Consequence<?>> setViewProperties(ViewProperties viewProperties) {
+        checkOpen();
+        session.delete(viewPropertiesHandle);
+        viewPropertiesHandle = session.insert(viewProperties);
+        discardPendingChanges();
+        return reevaluate();
+    }
+
+    @Override
+    public synchronized ImmutableList<Consequence<?>> setEditCoordinate(EditCoordinate editCoordinate) {
+        checkOpen();
+        session.delete(editCoordinateHandle);
+        editCoordinateHandle = session.insert(editCoordinate);
+        discardPendingChanges();
+        return reevaluate();
+    }
+
+    @Override
+    public synchronized Memory memory() {
+        if (closed) {
+            return new Memory(0, 0, 0, Map.of());
+        }
+        applyPendingChanges();
+        Map<String, Integer> factsByType = new TreeMap<>();
+        int[] count = new int[1];
+        session.forEachFact((handle, fact) -> {
+            count[0]++;
+            factsByType.merge(fact.getClass().getSimpleName(), 1, Integer::sum);
+        });
+        return new Memory(count[0], statementFacts.size(), consequenceCount, Collections.unmodifiableMap(factsByType));
+    }
+
+    @Override
+    public long firingCount() {
+        return firingCount.get();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            statementFacts.clear();
+            discardPendingChanges();
+            firingConsequences.clear();
+            consequenceCount = 0;
+            session.close();
+        }
+        onClose.accept(this);
+        LOG.debug("Closed stateful rule session {} after {} rule firings", name, firingCount.get());
+    }
+
+    /**
+     * Queues a change to an entity for the next use of the session; called on the thread that wrote the entity,
+     * so it does no more than that.
+     */
+    void entityChanged(int nid) {
+        if (pendingCount.incrementAndGet() <= MAX_PENDING_CHANGES) {
+            pendingChanges.add(nid);
+        } else {
+            pendingCount.decrementAndGet();
+            // Too many to resolve: evaluate every statement again when next used.
+            pendingOverflowed.set(true);
+        }
+    }
+
+    /**
+     * Retracts the statements about the changed components, and inserts them again.
+     */
+    private void applyPendingChanges() {
+        if (pendingOverflowed.getAndSet(false)) {
+            discardPendingChanges();
+            if (!statementFacts.isEmpty()) {
+                reevaluate();
+            }
+            return;
+        }
+        Set<Integer> changedComponents = new HashSet<>();
+        for (Integer nid; (nid = pendingChanges.poll()) != null; ) {
+            pendingCount.decrementAndGet();
+            if (statementFacts.isEmpty()) {
+                continue;
+            }
+            changedComponents.add(nid);
+            // A change to a semantic, such as a base model membership, changes the consequences of its component.
+            int referencedComponentNid = referencedComponentOf.applyAsInt(nid);
+            if (referencedComponentNid != RuleResultCache.NO_COMPONENT) {
+                changedComponents.add(referencedComponentNid);
+            }
+        }
+        if (changedComponents.isEmpty()) {
+            return;
+        }
+        List<Statement> changed = new ArrayList<>();
+        statementFacts.forEach((statement, facts) -> {
+            if (changedComponents.contains(facts.componentNid())) {
+                changed.add(statement);
+            }
+        });
+        if (changed.isEmpty()) {
+            return;
+        }
+        changed.forEach(statement -> retract(statementFacts.remove(statement)));
+        session.fire();
+        for (Statement statement : changed) {
+            statementFacts.put(statement, insertAndFire(statement));
+        }
+    }
+
+    private void discardPendingChanges() {
+        for (Integer nid; (nid = pendingChanges.poll()) != null; ) {
+            pendingCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Retracts the statements, so the deleted coordinate fact is processed, and inserts them again.
+     */
+    private ImmutableList<Consequence<?>> reevaluate() {
+        List<Statement> statements = new ArrayList<>(statementFacts.keySet());
+        statementFacts.values().forEach(this::retract);
+        statementFacts.clear();
+        session.fire();
+        for (Statement statement : statements) {
+            statementFacts.put(statement, insertAndFire(statement));
+        }
+        return collectConsequences();
+    }
+
+    private StatementFacts insertAndFire(Statement statement) {
+        FactHandle handle = session.insert(statement);
+        session.fire();
+        List<Consequence<?>> added = new ArrayList<>(firingConsequences);
+        firingConsequences.clear();
+        consequenceCount += added.size();
+        return new StatementFacts(handle, componentNidOf(statement), added);
+    }
+
+    /**
+     * @return the nid of the component a statement is about, or {@link RuleResultCache#NO_COMPONENT} if it is not
+     * about a component, such as a request
+     */
+    static int componentNidOf(Statement statement) {
+        if (statement instanceof ObservationRecord observation) {
+            if (observation.subject() instanceof EntityVersion version) {
+                return version.nid();
+            }
+            if (observation.subject() instanceof AxiomSubjectRecord axiom) {
+                return axiom.semanticContainingAxiom().nid();
+            }
+        }
+        return RuleResultCache.NO_COMPONENT;
+    }
+
+    private void retract(StatementFacts facts) {
+        session.delete(facts.handle());
+        consequenceCount -= facts.consequences().size();
+    }
+
+    private ImmutableList<Consequence<?>> collectConsequences() {
+        MutableList<Consequence<?>> consequenceList = Lists.mutable.ofInitialCapacity(consequenceCount);
+        statementFacts.values().forEach(facts -> consequenceList.addAll(facts.consequences()));
+        consequenceList.sort((o1, o2) -> o1.compareTo(o2));
+        return consequenceList.toImmutableList();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Stateful rule session " + name + " is closed");
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "EvreteStatefulRuleSession{" + name + ", statements=" + statementFacts.size() +
+                ", firings=" + firingCount.get() + "}";
+    }
+}
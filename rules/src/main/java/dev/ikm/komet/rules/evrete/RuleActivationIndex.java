@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.rules.evrete;
+
+import dev.ikm.komet.framework.performance.Topic;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.ImmutableList;
+import org.eclipse.collections.api.list.MutableList;
+import org.evrete.dsl.annotation.Rule;
+import org.evrete.dsl.annotation.Where;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maps each {@link Topic} to the rule classes that have a rule that can fire on it, so an input is only evaluated
+ * by the rules of its topics.
+ * <p>
+ * The index is built from the annotations of the rule classes: a rule can fire on the topics named by a
+ * {@code topic() == Topic.NAME} condition of its {@link Where} annotation. A rule without such a condition can fire
+ * on every topic, and so can the class that declares it.
+ */
+public final class RuleActivationIndex {
+    private static final Pattern TOPIC_CONDITION = Pattern.compile("topic\\(\\)\\s*==\\s*Topic\\.(\\w+)");
+
+    private final ImmutableList<Class<?>> ruleClasses;
+    private final Map<Class<?>, Set<Topic>> topicsByClass;
+    private final EnumMap<Topic, ImmutableList<Class<?>>> classesByTopic = new EnumMap<>(Topic.class);
+
+    private RuleActivationIndex(ImmutableList<Class<?>> ruleClasses, Map<Class<?>, Set<Topic>> topicsByClass) {
+        this.ruleClasses = ruleClasses;
+        this.topicsByClass = topicsByClass;
+        for (Topic topic : Topic.values()) {
+            classesByTopic.put(topic, ruleClasses.select(ruleClass -> topicsByClass.get(ruleClass).contains(topic)));
+        }
+    }
+
+    static RuleActivationIndex of(ImmutableList<Class<?>> ruleClasses) {
+        Map<Class<?>, Set<Topic>> topicsByClass = new HashMap<>();
+        for (Class<?> ruleClass : ruleClasses) {
+            topicsByClass.put(ruleClass, Collections.unmodifiableSet(topicsOfRules(ruleClass)));
+        }
+        return new RuleActivationIndex(ruleClasses, topicsByClass);
+    }
+
+    private static EnumSet<Topic> topicsOfRules(Class<?> ruleClass) {
+        EnumSet<Topic> topics = EnumSet.noneOf(Topic.class);
+        for (Method method : ruleClass.getMethods()) {
+            if (!method.isAnnotationPresent(Rule.class)) {
+                continue;
+            }
+            EnumSet<Topic> ruleTopics = EnumSet.noneOf(Topic.class);
+            Where where = method.getAnnotation(Where.class);
+            if (where != null) {
+                for (String condition : where.value()) {
+                    Matcher matcher = TOPIC_CONDITION.matcher(condition);
+                    while (matcher.find()) {
+                        ruleTopics.add(Topic.valueOf(matcher.group(1)));
+                    }
+                }
+            }
+            if (ruleTopics.isEmpty()) {
+                // Not gated on a topic, so it may fire on any.
+                return EnumSet.allOf(Topic.class);
+            }
+            topics.addAll(ruleTopics);
+        }
+        return topics;
+    }
+
+    /**
+     * @return the rule classes that can fire on any of the topics, in the order of all rule classes
+     */
+    public ImmutableList<Class<?>> ruleClassesFor(Set<Topic> topics) {
+        if (topics.size() == 1) {
+            return classesByTopic.get(topics.iterator().next());
+        }
+        MutableList<Class<?>> selected = Lists.mutable.empty();
+        for (Class<?> ruleClass : ruleClasses) {
+            if (!Collections.disjoint(topicsByClass.get(ruleClass), topics)) {
+                selected.add(ruleClass);
+            }
+        }
+        return selected.toImmutable();
+    }
+
+    /**
+     * @return the distinct, non-empty subsets of the rule classes that can fire on a single topic
+     */
+    public ImmutableList<ImmutableList<Class<?>>> topicSubsets() {
+        return Lists.immutable.ofAll(classesByTopic.values())
+                .select(subset -> subset.notEmpty())
+                .distinct();
+    }
+
+    /**
+     * @return the topics a rule class has a rule for
+     */
+    public Set<Topic> topicsOf(Class<?> ruleClass) {
+        return topicsByClass.getOrDefault(ruleClass, Collections.emptySet());
+    }
+
+    public ImmutableList<Class<?>> ruleClasses() {
+        return ruleClasses;
+    }
+
+    @Override
+    public String toString() {
+        return "RuleActivationIndex" + classesByTopic;
+    }
+}
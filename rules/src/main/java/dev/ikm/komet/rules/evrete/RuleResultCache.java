@@ -0,0 +1,275 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.rules.evrete;
+
+import dev.ikm.komet.framework.performance.Statement;
+import dev.ikm.komet.framework.performance.Topic;
+import dev.ikm.komet.framework.performance.impl.ObservationRecord;
+import dev.ikm.komet.framework.rulebase.Consequence;
+import dev.ikm.komet.framework.rulebase.ConsequenceAction;
+import dev.ikm.komet.framework.view.ViewProperties;
+import dev.ikm.tinkar.common.flow.FlowSubscriber;
+import dev.ikm.tinkar.coordinate.edit.EditCoordinate;
+import dev.ikm.tinkar.coordinate.edit.EditCoordinateRecord;
+import dev.ikm.tinkar.coordinate.view.ViewCoordinateRecord;
+import dev.ikm.tinkar.entity.Entity;
+import dev.ikm.tinkar.entity.EntityVersion;
+import dev.ikm.tinkar.entity.SemanticEntity;
+import org.eclipse.collections.api.list.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A bounded, least recently used cache of the consequences computed for a focused component version.
+ * <p>
+ * Only a single observation of a committed version is cached: its inputs cannot change, so the consequences
+ * are determined by the version's stamp, the view and edit coordinates, and the rules. Results that contain a
+ * {@link dev.ikm.komet.framework.rulebase.ConsequenceMenu} are not cached, because a menu is a scene graph node
+ * that cannot be shown in more than one place.
+ * <p>
+ * Entries are invalidated when their component changes, or when a semantic that refers to it changes, such as
+ * its membership in a base model. Entries computed by an older rule set version are never returned. A change
+ * notification only counts the change in the invalidation epoch of its component and queues it; the queued
+ * changes are applied by the next lookup or store, which resolves the semantics among them. When more than
+ * {@value #MAX_PENDING_CHANGES} changes are queued, as during an import, the whole cache is cleared instead, without
+ * resolving any of them. A {@link Lookup} records the epochs seen when it was made, and its consequences are not
+ * stored if a change to its component, or a clear, happened while they were being computed.
+ */
+public final class RuleResultCache {
+    public static final String CACHE_SIZE_PROPERTY = "komet.rules.cache.size";
+    static final int MAX_PENDING_CHANGES = 256;
+    static final int NO_COMPONENT = Integer.MIN_VALUE;
+    // Components share an epoch per stripe; a collision only makes a store be skipped.
+    private static final int EPOCH_STRIPES = 4096;
+
+    /**
+     * The inputs that determine the consequences of a focused component version.
+     */
+    record Key(Topic topic, int componentNid, int stampNid, ViewCoordinateRecord viewCoordinate,
+               EditCoordinateRecord editCoordinate, long ruleSetVersion) {}
+
+    /**
+     * A key, and the invalidation epochs of its component and of the whole cache when it was made.
+     */
+    record Lookup(Key key, long componentEpoch, long clearEpoch) {}
+
+    private final int maxEntries;
+    private final IntUnaryOperator referencedComponentOf;
+    private final LinkedHashMap<Key, ImmutableList<Consequence<?>>> entries;
+    private final Map<Integer, List<Key>> keysByComponent = new HashMap<>();
+    private final AtomicLongArray componentEpochs = new AtomicLongArray(EPOCH_STRIPES);
+    private final AtomicLong clearEpoch = new AtomicLong();
+    private final ConcurrentLinkedQueue<Integer> pendingChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean pendingOverflowed = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    // Held here, since the entity provider only keeps a weak reference.
+    private final FlowSubscriber<Integer> invalidationSubscriber = new FlowSubscriber<>(this::entityChanged);
+
+    RuleResultCache() {
+        this(Integer.getInteger(CACHE_SIZE_PROPERTY, 4096), RuleResultCache::referencedComponentOf);
+    }
+
+    /**
+     * @param referencedComponentOf the component a changed semantic refers to, or {@link #NO_COMPONENT} if the
+     *                              changed nid is not a semantic
+     */
+    RuleResultCache(int maxEntries, IntUnaryOperator referencedComponentOf) {
+        this.maxEntries = maxEntries;
+        this.referencedComponentOf = referencedComponentOf;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ImmutableList<Consequence<?>>> eldest) {
+                if (size() > RuleResultCache.this.maxEntries) {
+                    unindex(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    static int referencedComponentOf(int nid) {
+        return Entity.getFast(nid) instanceof SemanticEntity<?> semantic ? semantic.referencedComponentNid() : NO_COMPONENT;
+    }
+
+    private static int stripe(int componentNid) {
+        return (componentNid * 0x9E3779B9 >>> 20) & (EPOCH_STRIPES - 1);
+    }
+
+    /**
+     * Subscribes to entity changes, so entries are invalidated when their component changes.
+     */
+    void subscribeToEntityChanges() {
+        Entity.provider().addSubscriberWithWeakReference(invalidationSubscriber);
+    }
+
+    /**
+     * @return the lookup for the inputs, or null if their consequences cannot be cached
+     */
+    Lookup keyFor(ImmutableList<Statement> statements, ViewProperties viewProperties,
+                  EditCoordinate editCoordinate, long ruleSetVersion) {
+        if (statements.size() != 1
+                || !(statements.getFirst() instanceof ObservationRecord observation)
+                || !(observation.subject() instanceof EntityVersion version)
+                || version.uncommitted()) {
+            return null;
+        }
+        return lookup(new Key(observation.topic(), version.nid(), version.stampNid(),
+                viewProperties.calculator().viewCoordinateRecord(), editCoordinate.toEditCoordinateRecord(),
+                ruleSetVersion));
+    }
+
+    Lookup lookup(Key key) {
+        return new Lookup(key, componentEpochs.get(stripe(key.componentNid())), clearEpoch.get());
+    }
+
+    synchronized ImmutableList<Consequence<?>> get(Lookup lookup) {
+        applyPendingChanges();
+        ImmutableList<Consequence<?>> consequences = entries.get(lookup.key());
+        if (consequences == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return consequences;
+    }
+
+    /**
+     * Stores the consequences computed for the lookup, unless its component changed since the lookup was made.
+     */
+    void put(Lookup lookup, ImmutableList<Consequence<?>> consequences) {
+        if (!consequences.allSatisfy(consequence -> consequence instanceof ConsequenceAction)) {
+            return;
+        }
+        Key key = lookup.key();
+        synchronized (this) {
+            applyPendingChanges();
+            if (componentEpochs.get(stripe(key.componentNid())) != lookup.componentEpoch()
+                    || clearEpoch.get() != lookup.clearEpoch()) {
+                return;
+            }
+            if (entries.put(key, consequences) == null) {
+                keysByComponent.computeIfAbsent(key.componentNid(), nid -> new ArrayList<>(2)).add(key);
+            }
+        }
+    }
+
+    /**
+     * Removes every entry, for example after the rules were reloaded.
+     */
+    public synchronized void clear() {
+        clearEpoch.incrementAndGet();
+        removeAll();
+    }
+
+    /**
+     * Counts the change in the epoch of the component, and queues it for the next lookup or store; called on the
+     * thread that wrote the entity, so it does no more than that.
+     */
+    void entityChanged(int nid) {
+        componentEpochs.incrementAndGet(stripe(nid));
+        if (pendingCount.incrementAndGet() <= MAX_PENDING_CHANGES) {
+            pendingChanges.add(nid);
+        } else {
+            pendingCount.decrementAndGet();
+            // Too many to resolve: reject every computation under way, and clear the cache when next used.
+            clearEpoch.incrementAndGet();
+            pendingOverflowed.set(true);
+        }
+    }
+
+    private void applyPendingChanges() {
+        if (pendingOverflowed.getAndSet(false)) {
+            removeAll();
+        }
+        boolean unresolved = false;
+        for (Integer nid; (nid = pendingChanges.poll()) != null; ) {
+            pendingCount.decrementAndGet();
+            if (entries.isEmpty()) {
+                unresolved = true;
+                continue;
+            }
+            invalidate(nid);
+            // A change to a semantic, such as a base model membership, changes the consequences of its component.
+            int referencedComponentNid = referencedComponentOf.applyAsInt(nid);
+            if (referencedComponentNid != NO_COMPONENT) {
+                componentEpochs.incrementAndGet(stripe(referencedComponentNid));
+                invalidate(referencedComponentNid);
+            }
+        }
+        if (unresolved) {
+            // Nothing to invalidate, but a computation under way may depend on a changed semantic.
+            clearEpoch.incrementAndGet();
+        }
+    }
+
+    private void removeAll() {
+        invalidations.add(entries.size());
+        entries.clear();
+        keysByComponent.clear();
+    }
+
+    private void invalidate(int componentNid) {
+        List<Key> keys = keysByComponent.remove(componentNid);
+        if (keys != null) {
+            keys.forEach(entries::remove);
+            invalidations.add(keys.size());
+        }
+    }
+
+    private void unindex(Key key) {
+        List<Key> keys = keysByComponent.get(key.componentNid());
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysByComponent.remove(key.componentNid());
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long invalidations() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "RuleResultCache{size=" + size() + "/" + maxEntries + ", hits=" + hits() + ", misses=" + misses() +
+                ", invalidations=" + invalidations() + "}";
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.rules.evrete;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings of the {@link EvreteRulesService}, kept apart so the one-time cost of compiling the knowledge can be
+ * told from the cost of each evaluation, and the cost of creating sessions from the cost of firing them.
+ */
+public final class RuleServiceMetrics {
+    private final AtomicLong compileNanos = new AtomicLong();
+    private final LongAdder sessionsCreated = new LongAdder();
+    private final LongAdder sessionsReused = new LongAdder();
+    private final LongAdder sessionCreateNanos = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder evaluationNanos = new LongAdder();
+    private final AtomicLong maxEvaluationNanos = new AtomicLong();
+
+    void compiled(long nanos) {
+        compileNanos.set(nanos);
+    }
+
+    void sessionCreated(long nanos) {
+        sessionsCreated.increment();
+        sessionCreateNanos.add(nanos);
+    }
+
+    void sessionReused() {
+        sessionsReused.increment();
+    }
+
+    void evaluated(long nanos) {
+        evaluations.increment();
+        evaluationNanos.add(nanos);
+        maxEvaluationNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * @return how long compiling the rule classes into the knowledge took
+     */
+    public long compileMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(compileNanos.get());
+    }
+
+    public long sessionsCreated() {
+        return sessionsCreated.sum();
+    }
+
+    public long sessionsReused() {
+        return sessionsReused.sum();
+    }
+
+    /**
+     * @return the mean time to create a session, in microseconds
+     */
+    public long meanSessionCreateMicros() {
+        long created = sessionsCreated.sum();
+        return created == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(sessionCreateNanos.sum() / created);
+    }
+
+    public long evaluations() {
+        return evaluations.sum();
+    }
+
+    /**
+     * @return the mean time to insert the facts, fire the rules and collect the consequences, in microseconds
+     */
+    public long meanEvaluationMicros() {
+        long count = evaluations.sum();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(evaluationNanos.sum() / count);
+    }
+
+    public long maxEvaluationMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxEvaluationNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return "RuleServiceMetrics{compile=" + compileMillis() + " ms, sessions created=" + sessionsCreated() +
+                " (mean " + meanSessionCreateMicros() + " µs), reused=" + sessionsReused() +
+                ", evaluations=" + evaluations() + " (mean " + meanEvaluationMicros() + " µs, max " +
+                maxEvaluationMicros() + " µs)}";
+    }
+}
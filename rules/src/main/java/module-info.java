@@ -13,8 +13,10 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+import dev.ikm.komet.rules.annotated.BaseModelMembership;
 import dev.ikm.komet.rules.evrete.EvreteRulesService;
 import dev.ikm.komet.framework.rulebase.RuleService;
+import dev.ikm.tinkar.common.service.CachingService;
 
 open module dev.ikm.komet.rules {
     requires transitive dev.ikm.komet.framework;
@@ -27,6 +29,7 @@
     exports dev.ikm.komet.rules.evrete;
     exports dev.ikm.komet.rules.annotated;
 
+    provides CachingService with BaseModelMembership.CacheProvider;
     provides RuleService with EvreteRulesService;
 
     uses dev.ikm.komet.framework.events.EvtBus;
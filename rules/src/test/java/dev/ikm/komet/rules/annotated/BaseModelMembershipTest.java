@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.rules.annotated;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BaseModelMembershipTest {
+    private static final int TINKAR_PATTERN = -100;
+    private static final int KOMET_PATTERN = -101;
+    private static final int OTHER_PATTERN = -102;
+    private static final int CONCEPT = -1;
+    private static final int OTHER_CONCEPT = -2;
+
+    // The semantics of the fake data store, by nid.
+    private final Map<Integer, BaseModelMembership.Semantic> semantics = new HashMap<>();
+    // The nids the membership resolved, one at a time.
+    private final AtomicInteger resolvedCount = new AtomicInteger();
+    // What the membership did while it was constructed, in order.
+    private final List<String> steps = new ArrayList<>();
+
+    private BaseModelMembership membership() {
+        return new BaseModelMembership(TINKAR_PATTERN, KOMET_PATTERN,
+                patternNid -> {
+                    steps.add("load " + patternNid);
+                    return semantics.entrySet().stream()
+                            .filter(entry -> entry.getValue().patternNid() == patternNid)
+                            .mapToInt(Map.Entry::getKey).toArray();
+                },
+                nid -> {
+                    resolvedCount.incrementAndGet();
+                    return semantics.get(nid);
+                },
+                subscriber -> steps.add("subscribe"));
+    }
+
+    @Test
+    public void testSubscribesBeforeLoading() {
+        membership();
+
+        assertEquals(List.of("subscribe", "load " + TINKAR_PATTERN, "load " + KOMET_PATTERN), steps);
+    }
+
+    @Test
+    public void testLoadedMembersAndTheirSemantics() {
+        semantics.put(10, new BaseModelMembership.Semantic(TINKAR_PATTERN, CONCEPT));
+        semantics.put(11, new BaseModelMembership.Semantic(KOMET_PATTERN, CONCEPT));
+        semantics.put(12, new BaseModelMembership.Semantic(OTHER_PATTERN, OTHER_CONCEPT));
+        BaseModelMembership membership = membership();
+
+        assertTrue(membership.isTinkarBaseModelMember(CONCEPT));
+        assertTrue(membership.isKometBaseModelMember(CONCEPT));
+        assertArrayEquals(new int[] {10}, membership.tinkarBaseModelSemanticNids(CONCEPT));
+        assertArrayEquals(new int[] {11}, membership.kometBaseModelSemanticNids(CONCEPT));
+        assertFalse(membership.isTinkarBaseModelMember(OTHER_CONCEPT));
+        assertArrayEquals(new int[0], membership.kometBaseModelSemanticNids(OTHER_CONCEPT));
+    }
+
+    @Test
+    public void testChangesAreResolvedByTheNextLookup() {
+        BaseModelMembership membership = membership();
+        semantics.put(10, new BaseModelMembership.Semantic(TINKAR_PATTERN, CONCEPT));
+        semantics.put(11, new BaseModelMembership.Semantic(TINKAR_PATTERN, CONCEPT));
+        semantics.put(12, new BaseModelMembership.Semantic(OTHER_PATTERN, OTHER_CONCEPT));
+        membership.entityChanged(10);
+        membership.entityChanged(11);
+        membership.entityChanged(12);
+        membership.entityChanged(10);
+        membership.entityChanged(OTHER_CONCEPT);
+        assertEquals(0, resolvedCount.get());
+
+        assertArrayEquals(new int[] {10, 11}, membership.tinkarBaseModelSemanticNids(CONCEPT));
+        assertFalse(membership.isKometBaseModelMember(CONCEPT));
+        assertFalse(membership.isTinkarBaseModelMember(OTHER_CONCEPT));
+        assertEquals(5, resolvedCount.get());
+    }
+
+    @Test
+    public void testTooManyChangesLoadTheSetsAgain() {
+        BaseModelMembership membership = membership();
+        semantics.put(10, new BaseModelMembership.Semantic(KOMET_PATTERN, CONCEPT));
+        for (int i = 0; i <= BaseModelMembership.MAX_PENDING_CHANGES; i++) {
+            membership.entityChanged(1000 + i);
+        }
+        resolvedCount.set(0);
+
+        assertTrue(membership.isKometBaseModelMember(CONCEPT));
+        // Only the loaded semantic of each pattern is resolved, not the changes.
+        assertEquals(1, resolvedCount.get());
+
+        membership.entityChanged(10);
+        assertArrayEquals(new int[] {10}, membership.kometBaseModelSemanticNids(CONCEPT));
+    }
+}
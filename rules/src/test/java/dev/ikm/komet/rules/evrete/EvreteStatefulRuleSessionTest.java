@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.rules.evrete;
+
+import dev.ikm.komet.framework.performance.Topic;
+import dev.ikm.komet.framework.performance.impl.RequestRecord;
+import dev.ikm.komet.framework.rulebase.Consequence;
+import dev.ikm.komet.framework.rulebase.ConsequenceAction;
+import dev.ikm.komet.framework.rulebase.GeneratedAction;
+import dev.ikm.komet.framework.rulebase.StatefulRuleSession;
+import dev.ikm.tinkar.common.sets.ConcurrentHashSet;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.ImmutableList;
+import org.evrete.KnowledgeService;
+import org.evrete.api.Knowledge;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EvreteStatefulRuleSessionTest {
+
+    record Proposal(String text) implements GeneratedAction {
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * One rule, that proposes the subject of every request twice.
+     */
+    private static Knowledge knowledge() {
+        Knowledge knowledge = new KnowledgeService().newKnowledge();
+        knowledge.newRule("Propose the request")
+                .forEach(
+                        "$request", RequestRecord.class,
+                        "$actionList", ConcurrentHashSet.class)
+                .execute(ctx -> {
+                    RequestRecord $request = ctx.get("$request");
+                    ConcurrentHashSet<Consequence<?>> $actionList = ctx.get("$actionList");
+                    $actionList.add(new ConsequenceAction(UUID.randomUUID(), "propose",
+                            new Proposal($request.subject() + " a")));
+                    $actionList.add(new ConsequenceAction(UUID.randomUUID(), "propose",
+                            new Proposal($request.subject() + " b")));
+                });
+        return knowledge;
+    }
+
+    private static EvreteStatefulRuleSession open() {
+        return new EvreteStatefulRuleSession("test", knowledge(), "view properties", "edit coordinate",
+                nid -> RuleResultCache.NO_COMPONENT, session -> { });
+    }
+
+    private static RequestRecord request(String subject) {
+        return RequestRecord.make(Topic.NEW_CONCEPT_REQUEST, subject);
+    }
+
+    private static List<String> texts(ImmutableList<Consequence<?>> consequences) {
+        return consequences.collect(consequence -> consequence.get().toString()).castToList();
+    }
+
+    @Test
+    public void testOnlyNewStatementsFire() {
+        try (EvreteStatefulRuleSession session = open()) {
+            assertEquals(List.of("x a", "x b"), texts(session.setStatements(Lists.immutable.of(request("x")))));
+            assertEquals(2, session.firingCount());
+
+            assertEquals(List.of("x a", "x b", "y a", "y b"),
+                    texts(session.setStatements(Lists.immutable.of(request("x"), request("y")))));
+            assertEquals(4, session.firingCount());
+        }
+    }
+
+    @Test
+    public void testRetractedStatementsTakeTheirConsequences() {
+        try (EvreteStatefulRuleSession session = open()) {
+            session.setStatements(Lists.immutable.of(request("x"), request("y")));
+
+            assertEquals(List.of("y a", "y b"), texts(session.setStatements(Lists.immutable.of(request("y")))));
+            assertEquals(List.of(), texts(session.setStatements(Lists.immutable.empty())));
+        }
+    }
+
+    @Test
+    public void testEntityChangesEvaluateOnlyTheStatementsAboutThem() {
+        try (EvreteStatefulRuleSession session = open()) {
+            session.setStatements(Lists.immutable.of(request("x")));
+
+            // A request is not about a component, so a change to one does not fire its rule again.
+            session.entityChanged(42);
+            assertEquals(List.of("x a", "x b"), texts(session.consequences()));
+            assertEquals(2, session.firingCount());
+
+            // Too many changes to resolve evaluate every statement again.
+            for (int nid = 0; nid <= 256; nid++) {
+                session.entityChanged(nid);
+            }
+            assertEquals(List.of("x a", "x b"), texts(session.consequences()));
+            assertEquals(4, session.firingCount());
+        }
+    }
+
+    @Test
+    public void testMemoryShowsWhatTheSessionHolds() {
+        EvreteStatefulRuleSession session = open();
+        session.setStatements(Lists.immutable.of(request("x"), request("y")));
+
+        StatefulRuleSession.Memory memory = session.memory();
+        // The view properties, the edit coordinate, the consequence set and two requests.
+        assertEquals(5, memory.factCount());
+        assertEquals(2, memory.statementCount());
+        assertEquals(4, memory.consequenceCount());
+        assertEquals(2, (int) memory.factsByType().get("RequestRecord"));
+
+        session.close();
+        assertEquals(0, session.memory().factCount());
+        assertThrows(IllegalStateException.class, () -> session.setStatements(Lists.immutable.empty()));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2015 Integrated Knowledge Management (support@ikm.dev)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.ikm.komet.rules.evrete;
+
+import dev.ikm.komet.framework.performance.Topic;
+import dev.ikm.komet.framework.rulebase.Consequence;
+import dev.ikm.komet.framework.rulebase.ConsequenceAction;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.ImmutableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class RuleResultCacheTest {
+    private static final int CONCEPT = 1;
+    private static final int OTHER_CONCEPT = 2;
+    private static final int MEMBERSHIP_SEMANTIC = 3;
+
+    // The changed nids the cache resolved to find the component a semantic refers to.
+    private final AtomicInteger resolvedCount = new AtomicInteger();
+    private final RuleResultCache cache = new RuleResultCache(2, nid -> {
+        resolvedCount.incrementAndGet();
+        return nid == MEMBERSHIP_SEMANTIC ? CONCEPT : RuleResultCache.NO_COMPONENT;
+    });
+
+    private static RuleResultCache.Key key(int componentNid, int stampNid) {
+        return new RuleResultCache.Key(Topic.COMPONENT_FOCUSED, componentNid, stampNid, null, null, 1);
+    }
+
+    private static ImmutableList<Consequence<?>> consequences() {
+        return Lists.immutable.of(new ConsequenceAction(UUID.randomUUID(), "rule", null));
+    }
+
+    @Test
+    public void testStoredConsequencesAreReturnedForTheSameInputs() {
+        ImmutableList<Consequence<?>> consequences = consequences();
+        cache.put(cache.lookup(key(CONCEPT, 10)), consequences);
+
+        assertSame(consequences, cache.get(cache.lookup(key(CONCEPT, 10))));
+        assertNull(cache.get(cache.lookup(key(CONCEPT, 11))));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        cache.put(cache.lookup(key(CONCEPT, 10)), consequences());
+        cache.put(cache.lookup(key(OTHER_CONCEPT, 20)), consequences());
+        cache.get(cache.lookup(key(CONCEPT, 10)));
+        cache.put(cache.lookup(key(4, 40)), consequences());
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get(cache.lookup(key(OTHER_CONCEPT, 20))));
+    }
+
+    @Test
+    public void testChangeToComponentOrItsSemanticInvalidatesIt() {
+        cache.put(cache.lookup(key(CONCEPT, 10)), consequences());
+        cache.put(cache.lookup(key(OTHER_CONCEPT, 20)), consequences());
+
+        cache.entityChanged(MEMBERSHIP_SEMANTIC);
+        assertNull(cache.get(cache.lookup(key(CONCEPT, 10))));
+        assertEquals(1, cache.size());
+
+        cache.entityChanged(OTHER_CONCEPT);
+        assertNull(cache.get(cache.lookup(key(OTHER_CONCEPT, 20))));
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.invalidations());
+    }
+
+    @Test
+    public void testConsequencesComputedAcrossAChangeAreNotStored() {
+        RuleResultCache.Lookup beforeComponentChange = cache.lookup(key(CONCEPT, 10));
+        cache.entityChanged(CONCEPT);
+        cache.put(beforeComponentChange, consequences());
+        assertEquals(0, cache.size());
+
+        cache.put(cache.lookup(key(OTHER_CONCEPT, 20)), consequences());
+        RuleResultCache.Lookup beforeSemanticChange = cache.lookup(key(CONCEPT, 10));
+        cache.entityChanged(MEMBERSHIP_SEMANTIC);
+        cache.put(beforeSemanticChange, consequences());
+        assertNull(cache.get(cache.lookup(key(CONCEPT, 10))));
+
+        RuleResultCache.Lookup afterChanges = cache.lookup(key(CONCEPT, 10));
+        cache.put(afterChanges, consequences());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testBurstOfChangesClearsWithoutResolvingThem() {
+        cache.put(cache.lookup(key(CONCEPT, 10)), consequences());
+        RuleResultCache.Lookup duringImport = cache.lookup(key(OTHER_CONCEPT, 20));
+        for (int nid = 1_000; nid < 1_000 + 2 * RuleResultCache.MAX_PENDING_CHANGES; nid++) {
+            cache.entityChanged(nid);
+        }
+
+        cache.put(duringImport, consequences());
+        assertEquals(0, cache.size());
+        assertNull(cache.get(cache.lookup(key(CONCEPT, 10))));
+        assertEquals(0, resolvedCount.get());
+    }
+
+    @Test
+    public void testClearRemovesEverything() {
+        cache.put(cache.lookup(key(CONCEPT, 10)), consequences());
+        RuleResultCache.Lookup beforeClear = cache.lookup(key(OTHER_CONCEPT, 20));
+        cache.clear();
+        cache.put(beforeClear, consequences());
+
+        assertEquals(0, cache.size());
+    }
+}